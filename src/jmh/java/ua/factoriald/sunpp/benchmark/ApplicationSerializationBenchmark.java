@@ -0,0 +1,119 @@
+package ua.factoriald.sunpp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ua.factoriald.sunpp.model.ApplicationEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Серіалізація списку заявок у JSON, CBOR і Smile, як у відповідях контролерів, і розбір відповіді клієнтом.
+ *
+ * ObjectMapper налаштований як у Spring Boot, а відповідь пишеться в потік без буфера,
+ * тож виміряна тільки робота Jackson, а не ріст масиву відповіді.
+ * Розмір відповіді в кожному форматі, без стиснення і з gzip, друкується при підготовці.
+ *
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ApplicationSerialization"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ApplicationSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private List<ApplicationEntity> applications;
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+    private CountingOutputStream out;
+
+    /**
+     * Відповідь для розбору
+     */
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws IOException {
+        applications = SyntheticApplicationGraph.build(size, 42).getApplications();
+        //ті ж налаштування, що й JacksonAutoConfiguration і BinaryFormatConfiguration
+        objectMapper = builder(format).build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ApplicationEntity.class));
+        out = new CountingOutputStream();
+
+        response = writer.writeValueAsBytes(applications);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(gzip)) {
+            gzipOut.write(response);
+        }
+        System.out.printf("%n%s, %d заявок: %d байтів, gzip %d байтів%n", format, size, response.length, gzip.size());
+    }
+
+    private static Jackson2ObjectMapperBuilder builder(String format) {
+        switch (format) {
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile();
+            default:
+                return Jackson2ObjectMapperBuilder.json();
+        }
+    }
+
+    @Benchmark
+    public long writeToStream() throws IOException {
+        out.count = 0;
+        writer.writeValue(out, applications);
+        return out.count;
+    }
+
+    @Benchmark
+    public byte[] writeAsBytes() throws IOException {
+        return writer.writeValueAsBytes(applications);
+    }
+
+    /**
+     * Розбір відповіді клієнтом у дерево, без прив'язки до класів
+     */
+    @Benchmark
+    public JsonNode readTree() throws IOException {
+        return objectMapper.readTree(response);
+    }
+
+    /**
+     * Потік, що тільки рахує байти
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            //writeValue закриває потік, а він використовується повторно
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ua.factoriald.sunpp.benchmark;
+
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ua.factoriald.sunpp.model.UserEntity;
+import ua.factoriald.sunpp.util.LongHashMap;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Порівнює пошук сутностей у HashSet з попереднім сталим хеш-кодом і з хеш-кодом від ідентифікатора,
+ * а також індекс за ідентифікатором на HashMap&lt;Long, ?&gt; і на {@link LongHashMap}.
+ *
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="EntityHashing"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityHashingBenchmark {
+
+    @Param({"10000", "20000"})
+    private int size;
+
+    private Set<LegacyUserEntity> legacySet;
+    private Set<UserEntity> entitySet;
+    private Map<Long, UserEntity> boxedIndex;
+    private LongHashMap<UserEntity> longIndex;
+    private List<UserEntity> users;
+
+    private LegacyUserEntity[] legacyProbes;
+    private UserEntity[] entityProbes;
+    private long[] idProbes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        users = new ArrayList<>(size);
+        legacySet = new HashSet<>();
+        entitySet = new HashSet<>();
+        for (long id = 1; id <= size; id++) {
+            UserEntity user = new UserEntity();
+            user.setId(id);
+            users.add(user);
+            entitySet.add(user);
+            legacySet.add(new LegacyUserEntity(id));
+        }
+        boxedIndex = new HashMap<>();
+        for (UserEntity user : users) {
+            boxedIndex.put(user.getId(), user);
+        }
+        longIndex = LongHashMap.indexBy(users, UserEntity::getId);
+
+        //шукаємо окремі екземпляри з тими ж ідентифікаторами, як після повторного завантаження з бази даних
+        Random random = new Random(42);
+        legacyProbes = new LegacyUserEntity[1024];
+        entityProbes = new UserEntity[1024];
+        idProbes = new long[1024];
+        for (int i = 0; i < idProbes.length; i++) {
+            long id = 1 + random.nextInt(size);
+            idProbes[i] = id;
+            legacyProbes[i] = new LegacyUserEntity(id);
+            entityProbes[i] = new UserEntity();
+            entityProbes[i].setId(id);
+        }
+    }
+
+    private int nextProbe() {
+        return next = (next + 1) & 1023;
+    }
+
+    @Benchmark
+    public boolean setContainsConstantHash() {
+        return legacySet.contains(legacyProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean setContainsIdHash() {
+        return entitySet.contains(entityProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public UserEntity indexGetBoxed() {
+        return boxedIndex.get(idProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public UserEntity indexGetLongHashMap() {
+        return longIndex.get(idProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void indexBuildBoxed(Blackhole blackhole) {
+        Map<Long, UserEntity> index = new HashMap<>();
+        for (UserEntity user : users) {
+            index.put(user.getId(), user);
+        }
+        blackhole.consume(index);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void indexBuildLongHashMap(Blackhole blackhole) {
+        blackhole.consume(LongHashMap.indexBy(users, UserEntity::getId));
+    }
+
+    /**
+     * Сутність з рівністю і хеш-кодом, як були в моделях до {@link ua.factoriald.sunpp.model.IdentifiedEntity}
+     */
+    static final class LegacyUserEntity {
+
+        private final Long id;
+
+        LegacyUserEntity(Long id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+            LegacyUserEntity that = (LegacyUserEntity) o;
+
+            return id != null && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 1838525018;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ua.factoriald.sunpp.benchmark;
+
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.CheckTypeConstants;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.services.DataProcessService;
+import ua.factoriald.sunpp.services.ReferenceDataRegistry;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Синтетичний граф заявок у пам'яті для бенчмарків, без бази даних.
+ *
+ * Кожна заявка має три записи перевірок, як після {@link ua.factoriald.sunpp.services.ApplicationWorkflowService#newApplication}.
+ * Етапи розподілені так: 40% чекають власника, 30% чекають адміністратора, 20% прийняті, 10% відхилені.
+ * Користувачі, сервіси і підрозділи спільні для заявок, як і в завантаженому з бази графі.
+ * Генерація детермінована, тож результати різних запусків порівнювані.
+ */
+public final class SyntheticApplicationGraph {
+
+    private static final int USERS = 1000;
+    private static final int SERVICES = 100;
+    private static final int DEPARTMENTS = 20;
+
+    private final ReferenceDataRegistry referenceData;
+    private final DataProcessService dataService;
+    private final List<ApplicationEntity> applications;
+
+    private SyntheticApplicationGraph(ReferenceDataRegistry referenceData, List<ApplicationEntity> applications) {
+        this.referenceData = referenceData;
+        //методам зі списками потрібен тільки довідник
+        this.dataService = new DataProcessService(null, null, null, null, null, referenceData, null);
+        this.applications = applications;
+    }
+
+    /**
+     * Будує граф
+     * @param size Кількість заявок
+     * @param seed Зерно генератора
+     * @return Граф
+     */
+    public static SyntheticApplicationGraph build(int size, long seed) {
+        RoleEntity admin = role(RoleConstants.ADMIN, "ADMIN");
+        RoleEntity owner = role(RoleConstants.OWNER, "OWNER");
+        RoleEntity user = role(RoleConstants.USER, "USER");
+        CheckTypeEntity userRecord = checkType(CheckTypeConstants.USER_APPLICATION_RECORD, "USER");
+        CheckTypeEntity checkingRecord = checkType(CheckTypeConstants.CHECKING_RECORD, "CHECK");
+        ReferenceDataRegistry.ReferenceData data = new ReferenceDataRegistry.ReferenceData(
+                Arrays.asList(admin, owner, user), Arrays.asList(userRecord, checkingRecord), Collections.emptyMap());
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(null, null, null, TimeUnit.DAYS.toMillis(1)) {
+            @Override
+            protected ReferenceData load() {
+                return data;
+            }
+        };
+
+        List<DepartmentEntity> departments = new ArrayList<>(DEPARTMENTS);
+        for (long id = 1; id <= DEPARTMENTS; id++) {
+            DepartmentEntity department = new DepartmentEntity();
+            department.setId(id);
+            department.setName("Підрозділ " + id);
+            departments.add(department);
+        }
+        List<UserEntity> users = new ArrayList<>(USERS);
+        for (long id = 1; id <= USERS; id++) {
+            UserEntity applicant = new UserEntity();
+            applicant.setId(id);
+            applicant.setLogin("user" + id);
+            users.add(applicant);
+        }
+        List<ServiceEntity> services = new ArrayList<>(SERVICES);
+        for (long id = 1; id <= SERVICES; id++) {
+            ServiceEntity service = new ServiceEntity();
+            service.setId(id);
+            service.setName("Сервіс " + id);
+            service.setOwnerUser(users.get((int) id - 1));
+            service.setAvaliableRoles(Arrays.asList(user, admin));
+            services.add(service);
+        }
+
+        Random random = new Random(seed);
+        long start = Timestamp.valueOf("2022-01-01 00:00:00").getTime();
+        List<ApplicationEntity> applications = new ArrayList<>(size);
+        long checkingId = 1;
+        for (long id = 1; id <= size; id++) {
+            ApplicationEntity application = new ApplicationEntity();
+            application.setId(id);
+            application.setApplicant(users.get(random.nextInt(USERS)));
+            application.setService(services.get(random.nextInt(SERVICES)));
+            application.setDepartment(random.nextBoolean() ? departments.get(random.nextInt(DEPARTMENTS)) : null);
+            Timestamp created = new Timestamp(start + id * 60_000L);
+            application.setCreationDate(created);
+            application.setStatusDate(created);
+
+            int stage = random.nextInt(100);
+            Boolean ownerDecision = stage < 40 ? null : stage < 95 ? Boolean.TRUE : Boolean.FALSE;
+            Boolean adminDecision = stage < 70 ? null : stage < 90 ? Boolean.TRUE : stage < 95 ? Boolean.FALSE : null;
+            application.setStatus(stage < 40 ? ApplicationStatus.WAITING_FOR_OWNER
+                    : stage < 70 ? ApplicationStatus.WAITING_FOR_ADMIN
+                    : stage < 90 ? ApplicationStatus.ACCEPTED
+                    : ApplicationStatus.DECLINED);
+
+            List<ApplicationCheckingEntity> checkings = application.getCheckings();
+            checkings.add(checking(checkingId++, application, userRecord, user, application.getApplicant(), null, created));
+            checkings.add(checking(checkingId++, application, checkingRecord, owner, null, ownerDecision, created));
+            checkings.add(checking(checkingId++, application, checkingRecord, admin, null, adminDecision, created));
+            applications.add(application);
+        }
+        return new SyntheticApplicationGraph(referenceData, applications);
+    }
+
+    public ReferenceDataRegistry getReferenceData() {
+        return referenceData;
+    }
+
+    public DataProcessService getDataService() {
+        return dataService;
+    }
+
+    public List<ApplicationEntity> getApplications() {
+        return applications;
+    }
+
+    private static RoleEntity role(long id, String name) {
+        RoleEntity role = new RoleEntity();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+
+    private static CheckTypeEntity checkType(long id, String name) {
+        CheckTypeEntity checkType = new CheckTypeEntity();
+        checkType.setId(id);
+        checkType.setName(name);
+        return checkType;
+    }
+
+    private static ApplicationCheckingEntity checking(long id, ApplicationEntity application, CheckTypeEntity checkType,
+                                                      RoleEntity role, UserEntity user, Boolean decision, Timestamp date) {
+        ApplicationCheckingEntity checking = new ApplicationCheckingEntity();
+        checking.setId(id);
+        checking.setApplication(application);
+        checking.setCheckType(checkType);
+        checking.setRole(role);
+        checking.setUser(user);
+        checking.setCheckYesNoNull(decision);
+        checking.setCheckingDate(decision == null ? null : date);
+        return checking;
+    }
+}
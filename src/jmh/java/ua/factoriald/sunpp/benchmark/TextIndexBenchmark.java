@@ -0,0 +1,84 @@
+package ua.factoriald.sunpp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ua.factoriald.sunpp.util.TextIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пошук робітників за повним ім'ям в {@link TextIndex}, як у пошуку адміністратора.
+ *
+ * Імена складаються з поширених прізвищ, імен і по батькові, тож популярні префікси мають тисячі збігів.
+ * Запити: короткий префікс, ім'я з прізвищем, прізвище з помилкою (неточний пошук) і заміна робітника в індексі.
+ *
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="TextIndex"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TextIndexBenchmark {
+
+    private static final String[] SURNAME_ROOTS = {
+            "Петр", "Коваль", "Шевч", "Бондар", "Ткач", "Кравч", "Олійн", "Мельн", "Марчук", "Гончар",
+            "Савч", "Руд", "Левч", "Павл", "Лисен", "Мороз", "Кушнір", "Сидор", "Остап", "Гриц"};
+    private static final String[] SURNAME_ENDINGS = {"енко", "ук", "ишин", "ов", "ський", "ець", "ич", "ак"};
+    private static final String[] NAMES = {
+            "Олександр", "Андрій", "Іван", "Тарас", "Олена", "Ірина", "Марʼяна", "Петро", "Наталія", "Юрій",
+            "Оксана", "Сергій", "Віктор", "Людмила", "Богдан", "Світлана"};
+
+    private static final int LIMIT = 20;
+
+    @Param({"100000"})
+    private int size;
+
+    private TextIndex<Long> index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new TextIndex<>();
+        for (long id = 1; id <= size; id++) {
+            index.put(id, fullname(random), id);
+        }
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit<Long>> shortPrefix() {
+        return index.search("пе", LIMIT, id -> true);
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit<Long>> surnameAndName() {
+        return index.search("коваленко ірин", LIMIT, id -> true);
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit<Long>> misspelledSurname() {
+        return index.search("бондаренка", LIMIT, id -> true);
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit<Long>> filtered() {
+        return index.search("олен", LIMIT, id -> id % 50 == 0);
+    }
+
+    @Benchmark
+    public Long replace() {
+        long id = next++ % size + 1;
+        Long document = index.remove(id);
+        index.put(id, "Гончарук Тарас Іванович", document);
+        return document;
+    }
+
+    private static String fullname(Random random) {
+        return SURNAME_ROOTS[random.nextInt(SURNAME_ROOTS.length)] + SURNAME_ENDINGS[random.nextInt(SURNAME_ENDINGS.length)]
+                + ' ' + NAMES[random.nextInt(NAMES.length)]
+                + ' ' + NAMES[random.nextInt(NAMES.length)] + "ович";
+    }
+}
@@ -0,0 +1,100 @@
+package ua.factoriald.sunpp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.model.ApplicationEntity;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.services.DataProcessService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевірка готовності заявки до рішення адміністратора на синтетичному графі ({@link SyntheticApplicationGraph}).
+ * Відбір заявок для власника і адміністратора робиться запитом по етапу розгляду, тому тут не вимірюється.
+ *
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="WorkflowLogic"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WorkflowLogicBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private DataProcessService dataService;
+
+    /**
+     * Кількість заявок для перевірок, степінь двійки
+     */
+    private static final int SAMPLES = 1024;
+
+    /**
+     * Заявки, що чекають адміністратора, і заявки, які він не може перевіряти (виняток)
+     */
+    private ApplicationEntity[] readyForAdmin;
+    private ApplicationEntity[] notReadyForAdmin;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticApplicationGraph graph = SyntheticApplicationGraph.build(size, 42);
+        dataService = graph.getDataService();
+
+        List<ApplicationEntity> ready = new ArrayList<>();
+        List<ApplicationEntity> notReady = new ArrayList<>();
+        for (ApplicationEntity application : graph.getApplications()) {
+            if (application.getStatus() == ApplicationStatus.WAITING_FOR_ADMIN) {
+                ready.add(application);
+            } else {
+                notReady.add(application);
+            }
+        }
+        readyForAdmin = cycle(ready);
+        notReadyForAdmin = cycle(notReady);
+    }
+
+    /**
+     * Повторює заявки до рівно {@link #SAMPLES} елементів, щоб вибирати їх маскою і проходити всі
+     */
+    private static ApplicationEntity[] cycle(List<ApplicationEntity> applications) {
+        if (applications.isEmpty()) {
+            throw new IllegalStateException("Немає заявок для перевірки, збільште size");
+        }
+        ApplicationEntity[] samples = new ApplicationEntity[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = applications.get(i % applications.size());
+        }
+        return samples;
+    }
+
+    /**
+     * Одна заявка за виклик, тому час не залежить від size
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object checkReadyForAdmin() {
+        ApplicationEntity application = readyForAdmin[next++ & (SAMPLES - 1)];
+        return dataService.checkApplicationReadyForAdminAndGetCheckingsOrThrow(application);
+    }
+
+    /**
+     * Відмова коштує створення ResponseStatusException зі стеком
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void checkNotReadyForAdmin(Blackhole blackhole) {
+        ApplicationEntity application = notReadyForAdmin[next++ & (SAMPLES - 1)];
+        try {
+            blackhole.consume(dataService.checkApplicationReadyForAdminAndGetCheckingsOrThrow(application));
+        } catch (ResponseStatusException e) {
+            blackhole.consume(e);
+        }
+    }
+}
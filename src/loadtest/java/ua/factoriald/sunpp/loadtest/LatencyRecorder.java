@@ -0,0 +1,85 @@
+package ua.factoriald.sunpp.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Затримки і помилки одного віртуального користувача по кожній кінцевій точці.
+ * Після тесту записувачі всіх користувачів об'єднуються, і по відсортованих затримках рахуються перцентилі
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    /**
+     * @param endpoint Назва кінцевої точки
+     * @param nanos Затримка в наносекундах
+     * @param error Чи відповідь з помилкою (не 2xx і не 304)
+     */
+    public void record(String endpoint, long nanos, boolean error) {
+        Samples endpointSamples = samples.computeIfAbsent(endpoint, e -> new Samples());
+        endpointSamples.add(nanos);
+        if (error) {
+            endpointSamples.errors++;
+        }
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (Map.Entry<String, Samples> entry : other.samples.entrySet()) {
+            Samples target = samples.computeIfAbsent(entry.getKey(), e -> new Samples());
+            Samples source = entry.getValue();
+            for (int i = 0; i < source.size; i++) {
+                target.add(source.values[i]);
+            }
+            target.errors += source.errors;
+        }
+    }
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("%-14s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            Samples endpointSamples = entry.getValue();
+            long[] sorted = Arrays.copyOf(endpointSamples.values, endpointSamples.size);
+            Arrays.sort(sorted);
+            total += sorted.length;
+            out.printf("%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), sorted.length, endpointSamples.errors, sorted.length / seconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        }
+        out.printf("%-14s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Масив затримок, що росте, без упаковки в Long
+     */
+    private static final class Samples {
+
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
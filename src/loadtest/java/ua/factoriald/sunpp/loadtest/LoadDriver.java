@@ -0,0 +1,198 @@
+package ua.factoriald.sunpp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Навантаження на HTTP API застосунку з віртуальних користувачів на JDK HttpClient.
+ *
+ * Кожен віртуальний користувач без пауз вибирає дію за частками з {@link LoadTestSettings#getMix()}:
+ * створення заявки, опитування вхідних власника чи адміністратора, рішення власника чи адміністратора.
+ * Рішення приймається по заявці з останнього опитування цього рецензента, як це робить фронтенд.
+ * Якщо рецензент ще не опитувався чи його список порожній, то замість рішення виконується опитування.
+ * Затримки пишуться тільки після розігріву.
+ */
+public class LoadDriver {
+
+    private static final String[] ENDPOINTS = {"user create", "owner inbox", "admin inbox", "owner decide", "admin decide"};
+
+    private final LoadTestSettings settings;
+    private final String url;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Inbox> inboxes = new ConcurrentHashMap<>();
+
+    private volatile boolean measuring;
+
+    public LoadDriver(LoadTestSettings settings, String url) {
+        this.settings = settings;
+        this.url = url;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Виконує розігрів і вимірювання
+     * @return Об'єднані затримки всіх віртуальних користувачів
+     */
+    public LatencyRecorder run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + settings.getWarmupSeconds() * 1_000_000_000L;
+        long deadline = measureFrom + settings.getDurationSeconds() * 1_000_000_000L;
+
+        List<Thread> threads = new ArrayList<>();
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            Random random = new Random(settings.getSeed() + i);
+            Thread thread = new Thread(() -> loop(random, recorder, deadline), "virtual-user-" + i);
+            recorders.add(recorder);
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(Math.max(0, (measureFrom - System.nanoTime()) / 1_000_000));
+        measuring = true;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyRecorder result = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            result.merge(recorder);
+        }
+        return result;
+    }
+
+    private void loop(Random random, LatencyRecorder recorder, long deadline) {
+        int[] mix = settings.getMix();
+        int total = 0;
+        for (int weight : mix) {
+            total += weight;
+        }
+        while (System.nanoTime() < deadline) {
+            int pick = random.nextInt(total);
+            int action = 0;
+            while (pick >= mix[action]) {
+                pick -= mix[action++];
+            }
+            try {
+                switch (action) {
+                    case 0:
+                        createApplication(random, recorder);
+                        break;
+                    case 1:
+                        decideOrPoll(random, recorder, "owner", randomOwner(random), false);
+                        break;
+                    case 2:
+                        decideOrPoll(random, recorder, "admin", randomAdmin(random), false);
+                        break;
+                    case 3:
+                        decideOrPoll(random, recorder, "owner", randomOwner(random), true);
+                        break;
+                    default:
+                        decideOrPoll(random, recorder, "admin", randomAdmin(random), true);
+                }
+            } catch (IOException e) {
+                record(recorder, ENDPOINTS[action], 0, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void createApplication(Random random, LatencyRecorder recorder) throws IOException, InterruptedException {
+        int reviewers = settings.getServices() + SyntheticDataGenerator.adminCount(settings);
+        long userId = reviewers + 1 + random.nextInt(settings.getUsers() - reviewers);
+        long serviceId = random.nextInt(settings.getServices()) + 1;
+        send(recorder, ENDPOINTS[0], HttpRequest.newBuilder(URI.create(
+                url + "/user/" + userId + "/application/create/" + serviceId + "/3/"
+                        + "?department_id=" + (random.nextInt(SyntheticDataGenerator.DEPARTMENTS) + 1))));
+    }
+
+    private void decideOrPoll(Random random, LatencyRecorder recorder, String kind, long reviewerId, boolean decide)
+            throws IOException, InterruptedException {
+        String key = kind + "-" + reviewerId;
+        Inbox inbox = inboxes.get(key);
+        Long applicationId = decide && inbox != null ? inbox.pending.pollFirst() : null;
+        if (applicationId == null) {
+            poll(recorder, kind, reviewerId, key, inbox);
+            return;
+        }
+        String decision = random.nextInt(5) == 0 ? "decline" : "accept";
+        send(recorder, kind + " decide", HttpRequest.newBuilder(URI.create(
+                url + "/" + kind + "/" + reviewerId + "/application/" + applicationId + "/" + decision)));
+    }
+
+    private void poll(LatencyRecorder recorder, String kind, long reviewerId, String key, Inbox inbox)
+            throws IOException, InterruptedException {
+        String path = "owner".equals(kind)
+                ? "/owner/" + reviewerId + "/application/refreshed/service/all"
+                : "/admin/" + reviewerId + "/application/refreshed";
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path));
+        if (settings.isConditionalPolls() && inbox != null && inbox.etag != null) {
+            request.header("If-None-Match", inbox.etag);
+        }
+        HttpResponse<byte[]> response = send(recorder, kind + " inbox", request);
+        if (response.statusCode() == 200) {
+            Inbox refreshed = new Inbox(response.headers().firstValue("ETag").orElse(null));
+            for (JsonNode application : objectMapper.readTree(response.body())) {
+                refreshed.pending.add(application.get("id").asLong());
+            }
+            inboxes.put(key, refreshed);
+        }
+    }
+
+    private HttpResponse<byte[]> send(LatencyRecorder recorder, String endpoint, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<byte[]> response = client.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        int status = response.statusCode();
+        record(recorder, endpoint, System.nanoTime() - started, status >= 300 && status != 304);
+        return response;
+    }
+
+    private void record(LatencyRecorder recorder, String endpoint, long nanos, boolean error) {
+        if (measuring) {
+            recorder.record(endpoint, nanos, error);
+        }
+    }
+
+    private long randomOwner(Random random) {
+        return random.nextInt(settings.getServices()) + 1;
+    }
+
+    private long randomAdmin(Random random) {
+        return SyntheticDataGenerator.firstAdminId(settings) + random.nextInt(SyntheticDataGenerator.adminCount(settings));
+    }
+
+    /**
+     * Останній отриманий список рецензента: ETag і заявки, по яких ще не приймалось рішення
+     */
+    private static final class Inbox {
+
+        private final String etag;
+        private final Deque<Long> pending = new ConcurrentLinkedDeque<>();
+
+        private Inbox(String etag) {
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ua.factoriald.sunpp.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ua.factoriald.sunpp.SunppApplication;
+import ua.factoriald.sunpp.services.ReferenceDataRegistry;
+
+import javax.sql.DataSource;
+
+/**
+ * Навантажувальний тест без Oracle.
+ *
+ * Запускає застосунок з профілем loadtest (H2 в режимі Oracle, схема SERVICEADMIN2 створюється Hibernate з сутностей),
+ * заповнює базу згенерованими даними і навантажує HTTP API ({@link LoadDriver}).
+ * В кінці друкує кількість запитів, помилки, пропускну здатність і перцентилі затримок по кожній кінцевій точці.
+ *
+ * Запуск: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="applications=1000000 concurrency=32 duration=120"
+ * Порівняння з віртуальними потоками (потрібна Java 21): той самий запуск з mode=virtual і тим самим seed.
+ * Параметри описані в {@link LoadTestSettings}.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings(args);
+        ConfigurableApplicationContext context = null;
+        String url = settings.getUrl();
+        try {
+            if (url == null) {
+                //перезапуск devtools запустив би застосунок удруге в іншому потоці
+                System.setProperty("spring.devtools.restart.enabled", "false");
+                context = new SpringApplicationBuilder(SunppApplication.class).profiles("loadtest")
+                        .properties("sunpp.execution.mode=" + settings.getExecutionMode())
+                        .run();
+                long started = System.nanoTime();
+                new SyntheticDataGenerator(context.getBean(DataSource.class), settings).generate();
+                //довідник завантажився при старті з порожньої бази
+                context.getBean(ReferenceDataRegistry.class).reload();
+                System.out.printf("Згенеровано %d користувачів, %d сервісів, %d заявок за %.1f с%n",
+                        settings.getUsers(), settings.getServices(), settings.getApplications(),
+                        (System.nanoTime() - started) / 1e9);
+                System.out.printf("Режим виконання: %s%n", settings.getExecutionMode());
+                url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+
+            System.out.printf("Розігрів %d с, вимірювання %d с, %d віртуальних користувачів%n",
+                    settings.getWarmupSeconds(), settings.getDurationSeconds(), settings.getConcurrency());
+            LatencyRecorder result = new LoadDriver(settings, url).run();
+            result.print(System.out, settings.getDurationSeconds());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+}
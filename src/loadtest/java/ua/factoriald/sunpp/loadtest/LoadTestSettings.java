@@ -0,0 +1,101 @@
+package ua.factoriald.sunpp.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметри навантажувального тесту з аргументів виду ключ=значення
+ */
+public class LoadTestSettings {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public LoadTestSettings(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Очікується ключ=значення: " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        if (getServices() < 5) {
+            throw new IllegalArgumentException("Потрібно щонайменше 5 сервісів");
+        }
+        if (getUsers() < getServices() + SyntheticDataGenerator.adminCount(this)) {
+            throw new IllegalArgumentException("Користувачів має бути більше, ніж власників і адміністраторів");
+        }
+    }
+
+    public int getUsers() {
+        return getInt("users", 20000);
+    }
+
+    public int getServices() {
+        return getInt("services", 400);
+    }
+
+    public int getApplications() {
+        return getInt("applications", 200000);
+    }
+
+    public long getSeed() {
+        return Long.parseLong(values.getOrDefault("seed", "42"));
+    }
+
+    /**
+     * Кількість віртуальних користувачів, кожен робить запити без пауз
+     */
+    public int getConcurrency() {
+        return getInt("concurrency", 16);
+    }
+
+    public int getWarmupSeconds() {
+        return getInt("warmup", 10);
+    }
+
+    public int getDurationSeconds() {
+        return getInt("duration", 60);
+    }
+
+    /**
+     * Чи надсилати If-None-Match з попереднім ETag при опитуванні вхідних заявок
+     */
+    public boolean isConditionalPolls() {
+        return Boolean.parseBoolean(values.getOrDefault("etag", "true"));
+    }
+
+    /**
+     * Адреса вже запущеного застосунку. Якщо не задана, то застосунок запускається з профілем loadtest
+     * і заповнюється згенерованими даними
+     */
+    public String getUrl() {
+        return values.get("url");
+    }
+
+    /**
+     * Режим виконання запитів застосунку, що запускається тестом: platform (пул Tomcat) чи virtual
+     */
+    public String getExecutionMode() {
+        return values.getOrDefault("mode", "platform");
+    }
+
+    /**
+     * Відносні частки дій: створення заявок, опитування вхідних власника і адміністратора, рішення власника і адміністратора
+     */
+    public int[] getMix() {
+        String[] parts = values.getOrDefault("mix", "10,35,35,10,10").split(",");
+        int[] mix = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            mix[i] = Integer.parseInt(parts[i].trim());
+        }
+        if (mix.length != 5) {
+            throw new IllegalArgumentException("mix має містити 5 чисел");
+        }
+        return mix;
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
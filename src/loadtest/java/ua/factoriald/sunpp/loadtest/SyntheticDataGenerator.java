@@ -0,0 +1,216 @@
+package ua.factoriald.sunpp.loadtest;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.Random;
+
+/**
+ * Детермінований генератор даних для навантажувального тесту.
+ *
+ * Дані пишуться пакетними JDBC-вставками з явними ідентифікаторами, після чого лічильники
+ * IDENTITY-колонок переводяться за останній ідентифікатор, щоб застосунок міг створювати нові записи.
+ *
+ * Форма даних:
+ * користувачі 1..services - власники (по одному сервісу), наступні services*2/5 - адміністратори
+ * (по два на сервіс, кожен адмініструє п'ять сервісів), решта - заявники.
+ * Етапи заявок: 40% чекають власника, 30% чекають адміністратора, 20% прийняті, 10% відхилені.
+ */
+public class SyntheticDataGenerator {
+
+    static final int DEPARTMENTS = 50;
+    private static final int POSITIONS = 50;
+    private static final int BATCH = 1000;
+
+    private final DataSource dataSource;
+    private final LoadTestSettings settings;
+
+    public SyntheticDataGenerator(DataSource dataSource, LoadTestSettings settings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+    }
+
+    /**
+     * @return Перший ідентифікатор адміністратора
+     */
+    public static long firstAdminId(LoadTestSettings settings) {
+        return settings.getServices() + 1L;
+    }
+
+    /**
+     * @return Кількість адміністраторів
+     */
+    public static int adminCount(LoadTestSettings settings) {
+        return settings.getServices() * 2 / 5;
+    }
+
+    public void generate() throws SQLException {
+        Random random = new Random(settings.getSeed());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            batch(connection, "insert into SERVICEADMIN2.ROLES (ROLE_ID, NAME) values (?, ?)", 3, (ps, i) -> {
+                ps.setLong(1, i + 1);
+                ps.setString(2, new String[]{"ADMIN", "OWNER", "USER"}[i]);
+            });
+            batch(connection, "insert into SERVICEADMIN2.CHECK_TYPES (CHECK_TYPE_ID, CHECK_TYPE) values (?, ?)", 2, (ps, i) -> {
+                ps.setLong(1, i);
+                ps.setString(2, i == 0 ? "USER" : "CHECK");
+            });
+            batch(connection, "insert into SERVICEADMIN2.DEPARTMENTS (DEPARTMENT_ID, NAME) values (?, ?)", DEPARTMENTS, (ps, i) -> {
+                ps.setLong(1, i + 1);
+                ps.setString(2, "Підрозділ " + (i + 1));
+            });
+            batch(connection, "insert into SERVICEADMIN2.POSITIONS (POSITION_ID, NAME) values (?, ?)", POSITIONS, (ps, i) -> {
+                ps.setLong(1, i + 1);
+                ps.setString(2, "Посада " + (i + 1));
+            });
+            batch(connection, "insert into SERVICEADMIN2.WORKERS (WORKER_ID, FULLNAME, DEPARTMENT_ID, POSITION_ID) values (?, ?, ?, ?)",
+                    settings.getUsers(), (ps, i) -> {
+                        ps.setLong(1, i + 1);
+                        ps.setString(2, "Працівник " + (i + 1));
+                        ps.setLong(3, i % DEPARTMENTS + 1);
+                        ps.setLong(4, i % POSITIONS + 1);
+                    });
+            batch(connection, "insert into SERVICEADMIN2.USERS (USER_ID, LOGIN, WORKER_ID) values (?, ?, ?)",
+                    settings.getUsers(), (ps, i) -> {
+                        ps.setLong(1, i + 1);
+                        ps.setString(2, "user" + (i + 1));
+                        ps.setLong(3, i + 1);
+                    });
+            batch(connection, "insert into SERVICEADMIN2.SERVICES (SERVICE_ID, NAME, OWNER_USER_ID) values (?, ?, ?)",
+                    settings.getServices(), (ps, i) -> {
+                        ps.setLong(1, i + 1);
+                        ps.setString(2, "Сервіс " + (i + 1));
+                        ps.setLong(3, i + 1);
+                    });
+            batch(connection, "insert into SERVICES_HAS_AVALIABLE_ROLES (SERVICE_ID, ROLE_ID) values (?, ?)",
+                    settings.getServices() * 2, (ps, i) -> {
+                        ps.setLong(1, i / 2 + 1);
+                        ps.setLong(2, i % 2 == 0 ? 3 : 1);
+                    });
+
+            //власник має роль власника у своєму сервісі, а кожен сервіс має двох адміністраторів
+            long firstAdmin = firstAdminId(settings);
+            int admins = adminCount(settings);
+            int services = settings.getServices();
+            batch(connection, "insert into SERVICEADMIN2.USERS_HAVING_ACCESS_TO_SERVICES (ACCESS_ID, USER_ID, ROLE_ID, SERVICE_ID) values (?, ?, ?, ?)",
+                    services * 3, (ps, i) -> {
+                        int service = i / 3;
+                        ps.setLong(1, i + 1);
+                        if (i % 3 == 0) {
+                            ps.setLong(2, service + 1);
+                            ps.setLong(3, 2);
+                        } else {
+                            ps.setLong(2, firstAdmin + (service * 2 + i % 3 - 1) % admins);
+                            ps.setLong(3, 1);
+                        }
+                        ps.setLong(4, service + 1);
+                    });
+
+            generateApplications(connection, random);
+            connection.commit();
+
+            restartIdentity(connection, "APPLICATIONS", "APPLICATION_ID", settings.getApplications() + 1L);
+            restartIdentity(connection, "APPLICATION_CHECKING", "CHECK_ID", settings.getApplications() * 3L + 1);
+            restartIdentity(connection, "USERS_HAVING_ACCESS_TO_SERVICES", "ACCESS_ID", services * 3L + 1);
+            restartIdentity(connection, "SERVICES", "SERVICE_ID", services + 1L);
+            restartIdentity(connection, "USERS", "USER_ID", settings.getUsers() + 1L);
+            restartIdentity(connection, "WORKERS", "WORKER_ID", settings.getUsers() + 1L);
+            restartIdentity(connection, "DEPARTMENTS", "DEPARTMENT_ID", DEPARTMENTS + 1L);
+            restartIdentity(connection, "POSITIONS", "POSITION_ID", POSITIONS + 1L);
+            connection.commit();
+        }
+    }
+
+    private void generateApplications(Connection connection, Random random) throws SQLException {
+        long start = Timestamp.valueOf("2022-01-01 00:00:00").getTime();
+        try (PreparedStatement applications = connection.prepareStatement(
+                "insert into SERVICEADMIN2.APPLICATIONS (APPLICATION_ID, APPLICANT_ID, SERVICE_FOR_ACCESS_ID, DEPARTMENT_ID, " +
+                        "CREATION_DATE, STATUS, STATUS_DATE) values (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement checkings = connection.prepareStatement(
+                "insert into SERVICEADMIN2.APPLICATION_CHECKING (CHECK_ID, APPLICATION_ID, CHECK_TYPE_ID, ROLE_ID, USER_ID, " +
+                        "CHECK_YES_NO_NULL, CHECKING_DATE) values (?, ?, ?, ?, ?, ?, ?)")) {
+            long checkId = 1;
+            for (long id = 1; id <= settings.getApplications(); id++) {
+                long applicant = random.nextInt(settings.getUsers()) + 1;
+                Timestamp created = new Timestamp(start + id * 1000L);
+                int stage = random.nextInt(100);
+                Boolean owner = stage < 40 ? null : stage < 95 ? Boolean.TRUE : Boolean.FALSE;
+                Boolean admin = stage < 70 ? null : stage < 90 ? Boolean.TRUE : stage < 95 ? Boolean.FALSE : null;
+                String status = stage < 40 ? "WAITING_FOR_OWNER" : stage < 70 ? "WAITING_FOR_ADMIN"
+                        : stage < 90 ? "ACCEPTED" : "DECLINED";
+
+                applications.setLong(1, id);
+                applications.setLong(2, applicant);
+                applications.setLong(3, random.nextInt(settings.getServices()) + 1);
+                if (random.nextBoolean()) {
+                    applications.setLong(4, random.nextInt(DEPARTMENTS) + 1);
+                } else {
+                    applications.setNull(4, Types.BIGINT);
+                }
+                applications.setTimestamp(5, created);
+                applications.setString(6, status);
+                applications.setTimestamp(7, created);
+                applications.addBatch();
+
+                addChecking(checkings, checkId++, id, 0, 3, applicant, null, created);
+                addChecking(checkings, checkId++, id, 1, 2, null, owner, created);
+                addChecking(checkings, checkId++, id, 1, 1, null, admin, created);
+
+                if (id % BATCH == 0) {
+                    applications.executeBatch();
+                    checkings.executeBatch();
+                }
+                if (id % (BATCH * 100L) == 0) {
+                    connection.commit();
+                }
+            }
+            applications.executeBatch();
+            checkings.executeBatch();
+        }
+    }
+
+    private static void addChecking(PreparedStatement ps, long id, long applicationId, long checkType, long role,
+                                    Long user, Boolean decision, Timestamp date) throws SQLException {
+        ps.setLong(1, id);
+        ps.setLong(2, applicationId);
+        ps.setLong(3, checkType);
+        ps.setLong(4, role);
+        if (user != null) {
+            ps.setLong(5, user);
+        } else {
+            ps.setNull(5, Types.BIGINT);
+        }
+        if (decision != null) {
+            ps.setBoolean(6, decision);
+            ps.setTimestamp(7, date);
+        } else {
+            ps.setNull(6, Types.BOOLEAN);
+            ps.setNull(7, Types.TIMESTAMP);
+        }
+        ps.addBatch();
+    }
+
+    private static void batch(Connection connection, String sql, int count, RowWriter writer) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(ps, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void restartIdentity(Connection connection, String table, String column, long next) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table SERVICEADMIN2." + table + " alter column " + column + " restart with " + next);
+        }
+    }
+
+    private interface RowWriter {
+        void write(PreparedStatement ps, int index) throws SQLException;
+    }
+}
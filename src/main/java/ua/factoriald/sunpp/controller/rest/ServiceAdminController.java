@@ -1,16 +1,45 @@
 package ua.factoriald.sunpp.controller.rest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
 import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
 import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.SearchTarget;
+import ua.factoriald.sunpp.model.dto.ApplicationImportReport;
+import ua.factoriald.sunpp.model.dto.ApplicationSummary;
+import ua.factoriald.sunpp.model.dto.BulkDecisionRequest;
+import ua.factoriald.sunpp.model.dto.BulkDecisionResult;
+import ua.factoriald.sunpp.model.dto.CursorPage;
+import ua.factoriald.sunpp.model.dto.PendingCounts;
+import ua.factoriald.sunpp.model.dto.SearchResult;
 import ua.factoriald.sunpp.repository.*;
+import ua.factoriald.sunpp.serialization.ResponseFormat;
+import ua.factoriald.sunpp.services.ApplicationExportService;
+import ua.factoriald.sunpp.services.ApplicationImportService;
+import ua.factoriald.sunpp.services.ApplicationWorkflowService;
+import ua.factoriald.sunpp.services.CatalogResponseCache;
 import ua.factoriald.sunpp.services.DataProcessService;
-
-import java.util.Date;
-import java.util.HashMap;
+import ua.factoriald.sunpp.services.EntitySearchIndex;
+import ua.factoriald.sunpp.services.PendingApplicationCounters;
+import ua.factoriald.sunpp.services.ReferenceDataRegistry;
+import ua.factoriald.sunpp.services.ReviewerInboxService;
+import ua.factoriald.sunpp.services.VersionStamps;
+
+import java.io.InputStream;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * REST контроллер для роботи з даними, що стосуються роботи адміна
@@ -22,23 +51,37 @@ public class ServiceAdminController {
 
     private final DataProcessService dataService;
     private final WorkerRepository workerRepository;
-    private final ApplicationCheckingRepository applicationCheckingRepository;
-    private final RoleRepository roleRepository;
+    private final ApplicationRepository applicationRepository;
+    private final ApplicationWorkflowService workflowService;
+    private final ApplicationExportService exportService;
+    private final ApplicationImportService importService;
+    private final ReviewerInboxService inboxService;
+    private final VersionStamps versionStamps;
+    private final CatalogResponseCache catalogCache;
+    private final ReferenceDataRegistry referenceData;
     private final UserRepository userRepository;
-    private final UserHaveAccessToServiceRepository accessToServiceRepository;
     private final DepartmentRepository departmentRepository;
     private final PositionRepository positionRepository;
+    private final PendingApplicationCounters pendingCounters;
+    private final EntitySearchIndex searchIndex;
 
     @Autowired
-    public ServiceAdminController(DataProcessService dataService, WorkerRepository workerRepository, ApplicationCheckingRepository applicationCheckingRepository, RoleRepository roleRepository, UserRepository userRepository, UserHaveAccessToServiceRepository accessToServiceRepository, DepartmentRepository departmentRepository, PositionRepository positionRepository) {
+    public ServiceAdminController(DataProcessService dataService, WorkerRepository workerRepository, ApplicationRepository applicationRepository, ApplicationWorkflowService workflowService, ApplicationExportService exportService, ApplicationImportService importService, ReviewerInboxService inboxService, VersionStamps versionStamps, CatalogResponseCache catalogCache, ReferenceDataRegistry referenceData, UserRepository userRepository, DepartmentRepository departmentRepository, PositionRepository positionRepository, PendingApplicationCounters pendingCounters, EntitySearchIndex searchIndex) {
         this.dataService = dataService;
         this.workerRepository = workerRepository;
-        this.applicationCheckingRepository = applicationCheckingRepository;
-        this.roleRepository = roleRepository;
+        this.applicationRepository = applicationRepository;
+        this.workflowService = workflowService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.inboxService = inboxService;
+        this.versionStamps = versionStamps;
+        this.catalogCache = catalogCache;
+        this.referenceData = referenceData;
         this.userRepository = userRepository;
-        this.accessToServiceRepository = accessToServiceRepository;
         this.departmentRepository = departmentRepository;
         this.positionRepository = positionRepository;
+        this.pendingCounters = pendingCounters;
+        this.searchIndex = searchIndex;
     }
 
     /**
@@ -53,7 +96,7 @@ public class ServiceAdminController {
 
             UserEntity admin = dataService.getUserWithRoleOrThrow(
                     adminId,
-                    roleRepository.findById(RoleConstants.ADMIN).get());
+                    referenceData.getRole(RoleConstants.ADMIN));
 
             return dataService.getAllApplicationsForAdmin(admin);
 
@@ -78,7 +121,7 @@ public class ServiceAdminController {
 
             UserEntity adminUser = dataService.getUserWithRoleOrThrow(
                     adminId,
-                    roleRepository.findById(RoleConstants.ADMIN).get());
+                    referenceData.getRole(RoleConstants.ADMIN));
             ApplicationEntity application = dataService.getApplicationOrThrow(applicationId);
             dataService.throwIfServiceNotOfAdmin(application.getService(),adminUser);
 
@@ -91,21 +134,208 @@ public class ServiceAdminController {
     }
 
     /**
-     * Повертає всі заявки, які очікують на рішення адміна
+     * Повертає всі заявки, які очікують на рішення адміна.
+     * Якщо заявки не змінились з версії в If-None-Match, то відповідь 304 без завантаження адміністратора і заявок
      * @param adminIdString Ідентифікатор адміністратора
      * @return Список заявок або null
      */
     @GetMapping("/admin/{admin_id}/application/refreshed")
-    public List<ApplicationEntity> getAdminRefreshedApplications(@PathVariable("admin_id") String adminIdString) {
+    public List<ApplicationEntity> getAdminRefreshedApplications(@PathVariable("admin_id") String adminIdString,
+                                                                 WebRequest request) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+            RoleEntity adminRole = referenceData.getRole(RoleConstants.ADMIN);
+
+            //версія береться до запиту заявок, щоб нові дані не віддались зі старим ETag
+            if (dataService.hasRole(adminId, adminRole)
+                    && request.checkNotModified(ResponseFormat.of(request).tag(versionStamps.getAdminETag(adminId)))) {
+                return null;
+            }
+
+            UserEntity admin = dataService.getUserWithRoleOrThrow(adminId, adminRole);
+
+            //ETag уже новий, тому заявки читаються з основної бази, а не з репліки, що відстає
+            return ReadYourWrites.onPrimary(() -> dataService.getRefreshedApplicationsForAdmin(admin));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Відкриває потік Server-Sent Events із заявками, погодженими власником, і рішеннями по сервісах адміністратора.
+     * Після підключення чи перепідключення клієнт має один раз перечитати список заявок
+     * @param adminIdString Ідентифікатор адміністратора
+     * @return Потік подій
+     */
+    @GetMapping(value = "/admin/{admin_id}/application/refreshed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAdminRefreshedApplications(@PathVariable("admin_id") String adminIdString) {
         try{
             Long adminId = dataService.getLongOrThrow(adminIdString);
 
             UserEntity admin = dataService.getUserWithRoleOrThrow(
                     adminId,
-                    roleRepository.findById(RoleConstants.ADMIN).get());
+                    referenceData.getRole(RoleConstants.ADMIN));
 
-            List<ApplicationEntity> allApplications = dataService.getAllApplicationsForAdmin(admin);
-            return dataService.getRefreshedApplicationsForAdmin(allApplications);
+            return inboxService.subscribeAdmin(admin.getId());
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає сторінку заявок від усіх сервісів адміністратора, впорядкованих за датою створення
+     * @param adminIdString Ідентифікатор адміністратора
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/admin/{admin_id}/application/all/service/all/page")
+    public CursorPage<ApplicationEntity> getApplicationsPage(@PathVariable("admin_id") String adminIdString,
+                                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                                             @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity admin = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByAdmin(
+                            admin, RoleConstants.ADMIN, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає сторінку заявок, які очікують на рішення адміна
+     * @param adminIdString Ідентифікатор адміністратора
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/admin/{admin_id}/application/refreshed/page")
+    public CursorPage<ApplicationEntity> getAdminRefreshedApplicationsPage(@PathVariable("admin_id") String adminIdString,
+                                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                                           @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity admin = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByAdminAndStatus(
+                            admin, RoleConstants.ADMIN, ApplicationStatus.WAITING_FOR_ADMIN, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає коротку інформацію про всі заявки від усіх сервісів адміністратора.
+     * Вибираються тільки потрібні для списку колонки, без завантаження сутностей
+     * @param adminIdString Ідентифікатор адміністратора
+     * @return Список заявок
+     */
+    @GetMapping("/admin/{admin_id}/application/all/service/all/summary")
+    public List<ApplicationSummary> getApplicationSummaries(@PathVariable("admin_id") String adminIdString) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity admin = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+
+            return applicationRepository.getSummariesByAdmin(admin, RoleConstants.ADMIN);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає кількість заявок, які очікують на рішення адміна, по його сервісах (для позначок у списках).
+     * Кількість читається з лічильників у пам'яті, без запиту заявок
+     * @param adminIdString Ідентифікатор адміністратора
+     * @return Кількість заявок
+     */
+    @GetMapping("/admin/{admin_id}/application/refreshed/count")
+    public PendingCounts getAdminRefreshedApplicationCount(@PathVariable("admin_id") String adminIdString) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            RoleEntity adminRole = referenceData.getRole(RoleConstants.ADMIN);
+            if (!dataService.hasRole(adminId, adminRole)) {
+                dataService.getUserWithRoleOrThrow(adminId, adminRole);
+            }
+
+            return pendingCounters.getAdminCounts(adminId);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає коротку інформацію про заявки, які очікують на рішення адміна.
+     * Вибираються тільки потрібні для списку колонки, без завантаження сутностей
+     * @param adminIdString Ідентифікатор адміністратора
+     * @return Список заявок
+     */
+    @GetMapping("/admin/{admin_id}/application/refreshed/summary")
+    public List<ApplicationSummary> getAdminRefreshedApplicationSummaries(@PathVariable("admin_id") String adminIdString) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity admin = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+
+            return applicationRepository.getSummariesByAdminAndStatus(
+                    admin, RoleConstants.ADMIN, ApplicationStatus.WAITING_FOR_ADMIN);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Вивантажує всі заявки одного сервісу адміністратора у форматі NDJSON (одна заявка на рядок).
+     * Заявки пишуться у відповідь потоком, не збираючись в пам'яті. Якщо це не сервіс адміністратора, то помилка доступу
+     * @param adminIdString Ідентифікатор адміністратора
+     * @param serviceIdString Ідентифікатор сервісу
+     * @return Потік заявок
+     */
+    @GetMapping("/admin/{admin_id}/application/export/service/{service_id}")
+    public ResponseEntity<StreamingResponseBody> exportApplicationsByService(@PathVariable("admin_id") String adminIdString,
+                                                                             @PathVariable("service_id") String serviceIdString) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+            Long serviceId = dataService.getLongOrThrow(serviceIdString);
+
+            UserEntity admin = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+            ServiceEntity service = dataService.getServiceOrThrow(serviceId);
+            dataService.throwIfServiceNotOfAdmin(service, admin);
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(exportService.exportByService(service));
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -129,44 +359,11 @@ public class ServiceAdminController {
 
             UserEntity adminUser = dataService.getUserWithRoleOrThrow(
                     adminId,
-                    roleRepository.findById(RoleConstants.ADMIN).get());
+                    referenceData.getRole(RoleConstants.ADMIN));
             ApplicationEntity application = dataService.getApplicationOrThrow(applicationId);
             dataService.throwIfServiceNotOfAdmin(application.getService(), adminUser);
 
-            HashMap<String, ApplicationCheckingEntity> checkings =
-                    dataService.checkApplicationReadyForAdminAndGetCheckingsOrThrow(application);
-
-            ApplicationCheckingEntity adminCheckRecord = checkings.get("adminCheckRecord");
-            ApplicationCheckingEntity userCheckRecord = checkings.get("userCheckRecord");
-
-            //Приймаємо заявку
-            //Адмін, що прийняв заявку
-            adminCheckRecord.setUser(adminUser);
-            //Запис факту підтвердження заявки
-            adminCheckRecord.setCheckYesNoNull(true);
-            //Дата прийняття заявки
-            adminCheckRecord.setCheckingDate(new java.sql.Timestamp(new Date().getTime()));
-            //Опціональний коментар
-            if(note != null){
-                adminCheckRecord.setNote(note);
-            }
-            //Зберігаємо запис перевірки
-            applicationCheckingRepository.saveAndFlush(adminCheckRecord);
-
-            //Створюємо запис доступу
-            UserHaveAccessToServiceEntity accessRecord = new UserHaveAccessToServiceEntity();
-            //Вписуємо користувача
-            accessRecord.setUser(application.getApplicant());
-            //Вписуємо сервіс
-            accessRecord.setService(application.getService());
-            //Вписуємо роль
-            accessRecord.setRole(userCheckRecord.getRole());
-            //Вписуємо підрозділ (опціонально)
-            if(application.getDepartment() != null){
-                accessRecord.setDepartment(application.getDepartment());
-            }
-            //Зберігаємо запис доступу
-            accessToServiceRepository.saveAndFlush(accessRecord);
+            workflowService.decideByAdmin(adminUser, application, true, note);
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -190,28 +387,11 @@ public class ServiceAdminController {
 
             UserEntity adminUser = dataService.getUserWithRoleOrThrow(
                     adminId,
-                    roleRepository.findById(RoleConstants.ADMIN).get());
+                    referenceData.getRole(RoleConstants.ADMIN));
             ApplicationEntity application = dataService.getApplicationOrThrow(applicationId);
             dataService.throwIfServiceNotOfAdmin(application.getService(), adminUser);
 
-            HashMap<String, ApplicationCheckingEntity> checkings =
-                    dataService.checkApplicationReadyForAdminAndGetCheckingsOrThrow(application);
-
-            ApplicationCheckingEntity adminCheckRecord = checkings.get("adminCheckRecord");
-
-            //Відхилюємо заявку
-            //Адмін, що прийняв заявку
-            adminCheckRecord.setUser(adminUser);
-            //Запис факту відхилення заявки
-            adminCheckRecord.setCheckYesNoNull(false);
-            //Дата відхилення заявки
-            adminCheckRecord.setCheckingDate(new java.sql.Timestamp(new Date().getTime()));
-            //Опціональний коментар
-            if(note != null){
-                adminCheckRecord.setNote(note);
-            }
-            //Зберігаємо запис перевірки
-            applicationCheckingRepository.saveAndFlush(adminCheckRecord);
+            workflowService.decideByAdmin(adminUser, application, false, note);
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -276,23 +456,151 @@ public class ServiceAdminController {
     }
 
     /**
-     * Повертає всі підрозділи
-     * @return Список підрозділів
+     * Шукає робітників за повним ім'ям, користувачів за логіном і сервіси за назвою.
+     * Кожне слово запиту має бути початком слова назви чи схожим на нього. Пошук виконується в пам'яті, без запитів до бази даних
+     * @param query Запит
+     * @param typeString Що шукати через кому: worker, user, service (опціонально, за замовчуванням все)
+     * @param departmentIdString Тільки робітники підрозділу і їх користувачі (опціонально)
+     * @param positionIdString Тільки робітники на посаді і їх користувачі (опціонально)
+     * @param limitString Найбільша кількість результатів (опціонально)
+     * @return Найкращі результати, від кращого до гіршого
+     */
+    @GetMapping("/admin/search")
+    public List<SearchResult> search(@RequestParam("q") String query,
+                                     @RequestParam(value = "type", required = false) String typeString,
+                                     @RequestParam(value = "department_id", required = false) String departmentIdString,
+                                     @RequestParam(value = "position_id", required = false) String positionIdString,
+                                     @RequestParam(value = "limit", required = false) String limitString) {
+        try {
+            Set<SearchTarget> types = EnumSet.allOf(SearchTarget.class);
+            if (typeString != null) {
+                types.clear();
+                for (String type : typeString.split(",")) {
+                    try {
+                        types.add(SearchTarget.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException e) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Невідомий тип пошуку: " + type);
+                    }
+                }
+            }
+            Long departmentId = departmentIdString == null ? null : dataService.getLongOrThrow(departmentIdString);
+            Long positionId = positionIdString == null ? null : dataService.getLongOrThrow(positionIdString);
+            int limit = dataService.getPageLimitOrThrow(limitString);
+
+            return searchIndex.search(query, types, departmentId, positionId, limit);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає всі підрозділи. Якщо список не змінився з версії в If-None-Match, то відповідь 304 без запиту до бази даних,
+     * інакше вже серіалізований список з кешу
+     * @return Список підрозділів або null
      */
     @GetMapping("/admin/department/all")
-    public List<DepartmentEntity> getAllDepartments(){
+    public ResponseEntity<byte[]> getAllDepartments(WebRequest request){
 
-        return departmentRepository.findAll();
+        String etag = ResponseFormat.of(request).tag(versionStamps.getCatalogETag(VersionStamps.Catalog.DEPARTMENTS));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return catalogCache.getResponse("admin/department/all", etag, request, departmentRepository::findAll);
     }
 
     /**
-     * Повертає всі посади
-     * @return Список посад
+     * Повертає всі посади. Якщо список не змінився з версії в If-None-Match, то відповідь 304 без запиту до бази даних,
+     * інакше вже серіалізований список з кешу
+     * @return Список посад або null
      */
     @GetMapping("/admin/position/all")
-    public List<PositionEntity> getAllPositions(){
+    public ResponseEntity<byte[]> getAllPositions(WebRequest request){
+
+        String etag = ResponseFormat.of(request).tag(versionStamps.getCatalogETag(VersionStamps.Catalog.POSITIONS));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return catalogCache.getResponse("admin/position/all", etag, request, positionRepository::findAll);
+    }
+
+    /**
+     * Приймає кілька заявок одним запитом. Права адміністратора перевіряються один раз, заявки завантажуються одним запитом
+     * і рішення записуються в одній транзакції. Заявки, які не можна прийняти, пропускаються
+     * @param adminIdString Ідентифікатор адміністратора
+     * @param request Ідентифікатори заявок і коментар (опціонально)
+     * @return Результат по кожній заявці
+     */
+    @PostMapping("/admin/{admin_id}/application/bulk/accept")
+    public List<BulkDecisionResult> acceptApplicationsByAdmin(@PathVariable("admin_id") String adminIdString,
+                                                              @RequestBody BulkDecisionRequest request) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity adminUser = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+
+            return workflowService.decideByAdminInBulk(adminUser, request.getApplicationIds(), true, request.getNote());
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Відхиляє кілька заявок одним запитом. Права адміністратора перевіряються один раз, заявки завантажуються одним запитом
+     * і рішення записуються в одній транзакції. Заявки, які не можна відхилити, пропускаються
+     * @param adminIdString Ідентифікатор адміністратора
+     * @param request Ідентифікатори заявок і коментар (опціонально)
+     * @return Результат по кожній заявці
+     */
+    @PostMapping("/admin/{admin_id}/application/bulk/decline")
+    public List<BulkDecisionResult> declineApplicationsByAdmin(@PathVariable("admin_id") String adminIdString,
+                                                               @RequestBody BulkDecisionRequest request) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity adminUser = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
+
+            return workflowService.decideByAdminInBulk(adminUser, request.getApplicationIds(), false, request.getNote());
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Створює заявки в сервіси адміністратора з файлу CSV чи JSON. Рядки з помилками пропускаються,
+     * а їх номери і причини повертаються разом з кількістю створених заявок
+     * @param adminIdString Ідентифікатор адміністратора
+     * @param contentType Тип вмісту: text/csv чи application/json
+     * @param body Вміст файлу
+     * @return Результат імпорту
+     */
+    @PostMapping(value = "/admin/{admin_id}/application/import",
+            consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ApplicationImportReport importApplications(@PathVariable("admin_id") String adminIdString,
+                                                      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                      InputStream body) {
+        try{
+            Long adminId = dataService.getLongOrThrow(adminIdString);
+
+            UserEntity adminUser = dataService.getUserWithRoleOrThrow(
+                    adminId,
+                    referenceData.getRole(RoleConstants.ADMIN));
 
-        return positionRepository.findAll();
+            return importService.importApplications(adminUser, body, contentType);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
     }
 
 }
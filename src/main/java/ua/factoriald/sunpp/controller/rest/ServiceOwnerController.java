@@ -1,18 +1,35 @@
 package ua.factoriald.sunpp.controller.rest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
-import ua.factoriald.sunpp.model.ApplicationCheckingEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
 import ua.factoriald.sunpp.model.ApplicationEntity;
+import ua.factoriald.sunpp.model.RoleEntity;
 import ua.factoriald.sunpp.model.ServiceEntity;
 import ua.factoriald.sunpp.model.UserEntity;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
 import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.dto.ApplicationSummary;
+import ua.factoriald.sunpp.model.dto.BulkDecisionRequest;
+import ua.factoriald.sunpp.model.dto.BulkDecisionResult;
+import ua.factoriald.sunpp.model.dto.CursorPage;
+import ua.factoriald.sunpp.model.dto.PendingCounts;
 import ua.factoriald.sunpp.repository.*;
+import ua.factoriald.sunpp.serialization.ResponseFormat;
+import ua.factoriald.sunpp.services.ApplicationExportService;
+import ua.factoriald.sunpp.services.ApplicationWorkflowService;
 import ua.factoriald.sunpp.services.DataProcessService;
+import ua.factoriald.sunpp.services.PendingApplicationCounters;
+import ua.factoriald.sunpp.services.ReferenceDataRegistry;
+import ua.factoriald.sunpp.services.ReviewerInboxService;
+import ua.factoriald.sunpp.services.VersionStamps;
 
-import java.sql.Timestamp;
-import java.util.Date;
 import java.util.List;
 
 /**
@@ -26,16 +43,24 @@ public class ServiceOwnerController {
     private final DataProcessService dataService;
     private final ServiceRepository serviceRepository;
     private final ApplicationRepository applicationRepository;
-    private final RoleRepository roleRepository;
-    private final ApplicationCheckingRepository checkingRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final ApplicationWorkflowService workflowService;
+    private final ApplicationExportService exportService;
+    private final ReviewerInboxService inboxService;
+    private final VersionStamps versionStamps;
+    private final PendingApplicationCounters pendingCounters;
 
     @Autowired
-    public ServiceOwnerController(DataProcessService dataService, ServiceRepository serviceRepository, ApplicationRepository applicationRepository, RoleRepository roleRepository, ApplicationCheckingRepository checkingRepository) {
+    public ServiceOwnerController(DataProcessService dataService, ServiceRepository serviceRepository, ApplicationRepository applicationRepository, ReferenceDataRegistry referenceData, ApplicationWorkflowService workflowService, ApplicationExportService exportService, ReviewerInboxService inboxService, VersionStamps versionStamps, PendingApplicationCounters pendingCounters) {
         this.dataService = dataService;
         this.serviceRepository = serviceRepository;
         this.applicationRepository = applicationRepository;
-        this.roleRepository = roleRepository;
-        this.checkingRepository = checkingRepository;
+        this.referenceData = referenceData;
+        this.workflowService = workflowService;
+        this.exportService = exportService;
+        this.inboxService = inboxService;
+        this.versionStamps = versionStamps;
+        this.pendingCounters = pendingCounters;
     }
 
     /**
@@ -50,7 +75,7 @@ public class ServiceOwnerController {
 
             UserEntity owner = dataService.getUserWithRoleOrThrow(
                     ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+                    referenceData.getRole(RoleConstants.OWNER));
 
             return applicationRepository.getAllByServiceIn(
                     serviceRepository.getAllByOwnerUser(owner));
@@ -76,7 +101,7 @@ public class ServiceOwnerController {
 
             UserEntity owner = dataService.getUserWithRoleOrThrow(
                     ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+                    referenceData.getRole(RoleConstants.OWNER));
             ServiceEntity service = dataService.getServiceOrThrow(serviceId);
             dataService.throwIfServiceNotOfOwner(service,owner);
 
@@ -90,23 +115,74 @@ public class ServiceOwnerController {
 
     /**
      * Повертає всі заявки від всіх сервісів власника, що потребують уваги власника.
+     * Якщо заявки не змінились з версії в If-None-Match, то відповідь 304 без завантаження власника і заявок
      * @param ownerIdString Ідентифікатор власника
      * @return Список заявок або null
      */
     @GetMapping("/owner/{owner_id}/application/refreshed/service/all")
-    public List<ApplicationEntity> getAllOwnerRefreshedApplications(@PathVariable("owner_id") String ownerIdString) {
+    public List<ApplicationEntity> getAllOwnerRefreshedApplications(@PathVariable("owner_id") String ownerIdString,
+                                                                    WebRequest request) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+            RoleEntity ownerRole = referenceData.getRole(RoleConstants.OWNER);
+
+            //версія береться до запиту заявок, щоб нові дані не віддались зі старим ETag
+            if (dataService.hasRole(ownerId, ownerRole)
+                    && request.checkNotModified(ResponseFormat.of(request).tag(versionStamps.getOwnerETag(ownerId)))) {
+                return null;
+            }
+
+            UserEntity ownerUser = dataService.getUserWithRoleOrThrow(ownerId, ownerRole);
+
+            //ETag уже новий, тому заявки читаються з основної бази, а не з репліки, що відстає
+            return ReadYourWrites.onPrimary(() -> dataService.getRefreshedApplicationsForOwner(ownerUser));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Відкриває потік Server-Sent Events з новими заявками і рішеннями по сервісах власника.
+     * Після підключення чи перепідключення клієнт має один раз перечитати список заявок
+     * @param ownerIdString Ідентифікатор власника
+     * @return Потік подій
+     */
+    @GetMapping(value = "/owner/{owner_id}/application/refreshed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOwnerRefreshedApplications(@PathVariable("owner_id") String ownerIdString) {
         try{
             Long ownerId = dataService.getLongOrThrow(ownerIdString);
 
             UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
                     ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+                    referenceData.getRole(RoleConstants.OWNER));
 
-            List<ApplicationEntity> allOwnerApplications = applicationRepository.getAllByServiceIn(
-                    serviceRepository.getAllByOwnerUser(ownerUser)
-            );//всі заявки, що відносяться до сервісу власника
+            return inboxService.subscribeOwner(ownerUser.getId());
 
-            return dataService.getRefreshedApplicationsForOwner(allOwnerApplications);
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає кількість заявок, що потребують уваги власника, по його сервісах (для позначок у списках).
+     * Кількість читається з лічильників у пам'яті, без запиту заявок
+     * @param ownerIdString Ідентифікатор власника
+     * @return Кількість заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/refreshed/count")
+    public PendingCounts getOwnerRefreshedApplicationCount(@PathVariable("owner_id") String ownerIdString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            RoleEntity ownerRole = referenceData.getRole(RoleConstants.OWNER);
+            if (!dataService.hasRole(ownerId, ownerRole)) {
+                dataService.getUserWithRoleOrThrow(ownerId, ownerRole);
+            }
+
+            return pendingCounters.getOwnerCounts(ownerId);
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -115,27 +191,32 @@ public class ServiceOwnerController {
     }
 
     /**
-     * Повертає всі заявки від одного сервісу власника, що потребують уваги власника. Якщо це не сервіс власника, то помилка доступу
+     * Повертає всі заявки від одного сервісу власника, що потребують уваги власника. Якщо це не сервіс власника, то помилка доступу.
+     * Якщо заявки не змінились з версії в If-None-Match, то відповідь 304 без завантаження власника, сервісу і заявок
      * @param serviceIdString Ідентифікатор сервісу
      * @param ownerIdString Ідентифікатор власника
      * @return Список заявок або null
      */
     @GetMapping("/owner/{owner_id}/application/refreshed/service/{service_id}")
     public List<ApplicationEntity> getAllOwnerRefreshedApplicationsByService(@PathVariable("owner_id") String ownerIdString,
-                                                                             @PathVariable("service_id") String serviceIdString) {
+                                                                             @PathVariable("service_id") String serviceIdString,
+                                                                             WebRequest request) {
         try {
             Long ownerId = dataService.getLongOrThrow(ownerIdString);
             Long serviceId = dataService.getLongOrThrow(serviceIdString);
+            RoleEntity ownerRole = referenceData.getRole(RoleConstants.OWNER);
 
-            UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
-                    ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+            if (dataService.hasRole(ownerId, ownerRole)
+                    && dataService.isOwnerOfService(ownerId, serviceId)
+                    && request.checkNotModified(ResponseFormat.of(request).tag(versionStamps.getServiceETag(serviceId)))) {
+                return null;
+            }
+
+            UserEntity ownerUser = dataService.getUserWithRoleOrThrow(ownerId, ownerRole);
             ServiceEntity service = dataService.getServiceOrThrow(serviceId);
             dataService.throwIfServiceNotOfOwner(service,ownerUser);
 
-            List<ApplicationEntity> allOwnerApplications = applicationRepository.getAllByService(service);
-
-            return dataService.getRefreshedApplicationsForOwner(allOwnerApplications);
+            return ReadYourWrites.onPrimary(() -> dataService.getRefreshedApplicationsForOwner(service));
 
         }  catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -143,6 +224,203 @@ public class ServiceOwnerController {
         }
     }
 
+    /**
+     * Повертає сторінку заявок від всіх сервісів власника, впорядкованих за датою створення
+     * @param ownerIdString Ідентифікатор власника
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/all/service/all/page")
+    public CursorPage<ApplicationEntity> getOwnerApplicationsPage(@PathVariable("owner_id") String ownerIdString,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                                  @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByOwner(owner, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає сторінку заявок від одного сервісу власника. Якщо це не сервіс власника, то помилка доступу
+     * @param ownerIdString Ідентифікатор власника
+     * @param serviceIdString Ідентифікатор сервісу
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/all/service/{service_id}/page")
+    public CursorPage<ApplicationEntity> getOwnerApplicationsByServicePage(@PathVariable("owner_id") String ownerIdString,
+                                                                           @PathVariable("service_id") String serviceIdString,
+                                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                                           @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+            Long serviceId = dataService.getLongOrThrow(serviceIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+            ServiceEntity service = dataService.getServiceOrThrow(serviceId);
+            dataService.throwIfServiceNotOfOwner(service,owner);
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByService(service, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає сторінку заявок від всіх сервісів власника, що потребують уваги власника
+     * @param ownerIdString Ідентифікатор власника
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/refreshed/service/all/page")
+    public CursorPage<ApplicationEntity> getOwnerRefreshedApplicationsPage(@PathVariable("owner_id") String ownerIdString,
+                                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                                           @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByOwnerAndStatus(
+                            owner, ApplicationStatus.WAITING_FOR_OWNER, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає сторінку заявок від одного сервісу власника, що потребують уваги власника.
+     * Якщо це не сервіс власника, то помилка доступу
+     * @param ownerIdString Ідентифікатор власника
+     * @param serviceIdString Ідентифікатор сервісу
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/refreshed/service/{service_id}/page")
+    public CursorPage<ApplicationEntity> getOwnerRefreshedApplicationsByServicePage(@PathVariable("owner_id") String ownerIdString,
+                                                                                    @PathVariable("service_id") String serviceIdString,
+                                                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                    @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+            Long serviceId = dataService.getLongOrThrow(serviceIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+            ServiceEntity service = dataService.getServiceOrThrow(serviceId);
+            dataService.throwIfServiceNotOfOwner(service,owner);
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByServiceAndStatus(
+                            service, ApplicationStatus.WAITING_FOR_OWNER, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Вивантажує всі заявки одного сервісу власника у форматі NDJSON (одна заявка на рядок).
+     * Заявки пишуться у відповідь потоком, не збираючись в пам'яті. Якщо це не сервіс власника, то помилка доступу
+     * @param ownerIdString Ідентифікатор власника
+     * @param serviceIdString Ідентифікатор сервісу
+     * @return Потік заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/export/service/{service_id}")
+    public ResponseEntity<StreamingResponseBody> exportOwnerApplicationsByService(@PathVariable("owner_id") String ownerIdString,
+                                                                                  @PathVariable("service_id") String serviceIdString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+            Long serviceId = dataService.getLongOrThrow(serviceIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+            ServiceEntity service = dataService.getServiceOrThrow(serviceId);
+            dataService.throwIfServiceNotOfOwner(service,owner);
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(exportService.exportByService(service));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає коротку інформацію про всі заявки від всіх сервісів власника.
+     * Вибираються тільки потрібні для списку колонки, без завантаження сутностей
+     * @param ownerIdString Ідентифікатор власника
+     * @return Список заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/all/service/all/summary")
+    public List<ApplicationSummary> getOwnerApplicationSummaries(@PathVariable("owner_id") String ownerIdString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+
+            return applicationRepository.getSummariesByOwner(owner);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає коротку інформацію про заявки від всіх сервісів власника, що потребують уваги власника.
+     * Вибираються тільки потрібні для списку колонки, без завантаження сутностей
+     * @param ownerIdString Ідентифікатор власника
+     * @return Список заявок
+     */
+    @GetMapping("/owner/{owner_id}/application/refreshed/service/all/summary")
+    public List<ApplicationSummary> getOwnerRefreshedApplicationSummaries(@PathVariable("owner_id") String ownerIdString) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            UserEntity owner = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+
+            return applicationRepository.getSummariesByOwnerAndStatus(owner, ApplicationStatus.WAITING_FOR_OWNER);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
     /**
      * Повертає одну заявку від сервісів власника. Якщо такої заявки нема, чи це не сервіс власника, то помилка доступу
      * @param applicationIdString Ідентифікатор заявки
@@ -158,7 +436,7 @@ public class ServiceOwnerController {
 
             UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
                     ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+                    referenceData.getRole(RoleConstants.OWNER));
             ApplicationEntity application = dataService.getApplicationOrThrow(applicationId);
             dataService.throwIfServiceNotOfOwner(application.getService(),ownerUser);
 
@@ -186,26 +464,11 @@ public class ServiceOwnerController {
 
             UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
                     ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+                    referenceData.getRole(RoleConstants.OWNER));
             ApplicationEntity application = dataService.getApplicationOrThrow(applicationId);
             dataService.throwIfServiceNotOfOwner(application.getService(),ownerUser);
 
-            ApplicationCheckingEntity ownerCheckRecord = dataService
-                    .checkApplicationReadyForOwnerAndGetCheckingOrThrow(application);
-
-            //Приймаємо заявку
-            //Власник, що прийняв заявку
-            ownerCheckRecord.setUser(ownerUser);
-            //Запис факту підтвердження заявки
-            ownerCheckRecord.setCheckYesNoNull(true);
-            //Дата прийняття заявки
-            ownerCheckRecord.setCheckingDate(new java.sql.Timestamp(new Date().getTime()));
-            //Опціональний коментар
-            if(note != null){
-                ownerCheckRecord.setNote(note);
-            }
-            //Зберігаємо запис перевірки
-            checkingRepository.saveAndFlush(ownerCheckRecord);
+            workflowService.decideByOwner(ownerUser, application, true, note);
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -229,26 +492,61 @@ public class ServiceOwnerController {
 
             UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
                     ownerId,
-                    roleRepository.findById(RoleConstants.OWNER).get());
+                    referenceData.getRole(RoleConstants.OWNER));
             ApplicationEntity application = dataService.getApplicationOrThrow(applicationId);
             dataService.throwIfServiceNotOfOwner(application.getService(),ownerUser);
 
-            ApplicationCheckingEntity ownerCheckRecord = dataService
-                    .checkApplicationReadyForOwnerAndGetCheckingOrThrow(application);
-
-            //Відхиляємо заявку
-            //Власник, що відхилив заявку
-            ownerCheckRecord.setUser(ownerUser);
-            //Запис факту підтвердження заявки
-            ownerCheckRecord.setCheckYesNoNull(false);
-            //Дата прийняття заявки
-            ownerCheckRecord.setCheckingDate(new Timestamp(new Date().getTime()));
-            //Опціональний коментар
-            if(note != null){
-                ownerCheckRecord.setNote(note);
-            }
-            //Зберігаємо запис перевірки
-            checkingRepository.saveAndFlush(ownerCheckRecord);
+            workflowService.decideByOwner(ownerUser, application, false, note);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Приймає кілька заявок одним запитом. Права власника перевіряються один раз, заявки завантажуються одним запитом
+     * і рішення записуються в одній транзакції. Заявки, які не можна прийняти, пропускаються
+     * @param ownerIdString Ідентифікатор власника
+     * @param request Ідентифікатори заявок і коментар (опціонально)
+     * @return Результат по кожній заявці
+     */
+    @PostMapping("/owner/{owner_id}/application/bulk/accept")
+    public List<BulkDecisionResult> acceptApplicationsByOwner(@PathVariable("owner_id") String ownerIdString,
+                                                              @RequestBody BulkDecisionRequest request) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+
+            return workflowService.decideByOwnerInBulk(ownerUser, request.getApplicationIds(), true, request.getNote());
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Відхиляє кілька заявок одним запитом. Права власника перевіряються один раз, заявки завантажуються одним запитом
+     * і рішення записуються в одній транзакції. Заявки, які не можна відхилити, пропускаються
+     * @param ownerIdString Ідентифікатор власника
+     * @param request Ідентифікатори заявок і коментар (опціонально)
+     * @return Результат по кожній заявці
+     */
+    @PostMapping("/owner/{owner_id}/application/bulk/decline")
+    public List<BulkDecisionResult> declineApplicationsByOwner(@PathVariable("owner_id") String ownerIdString,
+                                                               @RequestBody BulkDecisionRequest request) {
+        try{
+            Long ownerId = dataService.getLongOrThrow(ownerIdString);
+
+            UserEntity ownerUser = dataService.getUserWithRoleOrThrow(
+                    ownerId,
+                    referenceData.getRole(RoleConstants.OWNER));
+
+            return workflowService.decideByOwnerInBulk(ownerUser, request.getApplicationIds(), false, request.getNote());
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -2,20 +2,22 @@ package ua.factoriald.sunpp.controller.rest;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import ua.factoriald.sunpp.model.*;
-import ua.factoriald.sunpp.model.constants.CheckTypeConstants;
-import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.dto.ApplicationSummary;
+import ua.factoriald.sunpp.model.dto.CursorPage;
 import ua.factoriald.sunpp.repository.ApplicationRepository;
-import ua.factoriald.sunpp.repository.CheckTypeRepository;
-import ua.factoriald.sunpp.repository.RoleRepository;
 import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.serialization.ResponseFormat;
+import ua.factoriald.sunpp.services.ApplicationWorkflowService;
+import ua.factoriald.sunpp.services.CatalogResponseCache;
 import ua.factoriald.sunpp.services.DataProcessService;
+import ua.factoriald.sunpp.services.ReferenceDataRegistry;
+import ua.factoriald.sunpp.services.VersionStamps;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
 import java.util.List;
 
 /**
@@ -29,16 +31,20 @@ public class ServiceUserController {
     private final DataProcessService dataService;
     private final ApplicationRepository applicationRepository;
     private final ServiceRepository serviceRepository;
-    private final CheckTypeRepository checkTypeRepository;
-    private final RoleRepository roleRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final ApplicationWorkflowService workflowService;
+    private final VersionStamps versionStamps;
+    private final CatalogResponseCache catalogCache;
 
     @Autowired
-    public ServiceUserController(DataProcessService dataService, ApplicationRepository applicationRepository, ServiceRepository serviceRepository, CheckTypeRepository checkTypeRepository, RoleRepository roleRepository) {
+    public ServiceUserController(DataProcessService dataService, ApplicationRepository applicationRepository, ServiceRepository serviceRepository, ReferenceDataRegistry referenceData, ApplicationWorkflowService workflowService, VersionStamps versionStamps, CatalogResponseCache catalogCache) {
         this.dataService = dataService;
         this.applicationRepository = applicationRepository;
         this.serviceRepository = serviceRepository;
-        this.checkTypeRepository = checkTypeRepository;
-        this.roleRepository = roleRepository;
+        this.referenceData = referenceData;
+        this.workflowService = workflowService;
+        this.versionStamps = versionStamps;
+        this.catalogCache = catalogCache;
     }
 
     /**
@@ -66,70 +72,12 @@ public class ServiceUserController {
             RoleEntity role = dataService.getRoleOrThrow(roleId);
             DepartmentEntity department = dataService.getDepartmentOrThrow(departmentId);
 
-            if(!service.getAvaliableRoles().contains(role)){
+            if(!referenceData.isRoleAvailableForService(service.getId(), role.getId())){
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Сервіс не має такої ролі");
             }
 
-            //Створюємо заявку
-            ApplicationEntity application = new ApplicationEntity();
-            //Вписуємо користувача
-            application.setApplicant(user);
-            //Вписуємо дату створення
-            application.setCreationDate(new java.sql.Timestamp(new Date().getTime()));
-            //Вписуємо сервіс
-            application.setService(service);
-            //Вписуємо підрозділ (опціонально)
-            if(department != null){
-                application.setDepartment(department);
-            }
-
-            //Створюємо запис перевірки користувача
-            ApplicationCheckingEntity userChecking = new ApplicationCheckingEntity();
-            //Вписуємо тип запису
-            userChecking.setCheckType(checkTypeRepository.findById(CheckTypeConstants.USER_APPLICATION_RECORD).get());
-            //Вписуємо заявку
-            userChecking.setApplication(application);
-            //Вписуємо заявника
-            userChecking.setUser(user);
-            //Вписуємо роль заявника
-            userChecking.setRole(role);
-            //Вписуємо факт того, що він бачив цю заявку
-            userChecking.setCheckYesNoNull(true);
-            //Вписуємо дату створення
-            userChecking.setCheckingDate(application.getCreationDate());
-            //Вписуємо коментар (опціонально)
-            if(note != null){
-                userChecking.setNote(note);
-            }
-
-            //Створюємо запис перевірки власника
-            ApplicationCheckingEntity ownerChecking = new ApplicationCheckingEntity();
-            //Вписуємо тип запису
-            ownerChecking.setCheckType(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get());
-            //Вписуємо заявку
-            ownerChecking.setApplication(application);
-            //Вписуємо роль власника
-            ownerChecking.setRole(roleRepository.findById(RoleConstants.OWNER).get());
-            //Вписуємо факт того, що власник не бачив цю заявку
-            ownerChecking.setCheckYesNoNull(null);
-
-            //Створюємо запис перевірки адміна
-            ApplicationCheckingEntity adminChecking = new ApplicationCheckingEntity();
-            //Вписуємо тип запису
-            adminChecking.setCheckType(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get());
-            //Вписуємо заявку
-            adminChecking.setApplication(application);
-            //Вписуємо роль власника
-            adminChecking.setRole(roleRepository.findById(RoleConstants.ADMIN).get());
-            //Вписуємо факт того, що aдмін не бачив цю заявку
-            adminChecking.setCheckYesNoNull(null);
-
-            //додаємо записи до заявки
-            application.setCheckings(new ArrayList<>(Arrays.asList(
-                    userChecking,ownerChecking,adminChecking)));
-
             //зберігаємо заявку і повертаємо
-            return applicationRepository.saveAndFlush(application);
+            return workflowService.createApplication(user, service, role, department, note);
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -138,26 +86,36 @@ public class ServiceUserController {
     }
 
     /**
-     * Повертає всі сервіси
-     * @return Список сервісів
+     * Повертає всі сервіси. Якщо список не змінився з версії в If-None-Match, то відповідь 304 без запиту до бази даних,
+     * інакше вже серіалізований список з кешу
+     * @return Список сервісів або null
      */
     @GetMapping("/service/all")
-    public List<ServiceEntity> getAllServices(){
+    public ResponseEntity<byte[]> getAllServices(WebRequest request){
 
-        return serviceRepository.findAll();
+        String etag = ResponseFormat.of(request).tag(versionStamps.getCatalogETag(VersionStamps.Catalog.SERVICES));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return catalogCache.getResponse("service/all", etag, request, serviceRepository::findAll);
     }
 
     /**
-     * Повертає один сервіс і інформацію про нього
+     * Повертає один сервіс і інформацію про нього. Сервіси змінюються рідко, тому відповідь береться з кешу серіалізованих відповідей
      * @param serviceIdString Ідентифікатор сервісу
      * @return Сервіс або null
      */
     @GetMapping("/service/{service_id}")
-    public ServiceEntity getService(@PathVariable("service_id") String serviceIdString) {
+    public ResponseEntity<byte[]> getService(@PathVariable("service_id") String serviceIdString, WebRequest request) {
         try {
             Long serviceId = dataService.getLongOrThrow(serviceIdString);
 
-            return dataService.getServiceOrThrow(serviceId);
+            String etag = ResponseFormat.of(request).tag(versionStamps.getCatalogETag(VersionStamps.Catalog.SERVICES));
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return catalogCache.getResponse("service/" + serviceId, etag, request,
+                    () -> dataService.getServiceOrThrow(serviceId));
 
         } catch (ResponseStatusException e) {
             e.printStackTrace();
@@ -185,4 +143,50 @@ public class ServiceUserController {
         }
     }
 
+    /**
+     * Повертає сторінку заявок одного користувача, впорядкованих за датою створення
+     * @param userIdString Ідентифікатор користувача
+     * @param cursor Курсор наступної сторінки з попередньої відповіді (опціонально)
+     * @param limitString Розмір сторінки (опціонально)
+     * @return Сторінка заявок
+     */
+    @GetMapping("/user/{user_id}/application/all/page")
+    public CursorPage<ApplicationEntity> getWorkerApplicationsPage(@PathVariable("user_id") String userIdString,
+                                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                                   @RequestParam(value = "limit", required = false) String limitString) {
+        try {
+            Long userId = dataService.getLongOrThrow(userIdString);
+
+            UserEntity user = dataService.getUserOrThrow(userId);
+
+            return dataService.getApplicationPageOrThrow(cursor, limitString,
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByApplicant(user, afterDate, afterId, pageable));
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Повертає коротку інформацію про усі заявки одного користувача.
+     * Вибираються тільки потрібні для списку колонки, без завантаження сутностей
+     * @param userIdString Ідентифікатор користувача
+     * @return Список заявок
+     */
+    @GetMapping("/user/{user_id}/application/all/summary")
+    public List<ApplicationSummary> getWorkerApplicationSummaries(@PathVariable("user_id") String userIdString) {
+        try {
+            Long userId = dataService.getLongOrThrow(userIdString);
+
+            UserEntity user = dataService.getUserOrThrow(userId);
+
+            return applicationRepository.getSummariesByApplicant(user);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
 }
@@ -0,0 +1,41 @@
+package ua.factoriald.sunpp.controller.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.model.dto.WorkflowEventBatch;
+import ua.factoriald.sunpp.services.WorkflowEventFeed;
+
+/**
+ * REST контроллер для читання переходів заявок зовнішніми системами
+ *
+ */
+@RestController
+@CrossOrigin(origins = "http://localhost:4200")
+public class WorkflowEventController {
+
+    private final WorkflowEventFeed eventFeed;
+
+    @Autowired
+    public WorkflowEventController(WorkflowEventFeed eventFeed) {
+        this.eventFeed = eventFeed;
+    }
+
+    /**
+     * Повертає переходи заявок (створення, рішення власника і адміністратора) після курсора, в порядку позицій
+     * @param after Позиція останньої прочитаної події, lastPosition попередньої відповіді (опціонально)
+     * @param limitString Найбільша кількість подій (опціонально)
+     * @return Події і курсор для наступного читання
+     */
+    @GetMapping("/workflow/event/all")
+    public WorkflowEventBatch getWorkflowEvents(@RequestParam(value = "after", required = false) String after,
+                                                @RequestParam(value = "limit", required = false) String limitString) {
+        try{
+            return eventFeed.getEventsOrThrow(after, limitString);
+
+        } catch (ResponseStatusException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ua.factoriald.sunpp.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Читання з реплік (sunpp.datasource.replica.urls - адреси реплік через кому).
+ *
+ * Основна база налаштовується як і раніше через spring.datasource.*, її пул лишається бином dataSource.
+ * Застосунок працює через {@link ReadReplicaRoutingDataSource}: транзакції тільки для читання
+ * (зокрема всі читаючі методи репозиторіїв Spring Data) йдуть на репліки, решта на основну базу.
+ *
+ * Hibernate за замовчуванням тримає з'єднання до кінця сесії, а сесія відкрита на весь запит (open-in-view),
+ * тож запис після читання в тому ж запиті пішов би на репліку. Тому з'єднання повертається після кожної транзакції.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sunpp.datasource.replica.urls")
+public class ReadReplicaConfiguration {
+
+    /**
+     * Пул основної бази, як його створює Spring Boot
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(
+            @Qualifier("dataSource") DataSource primary,
+            DataSourceProperties properties,
+            @Value("${sunpp.datasource.replica.urls}") String[] urls,
+            @Value("${sunpp.datasource.replica.username:}") String username,
+            @Value("${sunpp.datasource.replica.password:}") String password,
+            @Value("${sunpp.datasource.replica.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int maximumPoolSize,
+            @Value("${sunpp.datasource.replica.connection-timeout-millis:2000}") long connectionTimeoutMillis,
+            @Value("${sunpp.datasource.replica.retry-millis:10000}") long retryMillis) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls[i].trim())
+                    .username(StringUtils.hasText(username) ? username : properties.determineUsername())
+                    .password(StringUtils.hasText(username) ? password : properties.determinePassword())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(connectionTimeoutMillis);
+            replica.setReadOnly(true);
+            //недоступна при старті репліка не заважає запуску, з'єднання просто не видаються
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReadReplicaRoutingDataSource(primary, replicas, retryMillis);
+    }
+
+    /**
+     * Джерело даних для JPA і решти застосунку
+     */
+    @Bean
+    @Primary
+    public DataSource routingDataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${sunpp.datasource.replica.sticky-millis:5000}") long stickyMillis) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyMillis));
+    }
+}
@@ -0,0 +1,136 @@
+package ua.factoriald.sunpp.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Джерело даних, що відправляє транзакції тільки для читання на репліки, а решту на основну базу.
+ *
+ * Рішення приймається при отриманні з'єднання за прапорцем read-only поточної транзакції,
+ * тому джерело треба обгортати в {@link LazyConnectionDataSourceProxy}: менеджер транзакцій бере з'єднання
+ * на початку транзакції, ще до того, як прапорець встановлено.
+ *
+ * Репліки вибираються по колу. Якщо репліка не видала з'єднання, вона пропускається протягом retryMillis,
+ * а читання йде на наступну репліку чи на основну базу.
+ * Після запису в запиті з відкритим {@link ReadYourWrites} читання клієнта йдуть на основну базу.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retryMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary Основна база
+     * @param replicas Репліки. Закриваються разом з цим джерелом, якщо реалізують {@link Closeable}
+     * @param retryMillis Скільки мілісекунд не звертатися до репліки після помилки
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, long retryMillis) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica(i, replicas.get(i)));
+        }
+        this.retryMillis = retryMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!ReadYourWrites.isPrimaryRequired()) {
+                Connection connection = getReplicaConnection(username, password);
+                if (connection != null) {
+                    return connection;
+                }
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWrites.markWritten();
+        }
+        return connect(primary, username, password);
+    }
+
+    /**
+     * @return Кількість реплік, до яких зараз можна звертатися
+     */
+    public int getAvailableReplicas() {
+        long now = System.currentTimeMillis();
+        int available = 0;
+        for (Replica replica : replicas) {
+            if (replica.unavailableUntil <= now) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * @return З'єднання з першою доступною реплікою
+     * @null якщо жодна репліка не видала з'єднання
+     */
+    private Connection getReplicaConnection(String username, String password) {
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(count, 1));
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            long now = System.currentTimeMillis();
+            if (replica.unavailableUntil > now) {
+                continue;
+            }
+            try {
+                return connect(replica.dataSource, username, password);
+            } catch (SQLException | RuntimeException e) {
+                replica.unavailableUntil = now + retryMillis;
+                log.warn("Репліка {} недоступна, читання йдуть на інші бази {} мс", replica.index, retryMillis, e);
+            }
+        }
+        return null;
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final int index;
+        private final DataSource dataSource;
+
+        /**
+         * До якого моменту (мс від епохи) репліку пропускати
+         */
+        private volatile long unavailableUntil;
+
+        private Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
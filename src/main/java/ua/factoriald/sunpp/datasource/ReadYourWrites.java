@@ -0,0 +1,126 @@
+package ua.factoriald.sunpp.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Стан "читати свої записи" для поточного запиту.
+ *
+ * Поки стан відкритий, {@link ReadReplicaRoutingDataSource} відправляє читання на основну базу,
+ * якщо клієнт нещодавно щось записав (до моменту stickyUntil) або якщо запис уже був у цьому ж запиті.
+ * Інакше клієнт міг би не побачити своє рішення, бо репліка відстає від основної бази.
+ *
+ * Незалежно від запиту читання йдуть на основну базу всередині {@link #forcePrimary()}. Так читаються дані,
+ * які кешуються чи віддаються з ETag з {@link ua.factoriald.sunpp.services.VersionStamps}: версія змінюється
+ * одразу після підтвердження на основній базі, і дані з репліки, що відстає, залишились би в кеші під новою версією.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    /**
+     * Глибина вкладених {@link #forcePrimary()} поточного потоку
+     * @null поза ними
+     */
+    private static final ThreadLocal<Integer> FORCED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Відкриває стан для запиту в поточному потоці
+     * @param stickyUntilMillis До якого моменту (мс від епохи) читати з основної бази, 0 якщо клієнт нічого не записував
+     * @param onFirstWrite Викликається один раз при першому записі в цьому запиті
+     */
+    public static void begin(long stickyUntilMillis, Runnable onFirstWrite) {
+        STATE.set(new State(stickyUntilMillis, onFirstWrite));
+    }
+
+    /**
+     * Закриває стан поточного потоку
+     */
+    public static void end() {
+        STATE.remove();
+    }
+
+    /**
+     * Відкриває область, у якій читання поточного потоку йдуть на основну базу.
+     * Діє на з'єднання, отримані всередині області, тому транзакція тільки для читання,
+     * що вже взяла з'єднання з репліки, його не змінює. Області можуть бути вкладеними
+     * @return Область, яку треба закрити
+     */
+    public static PrimaryScope forcePrimary() {
+        Integer depth = FORCED.get();
+        FORCED.set(depth == null ? 1 : depth + 1);
+        return new PrimaryScope();
+    }
+
+    /**
+     * Виконує читання на основній базі
+     * @param reader Читання
+     * @return Результат читання
+     */
+    public static <T> T onPrimary(Supplier<T> reader) {
+        try (PrimaryScope ignored = forcePrimary()) {
+            return reader.get();
+        }
+    }
+
+    /**
+     * @return true, якщо читання поточного запиту мають іти на основну базу
+     */
+    public static boolean isPrimaryRequired() {
+        if (FORCED.get() != null) {
+            return true;
+        }
+        State state = STATE.get();
+        return state != null && (state.written || System.currentTimeMillis() < state.stickyUntilMillis);
+    }
+
+    /**
+     * Відмічає запис у поточному запиті
+     */
+    static void markWritten() {
+        State state = STATE.get();
+        if (state != null && !state.written) {
+            state.written = true;
+            state.onFirstWrite.run();
+        }
+    }
+
+    private static final class State {
+
+        private final long stickyUntilMillis;
+        private final Runnable onFirstWrite;
+        private boolean written;
+
+        private State(long stickyUntilMillis, Runnable onFirstWrite) {
+            this.stickyUntilMillis = stickyUntilMillis;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+
+    /**
+     * Область читання з основної бази
+     */
+    public static final class PrimaryScope implements AutoCloseable {
+
+        private boolean closed;
+
+        private PrimaryScope() {
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Integer depth = FORCED.get();
+            if (depth == null || depth <= 1) {
+                FORCED.remove();
+            } else {
+                FORCED.set(depth - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ua.factoriald.sunpp.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Відкриває {@link ReadYourWrites} на час запиту.
+ *
+ * Після першого запису в запиті клієнт отримує cookie з моментом, до якого його читання йдуть на основну базу.
+ * Cookie ставиться одразу при записі, бо після виконання запиту відповідь уже відправлена.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "SUNPP_PRIMARY_UNTIL";
+
+    private final long stickyMillis;
+
+    /**
+     * @param stickyMillis Скільки мілісекунд після запису читати з основної бази
+     */
+    public ReadYourWritesFilter(long stickyMillis) {
+        this.stickyMillis = stickyMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadYourWrites.begin(getStickyUntil(request), () -> {
+            if (!response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + stickyMillis));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, (stickyMillis + 999) / 1000));
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+
+    private static long getStickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
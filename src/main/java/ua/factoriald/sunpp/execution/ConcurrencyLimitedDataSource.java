@@ -0,0 +1,119 @@
+package ua.factoriald.sunpp.execution;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Джерело даних, що обмежує кількість одночасно відкритих з'єднань.
+ *
+ * Перед отриманням з'єднання береться дозвіл семафора, він повертається при закритті з'єднання.
+ * Кількість дозволів дорівнює розміру пулу з'єднань, тому потоки чекають у черзі семафора в порядку приходу,
+ * а не в пулі. Якщо дозвіл не отримано за час очікування, кидається {@link SQLTransientConnectionException},
+ * як і при вичерпанні пулу.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long timeoutMillis;
+
+    /**
+     * @param targetDataSource Джерело даних з пулом з'єднань
+     * @param maxConcurrency Кількість дозволів
+     * @param timeoutMillis Час очікування дозволу в мілісекундах
+     */
+    public ConcurrencyLimitedDataSource(DataSource targetDataSource, int maxConcurrency, long timeoutMillis) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Кількість потоків, що зараз тримають з'єднання
+     */
+    public int getActiveConnections() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * @return Приблизна кількість потоків, що чекають на дозвіл
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Не вдалося отримати з'єднання за " + timeoutMillis
+                        + " мс: зайнято " + maxConcurrency + " з'єднань, чекає " + permits.getQueueLength());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Очікування з'єднання перервано", e);
+        }
+    }
+
+    /**
+     * Обгортає з'єднання так, щоб перше закриття повертало дозвіл
+     */
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,99 @@
+package ua.factoriald.sunpp.execution;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Режим виконання запитів на віртуальних потоках (sunpp.execution.mode=virtual).
+ *
+ * Tomcat виконує кожен запит у новому віртуальному потоці замість пулу з 200 платформних потоків,
+ * тому запити, що чекають на відповідь бази, не займають потоки ОС. Виклики репозиторіїв виконуються
+ * в потоці запиту, тобто теж у віртуальному.
+ *
+ * Кількість одночасних запитів до бази обмежена семафором з кількістю дозволів, рівною розміру пулу з'єднань
+ * (див. {@link ConcurrencyLimitedDataSource}). Драйвер Oracle блокується всередині synchronized
+ * і на час запиту закріплює віртуальний потік за потоком-носієм, тож семафор заодно обмежує кількість
+ * закріплених носіїв.
+ *
+ * Якщо JVM не підтримує віртуальні потоки, Tomcat лишається на платформних потоках, а обмеження бази діє.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sunpp.execution.mode", havingValue = "virtual")
+public class VirtualThreadExecutionConfiguration implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutionConfiguration.class);
+
+    private volatile ExecutorService requestExecutor;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (!VirtualThreads.isSupported()) {
+                log.warn("Віртуальні потоки недоступні на Java {}, запити виконуються в пулі Tomcat",
+                        System.getProperty("java.version"));
+                return;
+            }
+            requestExecutor = VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+            protocolHandler.setExecutor(requestExecutor);
+            log.info("Запити виконуються на віртуальних потоках");
+        };
+    }
+
+    /**
+     * Обгортає семафором пул основної бази. Пули реплік (див. ReadReplicaConfiguration) не обгортаються
+     */
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+            @Value("${sunpp.execution.db-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${sunpp.execution.db-timeout-millis:${spring.datasource.hikari.connection-timeout:30000}}") long timeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource
+                        && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    return new ConcurrencyLimitedDataSource((DataSource) bean, maxConcurrency, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceConcurrencyMetrics(@Qualifier("dataSource") DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitedDataSource) {
+                ConcurrencyLimitedDataSource limited = (ConcurrencyLimitedDataSource) dataSource;
+                Gauge.builder("sunpp.db.concurrency.active", limited, ConcurrencyLimitedDataSource::getActiveConnections)
+                        .description("З'єднання, видані під дозвіл семафора")
+                        .register(registry);
+                Gauge.builder("sunpp.db.concurrency.waiting", limited, ConcurrencyLimitedDataSource::getWaitingThreads)
+                        .description("Потоки, що чекають на дозвіл семафора")
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Tomcat не зупиняє зовнішній виконавець, тому він зупиняється разом з контекстом
+     */
+    @Override
+    public void destroy() {
+        ExecutorService executor = requestExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
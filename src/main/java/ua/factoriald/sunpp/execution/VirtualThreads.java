@@ -0,0 +1,67 @@
+package ua.factoriald.sunpp.execution;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Створення виконавця на віртуальних потоках.
+ *
+ * Проект компілюється під Java 8, тому API віртуальних потоків (Java 21) викликається через рефлексію.
+ * Методи беруться з публічних типів {@link Thread}, Thread.Builder і {@link Executors},
+ * бо реалізації будівників лежать у закритому модулі JDK.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Перевіряє, чи можна створювати віртуальні потоки на цій JVM
+     * @return false на Java до 21 чи на 19-20 без --enable-preview
+     */
+    public static boolean isSupported() {
+        try {
+            newFactory("sunpp-probe-");
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Створює виконавця, що запускає кожне завдання в новому віртуальному потоці
+     * @param namePrefix Префікс імен потоків, до нього додається порядковий номер
+     * @return Виконавець, його треба зупинити через {@link ExecutorService#shutdown()}
+     * @throws UnsupportedOperationException якщо JVM не підтримує віртуальні потоки
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = newFactory(namePrefix);
+        try {
+            Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported(e);
+        }
+    }
+
+    private static ThreadFactory newFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported(e);
+        }
+    }
+
+    private static UnsupportedOperationException unsupported(ReflectiveOperationException e) {
+        //на Java 19-20 без --enable-preview метод є, але кидає UnsupportedOperationException
+        Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+        return new UnsupportedOperationException("Віртуальні потоки недоступні на Java "
+                + System.getProperty("java.version"), cause);
+    }
+}
@@ -0,0 +1,45 @@
+package ua.factoriald.sunpp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Таймери методів REST-контролерів.
+ *
+ * Таймер покриває тільки виконання методу контролера (перевірка прав, запити, обробка), без серіалізації відповіді.
+ * Повний час запиту є в стандартному таймері http.server.requests, тож різниця між ними - це серіалізація.
+ */
+@Aspect
+@Component
+public class ControllerTimingAspect {
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ControllerTimingAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(ua.factoriald.sunpp.controller.rest..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("sunpp.controller.method")
+                    .tag("controller", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+}
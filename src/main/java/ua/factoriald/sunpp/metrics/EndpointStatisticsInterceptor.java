@@ -0,0 +1,66 @@
+package ua.factoriald.sunpp.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Записує лічильники Hibernate кожного запиту з тегом endpoint (контролер і метод).
+ *
+ * Рахування закінчується після запису відповіді, тому в лічильники входять і ліниві завантаження
+ * під час серіалізації. Для асинхронних запитів (потоки подій, вивантаження) лічильники не записуються,
+ * бо відповідь пишеться вже в іншому потоці.
+ */
+@Component
+public class EndpointStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+    private final HibernateRequestStatistics statistics;
+    private final MeterRegistry registry;
+
+    @Autowired
+    public EndpointStatisticsInterceptor(HibernateRequestStatistics statistics, MeterRegistry registry) {
+        this.statistics = statistics;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            statistics.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        statistics.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        HibernateRequestStatistics.Counts counts = statistics.end();
+        if (counts == null || !(handler instanceof HandlerMethod)) {
+            return;
+        }
+        HandlerMethod method = (HandlerMethod) handler;
+        String endpoint = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+
+        record("sunpp.hibernate.statements", endpoint, counts.getStatements());
+        record("sunpp.hibernate.entity.loads", endpoint, counts.getEntityLoads());
+        record("sunpp.hibernate.collection.fetches", endpoint, counts.getCollectionFetches());
+        record("sunpp.hibernate.flushes", endpoint, counts.getFlushes());
+    }
+
+    private void record(String name, String endpoint, long amount) {
+        DistributionSummary.builder(name)
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .record(amount);
+    }
+}
@@ -0,0 +1,112 @@
+package ua.factoriald.sunpp.metrics;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Лічильники Hibernate для одного запиту: SQL-запити, завантажені сутності, догружені колекції і скидання сесії.
+ *
+ * Глобальна статистика Hibernate спільна для всіх потоків, тому з неї не видно, скільки запитів зробив саме
+ * цей HTTP-запит. Тут лічильники прив'язані до потоку між {@link #begin()} і {@link #end()},
+ * а рахуються вони інспектором SQL і слухачами подій Hibernate (див. {@link MetricsConfiguration}).
+ * Поза запитом лічильники не ведуться.
+ */
+@Component
+public class HibernateRequestStatistics implements StatementInspector, PostLoadEventListener,
+        InitializeCollectionEventListener, FlushEventListener, AutoFlushEventListener {
+
+    private final ThreadLocal<Counts> current = new ThreadLocal<>();
+
+    /**
+     * Починає рахувати для поточного потоку
+     */
+    public void begin() {
+        current.set(new Counts());
+    }
+
+    /**
+     * Закінчує рахувати для поточного потоку
+     * @return Лічильники або @null, якщо рахування не починалось
+     */
+    public Counts end() {
+        Counts counts = current.get();
+        current.remove();
+        return counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+    }
+
+    /**
+     * Викликається перед стандартним слухачем, тому рахуються тільки колекції, які ще треба завантажити
+     */
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        Counts counts = current.get();
+        if (counts != null && !event.getCollection().wasInitialized()) {
+            counts.collectionFetches++;
+        }
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) throws HibernateException {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.flushes++;
+        }
+    }
+
+    /**
+     * Викликається після стандартного слухача, тому рахуються тільки автоматичні скидання, які справді відбулись
+     */
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) throws HibernateException {
+        Counts counts = current.get();
+        if (counts != null && event.isFlushRequired()) {
+            counts.flushes++;
+        }
+    }
+
+    /**
+     * Лічильники одного запиту
+     */
+    public static final class Counts {
+
+        private long statements;
+        private long entityLoads;
+        private long collectionFetches;
+        private long flushes;
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+
+        public long getCollectionFetches() {
+            return collectionFetches;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ua.factoriald.sunpp.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Підключає лічильники Hibernate до сесій і запитів
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final EndpointStatisticsInterceptor statisticsInterceptor;
+
+    @Autowired
+    public MetricsConfiguration(EndpointStatisticsInterceptor statisticsInterceptor) {
+        this.statisticsInterceptor = statisticsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statisticsInterceptor);
+    }
+
+    /**
+     * Інспектор SQL рахує кожен підготовлений запит
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer(HibernateRequestStatistics statistics) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statistics);
+    }
+
+    /**
+     * Слухачі подій додаються вже до створеної фабрики сесій
+     */
+    @Bean
+    public SmartInitializingSingleton hibernateStatisticsListeners(EntityManagerFactory entityManagerFactory,
+                                                                    HibernateRequestStatistics statistics) {
+        return () -> {
+            EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry().getService(EventListenerRegistry.class);
+            listeners.appendListeners(EventType.POST_LOAD, statistics);
+            listeners.prependListeners(EventType.INIT_COLLECTION, statistics);
+            listeners.appendListeners(EventType.FLUSH, statistics);
+            listeners.appendListeners(EventType.AUTO_FLUSH, statistics);
+        };
+    }
+}
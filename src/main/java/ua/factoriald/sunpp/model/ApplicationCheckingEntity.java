@@ -5,7 +5,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 import java.sql.Timestamp;
@@ -20,8 +20,9 @@ import java.sql.Timestamp;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners(VersionStampEntityListener.class)
 @Table(name = "APPLICATION_CHECKING", schema = "SERVICEADMIN2")
-public class ApplicationCheckingEntity {
+public class ApplicationCheckingEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор перевірки
@@ -91,19 +92,4 @@ public class ApplicationCheckingEntity {
     @OneToOne
     @JoinColumn(name = "USER_ID")
     private UserEntity user;
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        ApplicationCheckingEntity that = (ApplicationCheckingEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 907465219;
-    }
 }
@@ -4,7 +4,8 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 import java.sql.Timestamp;
@@ -21,8 +22,24 @@ import java.util.List;
 @RequiredArgsConstructor
 
 @Entity
-@Table(name = "APPLICATIONS", schema = "SERVICEADMIN2")
-public class ApplicationEntity {
+@EntityListeners(VersionStampEntityListener.class)
+@NamedEntityGraph(name = ApplicationEntity.LIST_GRAPH, attributeNodes = {
+        @NamedAttributeNode("applicant"),
+        @NamedAttributeNode("service"),
+        @NamedAttributeNode("department")
+})
+@Table(name = "APPLICATIONS", schema = "SERVICEADMIN2", indexes = {
+        @Index(name = "APPLICATIONS_SERVICE_STATUS_IDX", columnList = "SERVICE_FOR_ACCESS_ID, STATUS"),
+        @Index(name = "APPLICATIONS_SERVICE_DATE_IDX", columnList = "SERVICE_FOR_ACCESS_ID, CREATION_DATE, APPLICATION_ID"),
+        @Index(name = "APPLICATIONS_APPLICANT_DATE_IDX", columnList = "APPLICANT_ID, CREATION_DATE, APPLICATION_ID")
+})
+public class ApplicationEntity extends IdentifiedEntity {
+
+    /**
+     * План вибору заявок для списків: заявляч, сервіс і підрозділ вибираються тим самим запитом.
+     * Перевірки заявок догружаються пакетами (див. hibernate.default_batch_fetch_size)
+     */
+    public static final String LIST_GRAPH = "ApplicationEntity.list";
 
     /**
      * Ідентифікатор заявки
@@ -61,6 +78,22 @@ public class ApplicationEntity {
     @Column(name = "CREATION_DATE", nullable = false)
     private Timestamp creationDate;
 
+    /**
+     * Етап розгляду заявки
+     * Дублює стан записів перевірок, щоб вхідні заявки вибирались по індексу, а не перебором перевірок.
+     * Змінюється в тій самій транзакції, що і записи перевірок
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", length = 32)
+    private ApplicationStatus status;
+
+    /**
+     * Дата переходу заявки на поточний етап
+     */
+    @Basic
+    @Column(name = "STATUS_DATE")
+    private Timestamp statusDate;
+
     /**
      * Список перевірок для цієї заявки
      */
@@ -68,19 +101,4 @@ public class ApplicationEntity {
     @JoinColumn(name="APPLICATION_ID")
     @ToString.Exclude
     private List<ApplicationCheckingEntity> checkings = new ArrayList<>();
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        ApplicationEntity that = (ApplicationEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 1072691046;
-    }
 }
@@ -4,7 +4,8 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import ua.factoriald.sunpp.services.ReferenceDataEntityListener;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 
@@ -14,8 +15,9 @@ import javax.persistence.*;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners({ReferenceDataEntityListener.class, VersionStampEntityListener.class})
 @Table(name = "CHECK_TYPES", schema = "SERVICEADMIN2")
-public class CheckTypeEntity {
+public class CheckTypeEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор типу перевірки
@@ -35,19 +37,4 @@ public class CheckTypeEntity {
     @Basic
     @Column(name = "CHECK_TYPE", nullable = false)
     private String name;
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        CheckTypeEntity that = (CheckTypeEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 73050390;
-    }
 }
@@ -4,7 +4,9 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 
@@ -17,8 +19,11 @@ import javax.persistence.*;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners(VersionStampEntityListener.class)
 @Table(name = "DEPARTMENTS", schema = "SERVICEADMIN2")
-public class DepartmentEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "departments")
+public class DepartmentEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор підрозділу
@@ -33,19 +38,4 @@ public class DepartmentEntity {
      */
     @Column(name="NAME", nullable = false)
     private String name;
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        DepartmentEntity that = (DepartmentEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 586730605;
-    }
 }
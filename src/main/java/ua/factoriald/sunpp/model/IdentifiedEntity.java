@@ -0,0 +1,47 @@
+package ua.factoriald.sunpp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.Hibernate;
+
+/**
+ * Базовий клас сутностей з ідентифікатором, що генерується базою даних.
+ *
+ * Сутності рівні, якщо вони одного класу і мають однаковий ідентифікатор.
+ * Ще не збережена сутність (без ідентифікатора) рівна тільки самій собі.
+ *
+ * Хеш-код рівних сутностей має бути однаковим, тому він залежить тільки від класу і ідентифікатора:
+ * до збереження це стала класу, після - хеш ідентифікатора. Тобто збережена сутність і її копія, завантажена
+ * в іншому контексті персистентності, мають однаковий хеш-код. Хеш-код нової сутності змінюється при збереженні,
+ * тому нові сутності не тримаються в HashSet/HashMap до отримання ідентифікатора: нова сутність, додана
+ * в множину (наприклад, користувач у множину користувачів робітника), після збереження в ній не знаходиться.
+ * Стала хеш-код для всіх сутностей класу зберіг би її, але клав би всі сутності множини в один кошик.
+ *
+ * Службові властивості проксі Hibernate не серіалізуються: зв'язки поза графом сутності приходять як проксі
+ * і при серіалізації у відповідь ініціалізуються звичайними геттерами.
+ */
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public abstract class IdentifiedEntity {
+
+    /**
+     * @return Ідентифікатор сутності
+     * @null якщо сутність ще не збережена
+     */
+    public abstract Long getId();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        IdentifiedEntity that = (IdentifiedEntity) o;
+
+        //ідентифікатор береться через getId(), бо у проксі Hibernate поля не заповнені
+        Long id = getId();
+        return id != null && id.equals(that.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        Long id = getId();
+        return id != null ? Long.hashCode(id) : Hibernate.getClass(this).hashCode();
+    }
+}
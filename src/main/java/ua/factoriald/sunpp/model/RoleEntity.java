@@ -4,7 +4,10 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.factoriald.sunpp.services.ReferenceDataEntityListener;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 
@@ -17,8 +20,11 @@ import javax.persistence.*;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners({ReferenceDataEntityListener.class, VersionStampEntityListener.class})
 @Table(name = "ROLES", schema = "SERVICEADMIN2")
-public class RoleEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
+public class RoleEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор ролі
@@ -33,19 +39,4 @@ public class RoleEntity {
      */
     @Column(name="NAME", nullable = false)
     private String name;
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        RoleEntity that = (RoleEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 1197319562;
-    }
 }
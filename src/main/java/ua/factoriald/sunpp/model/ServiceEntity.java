@@ -5,7 +5,12 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.factoriald.sunpp.services.AccessDecisionEntityListener;
+import ua.factoriald.sunpp.services.ReferenceDataEntityListener;
+import ua.factoriald.sunpp.services.SearchIndexEntityListener;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 import java.util.List;
@@ -19,8 +24,11 @@ import java.util.List;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners({ReferenceDataEntityListener.class, AccessDecisionEntityListener.class, VersionStampEntityListener.class, SearchIndexEntityListener.class})
 @Table(name = "SERVICES", schema = "SERVICEADMIN2")
-public class ServiceEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "services")
+public class ServiceEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор сервісу
@@ -48,6 +56,7 @@ public class ServiceEntity {
      * Список доступних ролей для цього сервісу
      */
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "service-roles")
     @JoinTable(
             name = "SERVICES_HAS_AVALIABLE_ROLES",
             joinColumns = @JoinColumn(name = "service_id"),
@@ -55,19 +64,4 @@ public class ServiceEntity {
     )
     @ToString.Exclude
     private List<RoleEntity> avaliableRoles;
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        ServiceEntity that = (ServiceEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 79509190;
-    }
 }
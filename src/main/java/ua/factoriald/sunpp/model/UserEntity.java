@@ -5,7 +5,10 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.factoriald.sunpp.services.SearchIndexEntityListener;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -16,8 +19,11 @@ import java.util.List;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners({VersionStampEntityListener.class, SearchIndexEntityListener.class})
 @Table(name = "USERS", schema = "SERVICEADMIN2")
-public class UserEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+public class UserEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор користувача
@@ -50,20 +56,6 @@ public class UserEntity {
     @ToString.Exclude
     private List<UserHaveAccessToServiceEntity> roles = new ArrayList<>();
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        UserEntity that = (UserEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 1838525018;
-    }
-
     @Override
     public String toString() {
         return "UserEntity{" +
@@ -1,12 +1,12 @@
 package ua.factoriald.sunpp.model;
 
-
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
-import org.hibernate.Hibernate;
+import ua.factoriald.sunpp.services.AccessDecisionEntityListener;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 
@@ -16,8 +16,9 @@ import javax.persistence.*;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners({AccessDecisionEntityListener.class, VersionStampEntityListener.class})
 @Table(name = "USERS_HAVING_ACCESS_TO_SERVICES", schema = "SERVICEADMIN2")
-public class UserHaveAccessToServiceEntity {
+public class UserHaveAccessToServiceEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор запису доступу
@@ -61,19 +62,4 @@ public class UserHaveAccessToServiceEntity {
     @OneToOne
     @JoinColumn(name = "DEPARTMENT_ID")
     private DepartmentEntity department;
-
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        UserHaveAccessToServiceEntity that = (UserHaveAccessToServiceEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 784403030;
-    }
 }
@@ -1,10 +1,12 @@
 package ua.factoriald.sunpp.model;
 
-
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
-import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ua.factoriald.sunpp.services.SearchIndexEntityListener;
+import ua.factoriald.sunpp.services.VersionStampEntityListener;
 
 import javax.persistence.*;
 import java.util.HashSet;
@@ -18,8 +20,11 @@ import java.util.Set;
 @RequiredArgsConstructor
 
 @Entity
+@EntityListeners({VersionStampEntityListener.class, SearchIndexEntityListener.class})
 @Table(name = "WORKERS", schema = "SERVICEADMIN2")
-public class WorkerEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workers")
+public class WorkerEntity extends IdentifiedEntity {
 
     /**
      * Ідентифікатор робітника
@@ -56,21 +61,6 @@ public class WorkerEntity {
     @JoinColumn(name = "WORKER_ID")
     private Set<UserEntity> users = new HashSet<>();
 
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
-        WorkerEntity that = (WorkerEntity) o;
-
-        return id != null && id.equals(that.id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 1177951510;
-    }
-
     @Override
     public String toString() {
         return "WorkerEntity{" +
@@ -0,0 +1,130 @@
+package ua.factoriald.sunpp.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * Клас зберігає переходи заявок між етапами розгляду (вихідна черга подій для зовнішніх систем).
+ *
+ * Подія записується в тій самій транзакції, що і зміна заявки, тому черга завжди відповідає заявкам.
+ * Черга читається за позицією ({@link #position}), а не за ідентифікатором: ідентифікатор видається при записі,
+ * а транзакції підтверджуються в іншому порядку.
+ * Зв'язки зберігаються як ідентифікатори, щоб читання черги не завантажувало заявки, користувачів і сервіси.
+ */
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+
+@Entity
+@Table(name = "WORKFLOW_EVENTS", schema = "SERVICEADMIN2", indexes = {
+        @Index(name = "WORKFLOW_EVENTS_POSITION_IDX", columnList = "FEED_POSITION, EVENT_ID")
+})
+public class WorkflowEventEntity extends IdentifiedEntity {
+
+    /**
+     * Розмір блоку ідентифікаторів. Не менший за найбільше групове рішення
+     * ({@link ua.factoriald.sunpp.services.ApplicationWorkflowService#MAX_BULK_SIZE}),
+     * тож групове рішення звертається до послідовності не більше одного разу
+     */
+    public static final int ID_ALLOCATION_SIZE = 500;
+
+    /**
+     * Ідентифікатор події.
+     * Береться з послідовності блоками по {@link #ID_ALLOCATION_SIZE}, тому вставки подій групового рішення
+     * йдуть пакетами без звернення до бази за кожним ідентифікатором
+     */
+    @Id
+    @SequenceGenerator(name = "WORKFLOW_EVENTS_SEQ", sequenceName = "WORKFLOW_EVENTS_SEQ", schema = "SERVICEADMIN2",
+            allocationSize = ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "WORKFLOW_EVENTS_SEQ")
+    @Column(name = "EVENT_ID", nullable = false)
+    private Long id;
+
+    /**
+     * Позиція події в черзі. Видається після підтвердження транзакції події (див. {@link ua.factoriald.sunpp.services.WorkflowEventRelay}),
+     * тому подія, підтверджена пізніше, завжди має більшу позицію. Служить курсором для читання черги
+     * @null якщо позиція ще не видана
+     */
+    @Basic
+    @Column(name = "FEED_POSITION")
+    private Long position;
+
+    /**
+     * Тип переходу
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "EVENT_TYPE", nullable = false, length = 32)
+    private WorkflowEventType type;
+
+    /**
+     * Етап розгляду заявки після переходу
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 32)
+    private ApplicationStatus status;
+
+    /**
+     * Дата переходу
+     */
+    @Basic
+    @Column(name = "EVENT_DATE", nullable = false)
+    private Timestamp eventDate;
+
+    /**
+     * Ідентифікатор заявки
+     */
+    @Basic
+    @Column(name = "APPLICATION_ID", nullable = false)
+    private Long applicationId;
+
+    /**
+     * Ідентифікатор сервісу заявки
+     */
+    @Basic
+    @Column(name = "SERVICE_ID", nullable = false)
+    private Long serviceId;
+
+    /**
+     * Ідентифікатор користувача-заявляча
+     */
+    @Basic
+    @Column(name = "APPLICANT_ID", nullable = false)
+    private Long applicantId;
+
+    /**
+     * Ідентифікатор потрібної ролі
+     */
+    @Basic
+    @Column(name = "ROLE_ID")
+    private Long roleId;
+
+    /**
+     * Ідентифікатор підрозділу заявки (опціонально)
+     * @null якщо не потрібно
+     */
+    @Basic
+    @Column(name = "DEPARTMENT_ID")
+    private Long departmentId;
+
+    /**
+     * Ідентифікатор користувача, що виконав перехід: заявляча, власника чи адміністратора
+     */
+    @Basic
+    @Column(name = "ACTOR_USER_ID", nullable = false)
+    private Long actorUserId;
+
+    /**
+     * Коментар до переходу (опціонально)
+     */
+    @Basic
+    @Column(name = "NOTE")
+    private String note;
+}
@@ -0,0 +1,43 @@
+package ua.factoriald.sunpp.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+/**
+ * Стан видачі позицій подіям вихідної черги (див. {@link WorkflowEventEntity#getPosition()}).
+ *
+ * Таблиця має один рядок. Позиції видаються під блокуванням цього рядка, тому видачі з різних потоків
+ * і екземплярів застосунку йдуть по черзі, а позиції зростають в порядку їх підтвердження.
+ */
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+
+@Entity
+@Table(name = "WORKFLOW_EVENT_RELAY", schema = "SERVICEADMIN2")
+public class WorkflowEventRelayEntity extends IdentifiedEntity {
+
+    /**
+     * Ідентифікатор єдиного рядка
+     */
+    public static final long SINGLETON_ID = 1L;
+
+    /**
+     * Ідентифікатор рядка, завжди {@link #SINGLETON_ID}
+     */
+    @Id
+    @Column(name = "RELAY_ID", nullable = false)
+    private Long id;
+
+    /**
+     * Остання видана позиція
+     */
+    @Basic
+    @Column(name = "LAST_POSITION", nullable = false)
+    private Long lastPosition;
+}
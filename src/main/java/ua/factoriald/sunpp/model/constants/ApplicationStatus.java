@@ -0,0 +1,24 @@
+package ua.factoriald.sunpp.model.constants;
+
+/**
+ * Етап розгляду заявки
+ * Див. {@link ua.factoriald.sunpp.model.ApplicationEntity#getStatus()}
+ */
+public enum ApplicationStatus {
+    /**
+     * Заявка очікує рішення власника
+     */
+    WAITING_FOR_OWNER,
+    /**
+     * Власник прийняв заявку, вона очікує рішення адміністратора
+     */
+    WAITING_FOR_ADMIN,
+    /**
+     * Адміністратор прийняв заявку, доступ надано
+     */
+    ACCEPTED,
+    /**
+     * Власник чи адміністратор відхилив заявку
+     */
+    DECLINED
+}
@@ -0,0 +1,20 @@
+package ua.factoriald.sunpp.model.constants;
+
+/**
+ * Що шукається пошуком адміністратора
+ * Див. {@link ua.factoriald.sunpp.services.EntitySearchIndex}
+ */
+public enum SearchTarget {
+    /**
+     * Робітники, за повним ім'ям
+     */
+    WORKER,
+    /**
+     * Користувачі, за логіном
+     */
+    USER,
+    /**
+     * Сервіси, за назвою
+     */
+    SERVICE
+}
@@ -0,0 +1,28 @@
+package ua.factoriald.sunpp.model.constants;
+
+/**
+ * Тип переходу заявки між етапами розгляду
+ * Див. {@link ua.factoriald.sunpp.model.WorkflowEventEntity}
+ */
+public enum WorkflowEventType {
+    /**
+     * Заявку створено
+     */
+    CREATED,
+    /**
+     * Власник прийняв заявку
+     */
+    OWNER_ACCEPTED,
+    /**
+     * Власник відхилив заявку
+     */
+    OWNER_DECLINED,
+    /**
+     * Адміністратор прийняв заявку, доступ надано
+     */
+    ADMIN_ACCEPTED,
+    /**
+     * Адміністратор відхилив заявку
+     */
+    ADMIN_DECLINED
+}
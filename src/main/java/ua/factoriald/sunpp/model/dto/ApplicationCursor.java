@@ -0,0 +1,69 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ua.factoriald.sunpp.model.ApplicationEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Позиція в списку заявок, впорядкованому за (датою створення, ідентифікатором).
+ * Наступна сторінка починається з заявок, що йдуть строго після цієї позиції,
+ * тому вибір будь-якої сторінки коштує стільки ж, скільки вибір першої.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ApplicationCursor {
+
+    /**
+     * Позиція перед першою заявкою
+     */
+    public static final ApplicationCursor START = new ApplicationCursor(new Timestamp(0), 0L);
+
+    /**
+     * Дата створення останньої заявки попередньої сторінки
+     */
+    private final Timestamp creationDate;
+
+    /**
+     * Ідентифікатор останньої заявки попередньої сторінки
+     */
+    private final Long id;
+
+    /**
+     * Створює позицію після заявки
+     * @param application Остання заявка сторінки
+     * @return Позиція
+     */
+    public static ApplicationCursor after(ApplicationEntity application) {
+        return new ApplicationCursor(application.getCreationDate(), application.getId());
+    }
+
+    /**
+     * Кодує позицію в непрозорий рядок для клієнта
+     * @return Курсор
+     */
+    public String encode() {
+        String raw = creationDate.getTime() + ":" + creationDate.getNanos() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Розкодовує курсор, отриманий від клієнта
+     * @param token Курсор
+     * @return Позиція
+     * @throws IllegalArgumentException, якщо курсор пошкоджений
+     */
+    public static ApplicationCursor decode(String token) throws IllegalArgumentException {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Неправильний курсор");
+        }
+        Timestamp creationDate = new Timestamp(Long.parseLong(parts[0]));
+        creationDate.setNanos(Integer.parseInt(parts[1]));
+        return new ApplicationCursor(creationDate, Long.valueOf(parts[2]));
+    }
+}
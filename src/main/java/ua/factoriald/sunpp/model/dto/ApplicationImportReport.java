@@ -0,0 +1,57 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Результат імпорту заявок
+ */
+@Getter
+@RequiredArgsConstructor
+public class ApplicationImportReport {
+
+    /**
+     * Кількість рядків у файлі
+     */
+    private final int totalRows;
+
+    /**
+     * Кількість створених заявок
+     */
+    private final int importedRows;
+
+    /**
+     * Тривалість імпорту в мілісекундах
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Кількість створених заявок за секунду
+     */
+    private final double rowsPerSecond;
+
+    /**
+     * Помилки по рядках, для яких заявки не створені
+     */
+    private final List<RowError> errors;
+
+    /**
+     * Помилка одного рядка
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class RowError {
+
+        /**
+         * Номер рядка у файлі, починаючи з 1 (без заголовка)
+         */
+        private final int rowNumber;
+
+        /**
+         * Причина помилки
+         */
+        private final String error;
+    }
+}
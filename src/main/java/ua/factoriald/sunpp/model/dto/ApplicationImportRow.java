@@ -0,0 +1,42 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Рядок файлу імпорту заявок
+ */
+@Getter
+@Setter
+public class ApplicationImportRow {
+
+    /**
+     * Номер рядка у файлі, починаючи з 1 (без заголовка)
+     */
+    private int rowNumber;
+
+    /**
+     * Ідентифікатор користувача-заявляча
+     */
+    private Long userId;
+
+    /**
+     * Ідентифікатор потрібного сервісу
+     */
+    private Long serviceId;
+
+    /**
+     * Ідентифікатор потрібної ролі
+     */
+    private Long roleId;
+
+    /**
+     * Ідентифікатор підрозділу (опціонально)
+     */
+    private Long departmentId;
+
+    /**
+     * Коментар (опціонально)
+     */
+    private String note;
+}
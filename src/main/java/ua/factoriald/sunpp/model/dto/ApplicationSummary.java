@@ -0,0 +1,71 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+
+import java.util.Date;
+
+/**
+ * Коротка інформація про заявку для списків.
+ *
+ * Вибирається JPQL-виразом з конструктором (див. {@link ua.factoriald.sunpp.repository.ApplicationRepository}),
+ * тому читаються тільки потрібні колонки, а сутності не завантажуються в контекст персистентності.
+ * Порядок полів визначає порядок параметрів конструктора, тому його не можна змінювати без зміни запитів.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ApplicationSummary {
+
+    /**
+     * Ідентифікатор заявки
+     */
+    private final Long id;
+
+    /**
+     * Дата створення заявки
+     */
+    private final Date creationDate;
+
+    /**
+     * Етап розгляду заявки
+     */
+    private final ApplicationStatus status;
+
+    /**
+     * Дата переходу заявки на поточний етап
+     */
+    private final Date statusDate;
+
+    /**
+     * Ідентифікатор сервісу
+     */
+    private final Long serviceId;
+
+    /**
+     * Назва сервісу
+     */
+    private final String serviceName;
+
+    /**
+     * Ідентифікатор користувача-заявляча
+     */
+    private final Long applicantId;
+
+    /**
+     * Логін користувача-заявляча
+     */
+    private final String applicantLogin;
+
+    /**
+     * Ідентифікатор підрозділу
+     * @null якщо підрозділ не вказаний
+     */
+    private final Long departmentId;
+
+    /**
+     * Назва підрозділу
+     * @null якщо підрозділ не вказаний
+     */
+    private final String departmentName;
+}
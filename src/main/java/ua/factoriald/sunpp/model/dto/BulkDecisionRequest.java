@@ -0,0 +1,24 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Тіло запиту на однакове рішення по кількох заявках
+ */
+@Getter
+@Setter
+public class BulkDecisionRequest {
+
+    /**
+     * Ідентифікатори заявок
+     */
+    private List<Long> applicationIds;
+
+    /**
+     * Коментар до всіх рішень (опціонально)
+     */
+    private String note;
+}
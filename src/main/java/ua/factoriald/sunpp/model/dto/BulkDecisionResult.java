@@ -0,0 +1,36 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Результат рішення по одній заявці з групового запиту
+ */
+@Getter
+@RequiredArgsConstructor
+public class BulkDecisionResult {
+
+    /**
+     * Ідентифікатор заявки
+     */
+    private final Long applicationId;
+
+    /**
+     * true, якщо рішення записане
+     */
+    private final boolean applied;
+
+    /**
+     * Причина, чому рішення не записане
+     * @null якщо рішення записане
+     */
+    private final String error;
+
+    public static BulkDecisionResult applied(Long applicationId) {
+        return new BulkDecisionResult(applicationId, true, null);
+    }
+
+    public static BulkDecisionResult rejected(Long applicationId, String error) {
+        return new BulkDecisionResult(applicationId, false, error);
+    }
+}
@@ -0,0 +1,26 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Сторінка списку з курсором на наступну сторінку
+ * @param <T> Тип елементів сторінки
+ */
+@Getter
+@RequiredArgsConstructor
+public class CursorPage<T> {
+
+    /**
+     * Елементи сторінки
+     */
+    private final List<T> items;
+
+    /**
+     * Непрозорий курсор для отримання наступної сторінки
+     * @null якщо це остання сторінка
+     */
+    private final String nextCursor;
+}
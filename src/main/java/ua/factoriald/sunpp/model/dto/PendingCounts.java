@@ -0,0 +1,24 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Кількість заявок, що очікують рішення власника чи адміністратора, для позначок у списках
+ */
+@Getter
+@RequiredArgsConstructor
+public class PendingCounts {
+
+    /**
+     * Кількість заявок по всіх сервісах
+     */
+    private final long total;
+
+    /**
+     * Кількість заявок по кожному сервісу (ідентифікатор сервісу - кількість), тільки сервіси із заявками
+     */
+    private final Map<Long, Long> services;
+}
@@ -0,0 +1,45 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ua.factoriald.sunpp.model.constants.SearchTarget;
+
+/**
+ * Один результат пошуку робітників, користувачів і сервісів
+ */
+@Getter
+@RequiredArgsConstructor
+public class SearchResult {
+
+    /**
+     * Що знайдено
+     */
+    private final SearchTarget type;
+
+    /**
+     * Ідентифікатор робітника, користувача чи сервісу
+     */
+    private final Long id;
+
+    /**
+     * Повне ім'я робітника, логін користувача чи назва сервісу
+     */
+    private final String name;
+
+    /**
+     * Підрозділ робітника (для користувача - його робітника)
+     * @null для сервісу
+     */
+    private final Long departmentId;
+
+    /**
+     * Посада робітника (для користувача - його робітника)
+     * @null для сервісу
+     */
+    private final Long positionId;
+
+    /**
+     * Оцінка збігу з запитом від 0 до 1
+     */
+    private final float score;
+}
@@ -0,0 +1,26 @@
+package ua.factoriald.sunpp.model.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+
+import java.util.List;
+
+/**
+ * Частина вихідної черги подій
+ */
+@Getter
+@RequiredArgsConstructor
+public class WorkflowEventBatch {
+
+    /**
+     * Події в порядку позицій
+     */
+    private final List<WorkflowEventEntity> events;
+
+    /**
+     * Позиція останньої події частини, курсор для наступного читання.
+     * Якщо нових подій немає, то це курсор з запиту
+     */
+    private final long lastPosition;
+}
@@ -1,11 +1,22 @@
 package ua.factoriald.sunpp.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import ua.factoriald.sunpp.model.ApplicationEntity;
 import ua.factoriald.sunpp.model.ServiceEntity;
 import ua.factoriald.sunpp.model.UserEntity;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.dto.ApplicationSummary;
 
+import java.sql.Timestamp;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,11 +27,25 @@ import java.util.List;
 @RepositoryRestResource(exported = false)
 public interface ApplicationRepository extends JpaRepository<ApplicationEntity, Long> {
 
+    /**
+     * Початок запитів, що вибирають коротку інформацію про заявки (див. {@link ApplicationSummary})
+     */
+    String SUMMARY_SELECT = "select new ua.factoriald.sunpp.model.dto.ApplicationSummary(" +
+            "a.id, a.creationDate, a.status, a.statusDate, s.id, s.name, u.id, u.login, d.id, d.name) " +
+            "from ApplicationEntity a join a.service s join a.applicant u left join a.department d ";
+
+    /**
+     * Умова вибору заявок після позиції курсора (див. {@link ua.factoriald.sunpp.model.dto.ApplicationCursor})
+     */
+    String AFTER_CURSOR = " and (a.creationDate > :afterDate or (a.creationDate = :afterDate and a.id > :afterId))" +
+            " order by a.creationDate, a.id";
+
     /**
      * Повертає всі заявки, що належать сервісу
      * @param service сервіс, по якому вибираються заявки
      * @return Список заявок
      */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
     List<ApplicationEntity> getAllByService(ServiceEntity service);
 
     /**
@@ -28,6 +53,7 @@ public interface ApplicationRepository extends JpaRepository<ApplicationEntity,
      * @param services список сервісів, по яким вибираються заявки
      * @return Список заявок
      */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
     List<ApplicationEntity> getAllByServiceIn(List<ServiceEntity> services);
 
     /**
@@ -35,6 +61,311 @@ public interface ApplicationRepository extends JpaRepository<ApplicationEntity,
      * @param user Заявляч
      * @return Список заявок
      */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
     List<ApplicationEntity> getAllByApplicant(UserEntity user);
 
+    /**
+     * Повертає заявки за ідентифікаторами разом з сервісами і записами перевірок, для групового рішення
+     * @param ids Ідентифікатори заявок
+     * @return Список знайдених заявок
+     */
+    @Query("select distinct a from ApplicationEntity a join fetch a.service left join fetch a.checkings where a.id in :ids")
+    List<ApplicationEntity> getAllForDecisionByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Повертає всі заявки по сервісам адміністратора одним запитом
+     * @param admin Адміністратор сервісів
+     * @param adminRoleId Ідентифікатор ролі адміністратора
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.service in (" +
+            "select acc.service from UserHaveAccessToServiceEntity acc where acc.user = :admin and acc.role.id = :adminRoleId)")
+    List<ApplicationEntity> getAllByAdmin(@Param("admin") UserEntity admin,
+                                          @Param("adminRoleId") Long adminRoleId);
+
+    /**
+     * Повертає заявки по всім сервісам власника, що знаходяться на етапі розгляду
+     * @param owner Власник сервісів
+     * @param status Етап розгляду
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    List<ApplicationEntity> getAllByServiceOwnerUserAndStatus(UserEntity owner, ApplicationStatus status);
+
+    /**
+     * Повертає заявки сервісу, що знаходяться на етапі розгляду
+     * @param service Сервіс
+     * @param status Етап розгляду
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    List<ApplicationEntity> getAllByServiceAndStatus(ServiceEntity service, ApplicationStatus status);
+
+    /**
+     * Повертає заявки по сервісам адміністратора, що знаходяться на етапі розгляду
+     * @param admin Адміністратор сервісів
+     * @param adminRoleId Ідентифікатор ролі адміністратора
+     * @param status Етап розгляду
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.status = :status and a.service in (" +
+            "select acc.service from UserHaveAccessToServiceEntity acc where acc.user = :admin and acc.role.id = :adminRoleId)")
+    List<ApplicationEntity> getAllByAdminAndStatus(@Param("admin") UserEntity admin,
+                                                   @Param("adminRoleId") Long adminRoleId,
+                                                   @Param("status") ApplicationStatus status);
+
+    /**
+     * Повертає найменший і найбільший ідентифікатори заявок, у яких ще не заповнений етап розгляду
+     * @return Масив з двох ідентифікаторів (можуть бути null, якщо таких заявок немає)
+     */
+    @Query("select min(a.id), max(a.id) from ApplicationEntity a where a.status is null")
+    List<Object[]> getIdRangeWithoutStatus();
+
+    /**
+     * Повертає заявки на етапах розгляду одним запитом, тобто з одного знімка бази
+     * @param statuses Етапи розгляду
+     * @return Масиви [ідентифікатор заявки, ідентифікатор сервісу, етап]
+     */
+    @Query("select a.id, a.service.id, a.status from ApplicationEntity a where a.status in :statuses")
+    List<Object[]> getIdServiceAndStatusByStatusIn(@Param("statuses") Collection<ApplicationStatus> statuses);
+
+    /**
+     * Заповнює етап розгляду заявок без етапу, у яких є запис перевірки з потрібним рішенням.
+     * Дата етапу береться з останньої перевірки заявки
+     * @param status Етап, що записується
+     * @param checkTypeId Ідентифікатор типу запису перевірки
+     * @param roleIds Ролі перевіряючих, записи яких враховуються
+     * @param checkYesNo Рішення в записі перевірки
+     * @param fromId Початок діапазону ідентифікаторів заявок
+     * @param toId Кінець діапазону ідентифікаторів заявок
+     * @return Кількість оновлених заявок
+     */
+    @Modifying
+    @Query("update ApplicationEntity a set a.status = :status, a.statusDate = (" +
+            "select max(c.checkingDate) from ApplicationCheckingEntity c where c.application = a) " +
+            "where a.status is null and a.id between :fromId and :toId and exists (" +
+            "select c.id from ApplicationCheckingEntity c where c.application = a " +
+            "and c.checkType.id = :checkTypeId and c.role.id in :roleIds and c.checkYesNoNull = :checkYesNo)")
+    int backfillStatusByChecking(@Param("status") ApplicationStatus status,
+                                 @Param("checkTypeId") Long checkTypeId,
+                                 @Param("roleIds") List<Long> roleIds,
+                                 @Param("checkYesNo") Boolean checkYesNo,
+                                 @Param("fromId") Long fromId,
+                                 @Param("toId") Long toId);
+
+    /**
+     * Заповнює етап розгляду всім заявкам без етапу. Дата етапу - дата створення заявки
+     * @param status Етап, що записується
+     * @param fromId Початок діапазону ідентифікаторів заявок
+     * @param toId Кінець діапазону ідентифікаторів заявок
+     * @return Кількість оновлених заявок
+     */
+    @Modifying
+    @Query("update ApplicationEntity a set a.status = :status, a.statusDate = a.creationDate " +
+            "where a.status is null and a.id between :fromId and :toId")
+    int backfillRemainingStatus(@Param("status") ApplicationStatus status,
+                                @Param("fromId") Long fromId,
+                                @Param("toId") Long toId);
+
+    /**
+     * Повертає сторінку заявок по всім сервісам власника після позиції курсора
+     * @param owner Власник сервісів
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.service.ownerUser = :owner" + AFTER_CURSOR)
+    List<ApplicationEntity> getPageByOwner(@Param("owner") UserEntity owner,
+                                           @Param("afterDate") Timestamp afterDate,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    /**
+     * Повертає сторінку заявок сервісу після позиції курсора
+     * @param service Сервіс
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.service = :service" + AFTER_CURSOR)
+    List<ApplicationEntity> getPageByService(@Param("service") ServiceEntity service,
+                                             @Param("afterDate") Timestamp afterDate,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * Повертає сторінку заявок по сервісам адміністратора після позиції курсора
+     * @param admin Адміністратор сервісів
+     * @param adminRoleId Ідентифікатор ролі адміністратора
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.service in (" +
+            "select acc.service from UserHaveAccessToServiceEntity acc where acc.user = :admin and acc.role.id = :adminRoleId)" +
+            AFTER_CURSOR)
+    List<ApplicationEntity> getPageByAdmin(@Param("admin") UserEntity admin,
+                                           @Param("adminRoleId") Long adminRoleId,
+                                           @Param("afterDate") Timestamp afterDate,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    /**
+     * Повертає сторінку заявок заявляча після позиції курсора
+     * @param applicant Заявляч
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.applicant = :applicant" + AFTER_CURSOR)
+    List<ApplicationEntity> getPageByApplicant(@Param("applicant") UserEntity applicant,
+                                               @Param("afterDate") Timestamp afterDate,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    /**
+     * Повертає сторінку заявок по всім сервісам власника на етапі розгляду після позиції курсора
+     * @param owner Власник сервісів
+     * @param status Етап розгляду
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.service.ownerUser = :owner and a.status = :status" + AFTER_CURSOR)
+    List<ApplicationEntity> getPageByOwnerAndStatus(@Param("owner") UserEntity owner,
+                                                    @Param("status") ApplicationStatus status,
+                                                    @Param("afterDate") Timestamp afterDate,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    /**
+     * Повертає сторінку заявок сервісу на етапі розгляду після позиції курсора
+     * @param service Сервіс
+     * @param status Етап розгляду
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.service = :service and a.status = :status" + AFTER_CURSOR)
+    List<ApplicationEntity> getPageByServiceAndStatus(@Param("service") ServiceEntity service,
+                                                      @Param("status") ApplicationStatus status,
+                                                      @Param("afterDate") Timestamp afterDate,
+                                                      @Param("afterId") Long afterId,
+                                                      Pageable pageable);
+
+    /**
+     * Повертає сторінку заявок по сервісам адміністратора на етапі розгляду після позиції курсора
+     * @param admin Адміністратор сервісів
+     * @param adminRoleId Ідентифікатор ролі адміністратора
+     * @param status Етап розгляду
+     * @param afterDate Дата створення останньої заявки попередньої сторінки
+     * @param afterId Ідентифікатор останньої заявки попередньої сторінки
+     * @param pageable Розмір сторінки
+     * @return Список заявок
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @Query("select a from ApplicationEntity a where a.status = :status and a.service in (" +
+            "select acc.service from UserHaveAccessToServiceEntity acc where acc.user = :admin and acc.role.id = :adminRoleId)" +
+            AFTER_CURSOR)
+    List<ApplicationEntity> getPageByAdminAndStatus(@Param("admin") UserEntity admin,
+                                                    @Param("adminRoleId") Long adminRoleId,
+                                                    @Param("status") ApplicationStatus status,
+                                                    @Param("afterDate") Timestamp afterDate,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    /**
+     * Повертає порцію заявок сервісу для вивантаження: заявки з ідентифікатором більшим за курсор
+     * @param service Сервіс
+     * @param afterId Ідентифікатор останньої заявки попередньої порції, 0 для першої
+     * @param pageable Розмір порції
+     * @return Список заявок, впорядкованих за ідентифікатором
+     */
+    @EntityGraph(ApplicationEntity.LIST_GRAPH)
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    @Query("select a from ApplicationEntity a where a.service = :service and a.id > :afterId order by a.id")
+    List<ApplicationEntity> getExportPageByService(@Param("service") ServiceEntity service,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    /**
+     * Догружає записи перевірок заявок одним запитом разом з типами перевірок, ролями і користувачами.
+     * Заявки вже в контексті персистентності, тому запит заповнює їх списки перевірок
+     * @param applications Заявки
+     * @return Ті самі заявки
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false")
+    })
+    @Query("select distinct a from ApplicationEntity a left join fetch a.checkings c " +
+            "left join fetch c.checkType left join fetch c.role left join fetch c.user where a in :applications")
+    List<ApplicationEntity> fetchCheckings(@Param("applications") Collection<ApplicationEntity> applications);
+
+    /**
+     * Повертає коротку інформацію про заявки по всім сервісам власника
+     * @param owner Власник сервісів
+     * @return Список заявок
+     */
+    @Query(SUMMARY_SELECT + "where s.ownerUser = :owner order by a.creationDate, a.id")
+    List<ApplicationSummary> getSummariesByOwner(@Param("owner") UserEntity owner);
+
+    /**
+     * Повертає коротку інформацію про заявки по всім сервісам власника на етапі розгляду
+     * @param owner Власник сервісів
+     * @param status Етап розгляду
+     * @return Список заявок
+     */
+    @Query(SUMMARY_SELECT + "where s.ownerUser = :owner and a.status = :status order by a.creationDate, a.id")
+    List<ApplicationSummary> getSummariesByOwnerAndStatus(@Param("owner") UserEntity owner,
+                                                          @Param("status") ApplicationStatus status);
+
+    /**
+     * Повертає коротку інформацію про заявки по сервісам адміністратора
+     * @param admin Адміністратор сервісів
+     * @param adminRoleId Ідентифікатор ролі адміністратора
+     * @return Список заявок
+     */
+    @Query(SUMMARY_SELECT + "where s in (" +
+            "select acc.service from UserHaveAccessToServiceEntity acc where acc.user = :admin and acc.role.id = :adminRoleId) " +
+            "order by a.creationDate, a.id")
+    List<ApplicationSummary> getSummariesByAdmin(@Param("admin") UserEntity admin,
+                                                 @Param("adminRoleId") Long adminRoleId);
+
+    /**
+     * Повертає коротку інформацію про заявки по сервісам адміністратора на етапі розгляду
+     * @param admin Адміністратор сервісів
+     * @param adminRoleId Ідентифікатор ролі адміністратора
+     * @param status Етап розгляду
+     * @return Список заявок
+     */
+    @Query(SUMMARY_SELECT + "where a.status = :status and s in (" +
+            "select acc.service from UserHaveAccessToServiceEntity acc where acc.user = :admin and acc.role.id = :adminRoleId) " +
+            "order by a.creationDate, a.id")
+    List<ApplicationSummary> getSummariesByAdminAndStatus(@Param("admin") UserEntity admin,
+                                                          @Param("adminRoleId") Long adminRoleId,
+                                                          @Param("status") ApplicationStatus status);
+
+    /**
+     * Повертає коротку інформацію про заявки заявляча
+     * @param applicant Заявляч
+     * @return Список заявок
+     */
+    @Query(SUMMARY_SELECT + "where u = :applicant order by a.creationDate, a.id")
+    List<ApplicationSummary> getSummariesByApplicant(@Param("applicant") UserEntity applicant);
+
 }
@@ -1,13 +1,24 @@
 package ua.factoriald.sunpp.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import ua.factoriald.sunpp.model.DepartmentEntity;
 
+import java.util.List;
+
 /**
  * Відповідає за отримання даних з бази даних
  * Див. {@link DepartmentEntity}
  *
  */
 @RepositoryRestResource(exported = false)
-public interface DepartmentRepository extends JpaRepository<DepartmentEntity, Long> { }
+public interface DepartmentRepository extends JpaRepository<DepartmentEntity, Long> {
+
+    /**
+     * Повертає ідентифікатори всіх підрозділів
+     * @return Список ідентифікаторів
+     */
+    @Query("select x.id from DepartmentEntity x")
+    List<Long> getAllIds();
+}
@@ -1,10 +1,14 @@
 package ua.factoriald.sunpp.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import ua.factoriald.sunpp.model.ServiceEntity;
 import ua.factoriald.sunpp.model.UserEntity;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -16,10 +20,53 @@ import java.util.List;
 public interface ServiceRepository extends JpaRepository<ServiceEntity, Long> {
 
     /**
-     * Повертає сервіси по власнику
+     * Повертає сервіси по власнику.
+     * Результат кешується в кеші запитів і скидається при будь-якій зміні таблиці сервісів
      * @param user Власник сервісу
      * @return Список сервісів
      */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = "query-services-by-owner")
+    })
     List<ServiceEntity> getAllByOwnerUser(UserEntity user);
 
+    /**
+     * Повертає ідентифікатор власника сервісу
+     * @param serviceId Ідентифікатор сервісу
+     * @return Ідентифікатор власника
+     * @null якщо немає такого сервісу
+     */
+    @Query("select s.ownerUser.id from ServiceEntity s where s.id = :serviceId")
+    Long getOwnerUserId(@Param("serviceId") Long serviceId);
+
+    /**
+     * Повертає ідентифікатори сервісів власника
+     * @param ownerUserId Ідентифікатор власника
+     * @return Список ідентифікаторів сервісів
+     */
+    @Query("select s.id from ServiceEntity s where s.ownerUser.id = :ownerUserId")
+    List<Long> getIdsByOwnerUserId(@Param("ownerUserId") Long ownerUserId);
+
+    /**
+     * Повертає пари (ідентифікатор сервісу, ідентифікатор доступної ролі) для всіх сервісів
+     * @return Список пар ідентифікаторів
+     */
+    @Query("select s.id, r.id from ServiceEntity s join s.avaliableRoles r")
+    List<Object[]> getAllServiceRoleIdPairs();
+
+    /**
+     * Повертає ідентифікатори всіх сервісів
+     * @return Список ідентифікаторів
+     */
+    @Query("select x.id from ServiceEntity x")
+    List<Long> getAllIds();
+
+    /**
+     * Повертає поля всіх сервісів, за якими вони шукаються, без завантаження сутностей
+     * @return Список [ідентифікатор, назва]
+     */
+    @Query("select s.id, s.name from ServiceEntity s")
+    List<Object[]> getAllSearchFields();
+
 }
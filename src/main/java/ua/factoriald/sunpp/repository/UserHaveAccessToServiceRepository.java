@@ -1,6 +1,8 @@
 package ua.factoriald.sunpp.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import ua.factoriald.sunpp.model.RoleEntity;
 import ua.factoriald.sunpp.model.ServiceEntity;
@@ -33,4 +35,39 @@ public interface UserHaveAccessToServiceRepository extends JpaRepository<UserHav
      */
     List<UserHaveAccessToServiceEntity> getAllByUserAndRole(UserEntity user, RoleEntity role);
 
+    /**
+     * Перевіряє, чи має користувач роль хоча б в одному сервісі
+     * @param userId Ідентифікатор користувача
+     * @param roleId Ідентифікатор ролі
+     * @return true, якщо є хоча б один запис доступу
+     */
+    boolean existsByUserIdAndRoleId(Long userId, Long roleId);
+
+    /**
+     * Перевіряє, чи має користувач роль у сервісі
+     * @param userId Ідентифікатор користувача
+     * @param roleId Ідентифікатор ролі
+     * @param serviceId Ідентифікатор сервісу
+     * @return true, якщо є запис доступу
+     */
+    boolean existsByUserIdAndRoleIdAndServiceId(Long userId, Long roleId, Long serviceId);
+
+    /**
+     * Повертає ідентифікатори сервісів, у яких користувач має роль
+     * @param userId Ідентифікатор користувача
+     * @param roleId Ідентифікатор ролі
+     * @return Список ідентифікаторів сервісів
+     */
+    @Query("select acc.service.id from UserHaveAccessToServiceEntity acc where acc.user.id = :userId and acc.role.id = :roleId")
+    List<Long> getServiceIdsByUserIdAndRoleId(@Param("userId") Long userId, @Param("roleId") Long roleId);
+
+    /**
+     * Повертає ідентифікатори користувачів, що мають роль у сервісі
+     * @param serviceId Ідентифікатор сервісу
+     * @param roleId Ідентифікатор ролі
+     * @return Список ідентифікаторів користувачів
+     */
+    @Query("select acc.user.id from UserHaveAccessToServiceEntity acc where acc.service.id = :serviceId and acc.role.id = :roleId")
+    List<Long> getUserIdsByServiceIdAndRoleId(@Param("serviceId") Long serviceId, @Param("roleId") Long roleId);
+
 }
@@ -2,9 +2,14 @@ package ua.factoriald.sunpp.repository;
 
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import ua.factoriald.sunpp.model.UserEntity;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
 /**
  * Відповідає за отримання даних з бази даних
  * Див. {@link UserEntity}
@@ -14,10 +19,29 @@ import ua.factoriald.sunpp.model.UserEntity;
 public interface UserRepository extends JpaRepository<UserEntity,Long> {
 
     /**
-     * Повертає користувача за логіном
+     * Повертає користувача за логіном.
+     * Результат кешується в кеші запитів і скидається при будь-якій зміні таблиці користувачів
      * @param login Логін користувача
      * @return Користувач
      */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = "query-user-by-login")
+    })
     UserEntity findByLogin(String login);
 
+    /**
+     * Повертає ідентифікатори всіх користувачів
+     * @return Список ідентифікаторів
+     */
+    @Query("select x.id from UserEntity x")
+    List<Long> getAllIds();
+
+    /**
+     * Повертає поля всіх користувачів, за якими вони шукаються, без завантаження сутностей
+     * @return Список [ідентифікатор, логін, ідентифікатор робітника]
+     */
+    @Query("select u.id, u.login, u.workerEntity.id from UserEntity u")
+    List<Object[]> getAllSearchFields();
+
 }
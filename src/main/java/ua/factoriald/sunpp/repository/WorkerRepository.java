@@ -1,9 +1,11 @@
 package ua.factoriald.sunpp.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import ua.factoriald.sunpp.model.WorkerEntity;
 
+import java.util.List;
 
 /**
  * Відповідає за отримання даних з бази даних
@@ -11,4 +13,12 @@ import ua.factoriald.sunpp.model.WorkerEntity;
  *
  */
 @RepositoryRestResource(exported = false)
-public interface WorkerRepository extends JpaRepository<WorkerEntity,Long> { }
+public interface WorkerRepository extends JpaRepository<WorkerEntity,Long> {
+
+    /**
+     * Повертає поля всіх робітників, за якими вони шукаються, без завантаження сутностей
+     * @return Список [ідентифікатор, повне ім'я, ідентифікатор підрозділу, ідентифікатор посади]
+     */
+    @Query("select w.id, w.fullname, w.department.id, w.position.id from WorkerEntity w")
+    List<Object[]> getAllSearchFields();
+}
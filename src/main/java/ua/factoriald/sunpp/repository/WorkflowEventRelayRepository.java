@@ -0,0 +1,29 @@
+package ua.factoriald.sunpp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import ua.factoriald.sunpp.model.WorkflowEventRelayEntity;
+
+import javax.persistence.LockModeType;
+
+/**
+ * Відповідає за отримання даних з бази даних
+ * Див. {@link WorkflowEventRelayEntity}
+ *
+ */
+@RepositoryRestResource(exported = false)
+public interface WorkflowEventRelayRepository extends JpaRepository<WorkflowEventRelayEntity, Long> {
+
+    /**
+     * Повертає стан видачі позицій і блокує його рядок до кінця транзакції
+     * @param id Ідентифікатор рядка
+     * @return Стан
+     * @null якщо рядка ще немає
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from WorkflowEventRelayEntity r where r.id = :id")
+    WorkflowEventRelayEntity getForUpdate(@Param("id") Long id);
+}
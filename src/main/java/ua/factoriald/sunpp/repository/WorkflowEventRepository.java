@@ -0,0 +1,48 @@
+package ua.factoriald.sunpp.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+/**
+ * Відповідає за отримання даних з бази даних
+ * Див. {@link WorkflowEventEntity}
+ *
+ */
+@RepositoryRestResource(exported = false)
+public interface WorkflowEventRepository extends JpaRepository<WorkflowEventEntity, Long> {
+
+    /**
+     * Повертає події після курсора в порядку позицій
+     * @param afterPosition Позиція останньої прочитаної події
+     * @param pageable Кількість подій
+     * @return Список подій
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"))
+    @Query("select e from WorkflowEventEntity e where e.position > :afterPosition order by e.position")
+    List<WorkflowEventEntity> getAllAfter(@Param("afterPosition") Long afterPosition, Pageable pageable);
+
+    /**
+     * Повертає ідентифікатори підтверджених подій без позиції
+     * @param pageable Кількість подій
+     * @return Список ідентифікаторів у порядку запису
+     */
+    @Query("select e.id from WorkflowEventEntity e where e.position is null order by e.id")
+    List<Long> getIdsWithoutPosition(Pageable pageable);
+
+    /**
+     * Повертає події без позиції з ідентифікатором не більшим за вказаний
+     * @param maxId Найбільший ідентифікатор
+     * @param pageable Кількість подій
+     * @return Список подій у порядку запису
+     */
+    @Query("select e from WorkflowEventEntity e where e.position is null and e.id <= :maxId order by e.id")
+    List<WorkflowEventEntity> getAllWithoutPositionUpTo(@Param("maxId") Long maxId, Pageable pageable);
+}
@@ -0,0 +1,53 @@
+package ua.factoriald.sunpp.serialization;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Двійкові формати відповідей: клієнт з Accept: application/cbor чи application/x-jackson-smile
+ * отримує ті самі дані, що й у JSON, але компактніше і з дешевшим розбором.
+ *
+ * Конвертери будуються з того ж налаштованого Spring Boot {@link Jackson2ObjectMapperBuilder}, що й JSON,
+ * тому модулі і налаштування spring.jackson.* однакові для всіх форматів.
+ * Конвертери стають на місце стандартних конвертерів CBOR і Smile, тобто після JSON:
+ * без Accept чи з Accept: *&#47;* відповідь і далі в JSON.
+ */
+@Configuration
+public class BinaryFormatConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Тіло відповіді залежить від Accept, тому проміжні кеші мають зберігати формати окремо
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package ua.factoriald.sunpp.serialization;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+/**
+ * Формат тіла відповіді, який клієнт обирає заголовком Accept.
+ *
+ * Одна й та сама відповідь у різних форматах - різні представлення ресурсу, тому вони мають різні ETag
+ * (див. {@link #tag(String)}): інакше клієнт, що змінив Accept, отримав би 304 на збережене тіло в іншому форматі.
+ * ETag у JSON не змінюється.
+ */
+public enum ResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON, null),
+
+    CBOR(MediaType.APPLICATION_CBOR, "cbor"),
+
+    SMILE(new MediaType("application", "x-jackson-smile"), "smile");
+
+    private final MediaType mediaType;
+
+    /**
+     * Позначка формату в ETag
+     * @null для JSON
+     */
+    private final String etagSuffix;
+
+    ResponseFormat(MediaType mediaType, String etagSuffix) {
+        this.mediaType = mediaType;
+        this.etagSuffix = etagSuffix;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param request Запит
+     * @return Формат з заголовка Accept запиту
+     */
+    public static ResponseFormat of(WebRequest request) {
+        return of(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * Обирає найбажаніший для клієнта формат. Якщо клієнт приймає будь-який тип чи заголовок неправильний, то JSON
+     * @param accept Заголовок Accept
+     * @return Формат відповіді
+     */
+    public static ResponseFormat of(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (ResponseFormat format : values()) {
+                if (mediaType.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Додає до ETag версії даних позначку формату
+     * @param etag ETag версії даних, наприклад з {@link ua.factoriald.sunpp.services.VersionStamps}
+     * @return ETag представлення в цьому форматі
+     */
+    public String tag(String etag) {
+        if (etagSuffix == null) {
+            return etag;
+        }
+        if (etag.endsWith("\"")) {
+            return etag.substring(0, etag.length() - 1) + '-' + etagSuffix + '"';
+        }
+        return etag + '-' + etagSuffix;
+    }
+}
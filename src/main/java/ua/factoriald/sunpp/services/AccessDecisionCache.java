@@ -0,0 +1,234 @@
+package ua.factoriald.sunpp.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.repository.UserHaveAccessToServiceRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кеш рішень про права користувачів: чи має користувач роль, чи має роль у сервісі, чи є власником сервісу.
+ * Також кешуються ідентифікатори сервісів, у яких користувач має роль чи є власником.
+ *
+ * Рішення про ролі залежать тільки від записів доступу користувача, тому зберігаються разом по користувачу:
+ * зміна записів доступу видаляє один запис кешу. Власники кешуються по сервісу, а списки сервісів власника -
+ * по власнику. Зміна сервісу видаляє власника сервісу і списки сервісів попереднього і нового власника,
+ * рішення про ролі залишаються (див. {@link AccessDecisionEntityListener}).
+ * При промаху виконується один запит до основної бази ({@link ReadYourWrites#forcePrimary()}): після видалення
+ * рішення репліка, що відстає, повернула б старе рішення на весь час життя запису.
+ * Кеш обмежений за розміром і часом життя записів, а час життя обмежує застарілість після змін в обхід застосунку.
+ */
+@Component
+public class AccessDecisionCache {
+
+    /**
+     * Власник відсутнього сервісу (ідентифікатори в базі починаються з 1)
+     */
+    private static final long NO_OWNER = 0L;
+
+    private final UserHaveAccessToServiceRepository accessRepository;
+    private final ServiceRepository serviceRepository;
+
+    /**
+     * Ідентифікатор користувача - рішення про його ролі
+     */
+    private final LoadingCache<Long, UserDecisions> users;
+
+    /**
+     * Ідентифікатор сервісу - ідентифікатор власника.
+     * Не обмежений за розміром: запис на сервіс, і для кешованого списку сервісів власника власник його сервісів
+     * теж в кеші, тому при зміні сервісу відомо, чий список видалити
+     */
+    private final LoadingCache<Long, Long> owners;
+
+    /**
+     * Ідентифікатор власника - відсортовані ідентифікатори його сервісів
+     */
+    private final LoadingCache<Long, long[]> ownedServiceIds;
+
+    @Autowired
+    public AccessDecisionCache(UserHaveAccessToServiceRepository accessRepository,
+                               ServiceRepository serviceRepository,
+                               @Value("${sunpp.access-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${sunpp.access-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.accessRepository = accessRepository;
+        this.serviceRepository = serviceRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build(userId -> new UserDecisions());
+        this.owners = Caffeine.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build(this::loadOwner);
+        this.ownedServiceIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build(this::loadOwnedServiceIds);
+    }
+
+    /**
+     * Перевіряє, чи має користувач роль хоча б в одному сервісі
+     * @param userId Ідентифікатор користувача
+     * @param roleId Ідентифікатор ролі
+     * @return true, якщо має
+     */
+    public boolean hasRole(long userId, long roleId) {
+        return users.get(userId).decisions.computeIfAbsent(new RoleKey(roleId, null),
+                key -> ReadYourWrites.onPrimary(() -> accessRepository.existsByUserIdAndRoleId(userId, roleId)));
+    }
+
+    /**
+     * Перевіряє, чи має користувач роль у сервісі
+     * @param userId Ідентифікатор користувача
+     * @param roleId Ідентифікатор ролі
+     * @param serviceId Ідентифікатор сервісу
+     * @return true, якщо має
+     */
+    public boolean hasRoleInService(long userId, long roleId, long serviceId) {
+        return users.get(userId).decisions.computeIfAbsent(new RoleKey(roleId, serviceId),
+                key -> ReadYourWrites.onPrimary(() -> accessRepository.existsByUserIdAndRoleIdAndServiceId(userId, roleId, serviceId)));
+    }
+
+    /**
+     * Перевіряє, чи є користувач власником сервісу
+     * @param userId Ідентифікатор користувача
+     * @param serviceId Ідентифікатор сервісу
+     * @return true, якщо є
+     */
+    public boolean isOwnerOfService(long userId, long serviceId) {
+        return owners.get(serviceId) == userId;
+    }
+
+    /**
+     * Повертає власника сервісу
+     * @param serviceId Ідентифікатор сервісу
+     * @return Ідентифікатор власника, null якщо сервісу немає
+     */
+    public Long getOwnerUserId(long serviceId) {
+        long ownerId = owners.get(serviceId);
+        return ownerId != NO_OWNER ? ownerId : null;
+    }
+
+    /**
+     * Повертає ідентифікатори сервісів, у яких користувач має роль
+     * @param userId Ідентифікатор користувача
+     * @param roleId Ідентифікатор ролі
+     * @return Відсортований масив ідентифікаторів. Масив не можна змінювати
+     */
+    public long[] getServiceIds(long userId, long roleId) {
+        return users.get(userId).serviceIds.computeIfAbsent(roleId,
+                key -> toSortedArray(ReadYourWrites.onPrimary(() -> accessRepository.getServiceIdsByUserIdAndRoleId(userId, roleId))));
+    }
+
+    /**
+     * Повертає ідентифікатори сервісів власника
+     * @param userId Ідентифікатор власника
+     * @return Відсортований масив ідентифікаторів. Масив не можна змінювати
+     */
+    public long[] getOwnedServiceIds(long userId) {
+        return ownedServiceIds.get(userId);
+    }
+
+    /**
+     * Видаляє всі рішення про ролі користувача
+     * @param userId Ідентифікатор користувача
+     */
+    public void invalidateUser(Long userId) {
+        users.invalidate(userId);
+    }
+
+    /**
+     * Видаляє власника сервісу і списки сервісів попереднього і нового власника
+     * @param serviceId Ідентифікатор сервісу
+     * @param ownerUserId Ідентифікатор власника після зміни
+     */
+    public void invalidateService(Long serviceId, Long ownerUserId) {
+        Long previousOwnerId = owners.getIfPresent(serviceId);
+        owners.invalidate(serviceId);
+        if (previousOwnerId != null) {
+            ownedServiceIds.invalidate(previousOwnerId);
+        }
+        if (ownerUserId != null) {
+            ownedServiceIds.invalidate(ownerUserId);
+        }
+    }
+
+    /**
+     * Видаляє всі рішення
+     */
+    public void invalidateAll() {
+        users.invalidateAll();
+        owners.invalidateAll();
+        ownedServiceIds.invalidateAll();
+    }
+
+    private Long loadOwner(Long serviceId) {
+        Long ownerId = ReadYourWrites.onPrimary(() -> serviceRepository.getOwnerUserId(serviceId));
+        return ownerId != null ? ownerId : NO_OWNER;
+    }
+
+    private long[] loadOwnedServiceIds(Long userId) {
+        long[] ids = toSortedArray(ReadYourWrites.onPrimary(() -> serviceRepository.getIdsByOwnerUserId(userId)));
+        for (long serviceId : ids) {
+            owners.put(serviceId, userId);
+        }
+        return ids;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    /**
+     * Кешовані рішення про ролі одного користувача
+     */
+    private static final class UserDecisions {
+
+        private final Map<RoleKey, Boolean> decisions = new ConcurrentHashMap<>();
+
+        /**
+         * Ідентифікатор ролі - відсортовані ідентифікатори сервісів, у яких користувач має роль
+         */
+        private final Map<Long, long[]> serviceIds = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Ключ рішення про роль користувача
+     */
+    private static final class RoleKey {
+
+        private final long roleId;
+
+        /**
+         * @null для перевірки ролі в будь-якому сервісі
+         */
+        private final Long serviceId;
+
+        private RoleKey(long roleId, Long serviceId) {
+            this.roleId = roleId;
+            this.serviceId = serviceId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RoleKey)) return false;
+            RoleKey that = (RoleKey) o;
+            return roleId == that.roleId && Objects.equals(serviceId, that.serviceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(roleId) + Objects.hashCode(serviceId);
+        }
+    }
+}
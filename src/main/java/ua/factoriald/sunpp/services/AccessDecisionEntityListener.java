@@ -0,0 +1,67 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ua.factoriald.sunpp.model.ServiceEntity;
+import ua.factoriald.sunpp.model.UserHaveAccessToServiceEntity;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.function.Consumer;
+
+/**
+ * Слухач змін записів доступу і сервісів.
+ * Після зміни видаляє з {@link AccessDecisionCache} рішення про ролі користувача запису доступу
+ * чи власника сервісу.
+ *
+ * Як і в {@link ReferenceDataEntityListener}, рішення видаляються після підтвердження транзакції,
+ * інакше паралельний запит міг би знову закешувати старий стан.
+ */
+public class AccessDecisionEntityListener {
+
+    private final ObjectProvider<AccessDecisionCache> cacheProvider;
+
+    @Autowired
+    public AccessDecisionEntityListener(ObjectProvider<AccessDecisionCache> cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Runnable invalidation;
+        if (entity instanceof UserHaveAccessToServiceEntity) {
+            Long userId = ((UserHaveAccessToServiceEntity) entity).getUser().getId();
+            invalidation = () -> withCache(cache -> cache.invalidateUser(userId));
+        } else if (entity instanceof ServiceEntity) {
+            ServiceEntity service = (ServiceEntity) entity;
+            Long serviceId = service.getId();
+            Long ownerUserId = service.getOwnerUser() != null ? service.getOwnerUser().getId() : null;
+            invalidation = () -> withCache(cache -> cache.invalidateService(serviceId, ownerUserId));
+        } else {
+            invalidation = () -> withCache(AccessDecisionCache::invalidateAll);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    private void withCache(Consumer<AccessDecisionCache> action) {
+        AccessDecisionCache cache = cacheProvider.getIfAvailable();
+        if (cache != null) {
+            action.accept(cache);
+        }
+    }
+}
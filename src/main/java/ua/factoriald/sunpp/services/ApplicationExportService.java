@@ -0,0 +1,95 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ua.factoriald.sunpp.model.ApplicationEntity;
+import ua.factoriald.sunpp.model.ServiceEntity;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Вивантажує заявки у форматі NDJSON (один JSON-об'єкт заявки на рядок).
+ *
+ * Заявки читаються з бази даних порціями за ідентифікатором: одним запитом заявки порції, другим - всі їх
+ * записи перевірок. Після запису порції у відповідь контекст персистентності очищується,
+ * тому використання пам'яті і кількість запитів на заявку не залежать від кількості заявок.
+ */
+@Component
+public class ApplicationExportService {
+
+    /**
+     * Кількість заявок в порції. Після кожної порції повністю очищується контекст персистентності
+     * (разом з користувачами, сервісами і підрозділами, що завантажились для заявок)
+     */
+    private static final int PAGE_SIZE = 1000;
+
+    private final ApplicationRepository applicationRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter applicationWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ApplicationExportService(ApplicationRepository applicationRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper) {
+        this.applicationRepository = applicationRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.applicationWriter = objectMapper.writerFor(ApplicationEntity.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Створює тіло відповіді, що вивантажує всі заявки сервісу
+     * @param service Сервіс
+     * @return Тіло відповіді, що пишеться вже після виходу з методу контролера
+     */
+    public StreamingResponseBody exportByService(ServiceEntity service) {
+        return outputStream -> {
+            JsonGenerator generator = applicationWriter.getFactory().createGenerator(outputStream);
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            //розділювач між заявками пишемо самі, щоб кожна заявка закінчувалась переносом рядка
+            generator.setRootValueSeparator(null);
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try {
+                    long afterId = 0;
+                    List<ApplicationEntity> applications;
+                    do {
+                        applications = applicationRepository.getExportPageByService(
+                                service, afterId, PageRequest.of(0, PAGE_SIZE));
+                        if (applications.isEmpty()) {
+                            break;
+                        }
+                        applicationRepository.fetchCheckings(applications);
+                        for (ApplicationEntity application : applications) {
+                            applicationWriter.writeValue(generator, application);
+                            generator.writeRaw('\n');
+                        }
+                        afterId = applications.get(applications.size() - 1).getId();
+                        entityManager.clear();
+                        generator.flush();
+                    } while (applications.size() == PAGE_SIZE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.close();
+        };
+    }
+}
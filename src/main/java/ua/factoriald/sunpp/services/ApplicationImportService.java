@@ -0,0 +1,329 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.dto.ApplicationImportReport;
+import ua.factoriald.sunpp.model.dto.ApplicationImportRow;
+import ua.factoriald.sunpp.repository.DepartmentRepository;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.repository.UserHaveAccessToServiceRepository;
+import ua.factoriald.sunpp.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Імпортує багато заявок одним файлом CSV чи JSON, наприклад при підключенні нового підрозділу.
+ *
+ * Замість пошуку користувача, сервісу, ролі і підрозділу для кожного рядка ідентифікатори всіх користувачів,
+ * сервісів і підрозділів завантажуються один раз, і рядки перевіряються паралельно без звернень до бази даних.
+ * Правильні рядки записуються частинами, кожна частина в окремій транзакції. Зв'язки заявок задаються
+ * посиланнями без завантаження сутностей, а контекст персистентності очищується після кожної частини.
+ *
+ * Формат CSV: user_id,service_id,role_id,department_id,note (підрозділ і коментар опціональні, заголовок опціональний).
+ * Формат JSON: масив об'єктів з полями userId, serviceId, roleId, departmentId, note.
+ */
+@Component
+public class ApplicationImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicationImportService.class);
+
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private final ApplicationWorkflowService workflowService;
+    private final ReferenceDataRegistry referenceData;
+    private final UserRepository userRepository;
+    private final ServiceRepository serviceRepository;
+    private final DepartmentRepository departmentRepository;
+    private final UserHaveAccessToServiceRepository accessRepository;
+    private final ObjectReader rowReader;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxRows;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ApplicationImportService(ApplicationWorkflowService workflowService, ReferenceDataRegistry referenceData,
+                                    UserRepository userRepository, ServiceRepository serviceRepository,
+                                    DepartmentRepository departmentRepository,
+                                    UserHaveAccessToServiceRepository accessRepository,
+                                    ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                    @Value("${sunpp.import.chunk-size:500}") int chunkSize,
+                                    @Value("${sunpp.import.max-rows:50000}") int maxRows) {
+        this.workflowService = workflowService;
+        this.referenceData = referenceData;
+        this.userRepository = userRepository;
+        this.serviceRepository = serviceRepository;
+        this.departmentRepository = departmentRepository;
+        this.accessRepository = accessRepository;
+        this.rowReader = objectMapper.readerFor(ApplicationImportRow.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Імпортує заявки з файлу в сервіси адміністратора
+     * @param adminUser Адміністратор, що імпортує заявки
+     * @param body Вміст файлу
+     * @param contentType Тип вмісту: text/csv чи application/json
+     * @return Кількість створених заявок, швидкість імпорту і помилки по рядках
+     * @throws ResponseStatusException, якщо файл неможливо прочитати чи в ньому забагато рядків
+     */
+    public ApplicationImportReport importApplications(UserEntity adminUser, InputStream body, MediaType contentType)
+            throws ResponseStatusException {
+        long started = System.nanoTime();
+        List<ApplicationImportReport.RowError> errors = new ArrayList<>();
+        List<ApplicationImportRow> rows = readRowsOrThrow(body, contentType, errors);
+        //рядки, які не вдалося розібрати, вже записані в помилки
+        int totalRows = rows.size() + errors.size();
+
+        KnownIds knownIds = new KnownIds(
+                toSortedArray(userRepository.getAllIds()),
+                toSortedArray(accessRepository.getServiceIdsByUserIdAndRoleId(adminUser.getId(), RoleConstants.ADMIN)),
+                toSortedArray(serviceRepository.getAllIds()),
+                toSortedArray(departmentRepository.getAllIds()));
+
+        //перевірка не звертається до бази даних, тому рядки перевіряються паралельно
+        String[] rowErrors = new String[rows.size()];
+        IntStream.range(0, rows.size()).parallel()
+                .forEach(i -> rowErrors[i] = validate(rows.get(i), knownIds));
+        List<ApplicationImportRow> validRows = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (rowErrors[i] == null) {
+                validRows.add(rows.get(i));
+            } else {
+                errors.add(new ApplicationImportReport.RowError(rows.get(i).getRowNumber(), rowErrors[i]));
+            }
+        }
+
+        int imported = 0;
+        for (int from = 0; from < validRows.size(); from += chunkSize) {
+            List<ApplicationImportRow> chunk = validRows.subList(from, Math.min(from + chunkSize, validRows.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertChunk(chunk));
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                //частина відкочується повністю, тому помилка записується всім її рядкам
+                log.warn("Не вдалося записати частину імпорту з {} заявок", chunk.size(), e);
+                String error = "Помилка запису: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                for (ApplicationImportRow row : chunk) {
+                    errors.add(new ApplicationImportReport.RowError(row.getRowNumber(), error));
+                }
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        double rowsPerSecond = elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+        log.info("Імпортовано {} з {} заявок за {} мс ({} заявок/с)",
+                imported, totalRows, elapsedMillis, Math.round(rowsPerSecond));
+
+        errors.sort(Comparator.comparingInt(ApplicationImportReport.RowError::getRowNumber));
+        return new ApplicationImportReport(totalRows, imported, elapsedMillis, rowsPerSecond, errors);
+    }
+
+    private void insertChunk(List<ApplicationImportRow> chunk) {
+        for (ApplicationImportRow row : chunk) {
+            DepartmentEntity department = row.getDepartmentId() == null
+                    ? null
+                    : entityManager.getReference(DepartmentEntity.class, row.getDepartmentId());
+            ApplicationEntity application = workflowService.newApplication(
+                    entityManager.getReference(UserEntity.class, row.getUserId()),
+                    entityManager.getReference(ServiceEntity.class, row.getServiceId()),
+                    referenceData.getRole(row.getRoleId()),
+                    department,
+                    row.getNote());
+            entityManager.persist(application);
+            workflowService.appendCreatedEvent(application);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Перевіряє рядок за завантаженими ідентифікаторами
+     * @return Причина помилки
+     * @null якщо рядок правильний
+     */
+    private String validate(ApplicationImportRow row, KnownIds knownIds) {
+        if (row.getUserId() == null || Arrays.binarySearch(knownIds.userIds, row.getUserId()) < 0) {
+            return "Немає такого користувача";
+        }
+        if (row.getServiceId() == null || Arrays.binarySearch(knownIds.serviceIds, row.getServiceId()) < 0) {
+            return "Немає такого сервісу";
+        }
+        if (Arrays.binarySearch(knownIds.adminServiceIds, row.getServiceId()) < 0) {
+            return "Це не сервіс адміністратора";
+        }
+        if (row.getRoleId() == null || !referenceData.findRole(row.getRoleId()).isPresent()) {
+            return "Немає такої ролі";
+        }
+        if (!referenceData.isRoleAvailableForService(row.getServiceId(), row.getRoleId())) {
+            return "Сервіс не має такої ролі";
+        }
+        if (row.getDepartmentId() != null && Arrays.binarySearch(knownIds.departmentIds, row.getDepartmentId()) < 0) {
+            return "Немає такого підрозділу";
+        }
+        return null;
+    }
+
+    /**
+     * Читає рядки файлу. Рядки CSV, які неможливо розібрати, записуються в помилки і пропускаються
+     * @throws ResponseStatusException, якщо файл неможливо прочитати чи в ньому забагато рядків
+     */
+    private List<ApplicationImportRow> readRowsOrThrow(InputStream body, MediaType contentType,
+                                                       List<ApplicationImportReport.RowError> errors)
+            throws ResponseStatusException {
+        try {
+            if (contentType != null && contentType.isCompatibleWith(TEXT_CSV)) {
+                return readCsv(body, errors);
+            }
+            if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return readJson(body);
+            }
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Підтримуються тільки CSV і JSON");
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неправильний формат файлу", e);
+        }
+    }
+
+    private List<ApplicationImportRow> readJson(InputStream body) throws IOException {
+        List<ApplicationImportRow> rows = new ArrayList<>();
+        try (MappingIterator<ApplicationImportRow> iterator = rowReader.readValues(body)) {
+            while (iterator.hasNextValue()) {
+                ApplicationImportRow row = iterator.nextValue();
+                throwIfTooManyRows(rows.size() + 1);
+                row.setRowNumber(rows.size() + 1);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<ApplicationImportRow> readCsv(InputStream body, List<ApplicationImportReport.RowError> errors)
+            throws IOException {
+        List<ApplicationImportRow> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int rowNumber = 0;
+        boolean firstLine = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (firstLine) {
+                firstLine = false;
+                //прибираємо BOM і пропускаємо заголовок
+                if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1);
+                }
+                if (!line.isEmpty() && !Character.isDigit(line.trim().charAt(0))) {
+                    continue;
+                }
+            }
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            rowNumber++;
+            throwIfTooManyRows(rowNumber);
+
+            List<String> cells = splitCsvLine(line);
+            try {
+                if (cells.size() < 3 || cells.size() > 5) {
+                    throw new IllegalArgumentException();
+                }
+                ApplicationImportRow row = new ApplicationImportRow();
+                row.setRowNumber(rowNumber);
+                row.setUserId(Long.valueOf(cells.get(0).trim()));
+                row.setServiceId(Long.valueOf(cells.get(1).trim()));
+                row.setRoleId(Long.valueOf(cells.get(2).trim()));
+                if (cells.size() > 3 && !cells.get(3).trim().isEmpty()) {
+                    row.setDepartmentId(Long.valueOf(cells.get(3).trim()));
+                }
+                if (cells.size() > 4 && !cells.get(4).isEmpty()) {
+                    row.setNote(cells.get(4));
+                }
+                rows.add(row);
+            } catch (IllegalArgumentException e) {
+                errors.add(new ApplicationImportReport.RowError(rowNumber, "Неправильні дані"));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Розбиває рядок CSV на комірки. Комірки в лапках можуть містити коми і подвоєні лапки
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private void throwIfTooManyRows(int rows) throws ResponseStatusException {
+        if (rows > maxRows) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Забагато рядків, найбільше " + maxRows);
+        }
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * Відсортовані ідентифікатори для перевірки рядків. Масиви тільки читаються, тому їх можна перевіряти з кількох потоків
+     */
+    private static final class KnownIds {
+
+        private final long[] userIds;
+        private final long[] adminServiceIds;
+        private final long[] serviceIds;
+        private final long[] departmentIds;
+
+        private KnownIds(long[] userIds, long[] adminServiceIds, long[] serviceIds, long[] departmentIds) {
+            this.userIds = userIds;
+            this.adminServiceIds = adminServiceIds;
+            this.serviceIds = serviceIds;
+            this.departmentIds = departmentIds;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ua.factoriald.sunpp.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.CheckTypeConstants;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Заповнює етап розгляду ({@link ua.factoriald.sunpp.model.ApplicationEntity#getStatus()})
+ * для заявок, створених до появи цього поля.
+ *
+ * Етап обчислюється з записів перевірок. Заявки обробляються діапазонами ідентифікаторів,
+ * кожен діапазон в окремій транзакції, щоб не тримати довгих блокувань таблиці APPLICATIONS.
+ * Запускається при старті застосунку, заявки з уже заповненим етапом не змінюються.
+ */
+@Component
+public class ApplicationStatusBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicationStatusBackfillJob.class);
+
+    private final ApplicationRepository applicationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long batchSize;
+
+    @Autowired
+    public ApplicationStatusBackfillJob(ApplicationRepository applicationRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${sunpp.status-backfill.batch-size:10000}") long batchSize) {
+        this.applicationRepository = applicationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Запускає заповнення при старті застосунку, до інших задач, що читають етап заявок
+     */
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfill();
+    }
+
+    /**
+     * Заповнює етап розгляду всім заявкам, у яких він ще не заповнений
+     * @return Кількість оновлених заявок
+     */
+    public long backfill() {
+        List<Object[]> range = applicationRepository.getIdRangeWithoutStatus();
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return 0;
+        }
+        long minId = (Long) range.get(0)[0];
+        long maxId = (Long) range.get(0)[1];
+
+        long updated = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += batchSize) {
+            long toId = Math.min(fromId + batchSize - 1, maxId);
+            updated += backfillRange(fromId, toId);
+        }
+        log.info("Заповнено етап розгляду для {} заявок", updated);
+        return updated;
+    }
+
+    private int backfillRange(long fromId, long toId) {
+        Integer updated = transactionTemplate.execute(status -> {
+            //порядок важливий: кожен наступний запит бачить тільки заявки, яким етап ще не записаний
+            int count = applicationRepository.backfillStatusByChecking(ApplicationStatus.DECLINED,
+                    CheckTypeConstants.CHECKING_RECORD, Arrays.asList(RoleConstants.OWNER, RoleConstants.ADMIN),
+                    false, fromId, toId);
+            count += applicationRepository.backfillStatusByChecking(ApplicationStatus.ACCEPTED,
+                    CheckTypeConstants.CHECKING_RECORD, Collections.singletonList(RoleConstants.ADMIN),
+                    true, fromId, toId);
+            count += applicationRepository.backfillStatusByChecking(ApplicationStatus.WAITING_FOR_ADMIN,
+                    CheckTypeConstants.CHECKING_RECORD, Collections.singletonList(RoleConstants.OWNER),
+                    true, fromId, toId);
+            count += applicationRepository.backfillRemainingStatus(ApplicationStatus.WAITING_FOR_OWNER, fromId, toId);
+            return count;
+        });
+        return updated == null ? 0 : updated;
+    }
+}
@@ -0,0 +1,24 @@
+package ua.factoriald.sunpp.services;
+
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+
+/**
+ * Подія застосунку про перехід заявки, яку публікує {@link ApplicationWorkflowService}.
+ * Слухачі, яким потрібні тільки підтверджені зміни, мають використовувати
+ * {@link org.springframework.transaction.event.TransactionalEventListener}
+ */
+public class ApplicationTransitionEvent {
+
+    private final WorkflowEventEntity event;
+
+    public ApplicationTransitionEvent(WorkflowEventEntity event) {
+        this.event = event;
+    }
+
+    /**
+     * @return Записана у вихідну чергу подія
+     */
+    public WorkflowEventEntity getEvent() {
+        return event;
+    }
+}
@@ -0,0 +1,402 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.CheckTypeConstants;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+import ua.factoriald.sunpp.model.dto.BulkDecisionResult;
+import ua.factoriald.sunpp.repository.ApplicationCheckingRepository;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+import ua.factoriald.sunpp.repository.UserHaveAccessToServiceRepository;
+import ua.factoriald.sunpp.repository.WorkflowEventRepository;
+import ua.factoriald.sunpp.util.LongHashMap;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Клас змінює стан заявок: створення, рішення власника і рішення адміністратора.
+ *
+ * Кожен метод виконується в одній транзакції, тому записи перевірок, етап заявки
+ * ({@link ApplicationEntity#getStatus()}) і подія у вихідній черзі ({@link WorkflowEventEntity}) завжди змінюються разом.
+ * Перевірку прав користувача потрібно зробити до виклику цих методів.
+ */
+@Component
+public class ApplicationWorkflowService {
+
+    /**
+     * Найбільша кількість заявок в одному груповому рішенні
+     */
+    public static final int MAX_BULK_SIZE = 500;
+
+    private final DataProcessService dataService;
+    private final ReferenceDataRegistry referenceData;
+    private final ApplicationRepository applicationRepository;
+    private final ApplicationCheckingRepository checkingRepository;
+    private final UserHaveAccessToServiceRepository accessRepository;
+    private final WorkflowEventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ApplicationWorkflowService(DataProcessService dataService, ReferenceDataRegistry referenceData, ApplicationRepository applicationRepository, ApplicationCheckingRepository checkingRepository, UserHaveAccessToServiceRepository accessRepository, WorkflowEventRepository eventRepository, ApplicationEventPublisher eventPublisher) {
+        this.dataService = dataService;
+        this.referenceData = referenceData;
+        this.applicationRepository = applicationRepository;
+        this.checkingRepository = checkingRepository;
+        this.accessRepository = accessRepository;
+        this.eventRepository = eventRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Створює заявку з трьома записами перевірок: користувача, власника і адміністратора
+     * @param user Користувач-заявляч
+     * @param service Потрібний сервіс
+     * @param role Потрібна роль
+     * @param department Підрозділ (опціонально)
+     * @param note Коментар (опціонально)
+     * @return Збережена заявка
+     */
+    @Transactional
+    public ApplicationEntity createApplication(UserEntity user, ServiceEntity service, RoleEntity role,
+                                               DepartmentEntity department, String note) {
+        //зберігаємо заявку і повертаємо
+        ApplicationEntity application = applicationRepository.saveAndFlush(newApplication(user, service, role, department, note));
+        appendCreatedEvent(application);
+        return application;
+    }
+
+    /**
+     * Записує у вихідну чергу подію створення заявки. Викликається в транзакції, що зберегла заявку
+     * @param application Збережена заявка, створена {@link #newApplication}
+     */
+    public void appendCreatedEvent(ApplicationEntity application) {
+        ApplicationCheckingEntity userCheckRecord = getUserCheckRecord(application);
+        appendEvent(WorkflowEventType.CREATED, application, application.getApplicant(),
+                userCheckRecord.getRole(), userCheckRecord.getNote(), application.getCreationDate());
+    }
+
+    /**
+     * Створює, але не зберігає заявку з трьома записами перевірок. Записи перевірок зберігаються разом із заявкою.
+     * Користувач, сервіс і підрозділ можуть бути посиланнями без завантаження ({@link javax.persistence.EntityManager#getReference})
+     * @param user Користувач-заявляч
+     * @param service Потрібний сервіс
+     * @param role Потрібна роль
+     * @param department Підрозділ (опціонально)
+     * @param note Коментар (опціонально)
+     * @return Нова заявка
+     */
+    public ApplicationEntity newApplication(UserEntity user, ServiceEntity service, RoleEntity role,
+                                            DepartmentEntity department, String note) {
+        //Створюємо заявку
+        ApplicationEntity application = new ApplicationEntity();
+        //Вписуємо користувача
+        application.setApplicant(user);
+        //Вписуємо дату створення
+        application.setCreationDate(new Timestamp(new Date().getTime()));
+        //Вписуємо сервіс
+        application.setService(service);
+        //Вписуємо підрозділ (опціонально)
+        if(department != null){
+            application.setDepartment(department);
+        }
+        //Заявка очікує рішення власника
+        application.setStatus(ApplicationStatus.WAITING_FOR_OWNER);
+        application.setStatusDate(application.getCreationDate());
+
+        //Створюємо запис перевірки користувача
+        ApplicationCheckingEntity userChecking = new ApplicationCheckingEntity();
+        //Вписуємо тип запису
+        userChecking.setCheckType(referenceData.getCheckType(CheckTypeConstants.USER_APPLICATION_RECORD));
+        //Вписуємо заявку
+        userChecking.setApplication(application);
+        //Вписуємо заявника
+        userChecking.setUser(user);
+        //Вписуємо роль заявника
+        userChecking.setRole(role);
+        //Вписуємо факт того, що він бачив цю заявку
+        userChecking.setCheckYesNoNull(true);
+        //Вписуємо дату створення
+        userChecking.setCheckingDate(application.getCreationDate());
+        //Вписуємо коментар (опціонально)
+        if(note != null){
+            userChecking.setNote(note);
+        }
+
+        //Створюємо запис перевірки власника
+        ApplicationCheckingEntity ownerChecking = new ApplicationCheckingEntity();
+        //Вписуємо тип запису
+        ownerChecking.setCheckType(referenceData.getCheckType(CheckTypeConstants.CHECKING_RECORD));
+        //Вписуємо заявку
+        ownerChecking.setApplication(application);
+        //Вписуємо роль власника
+        ownerChecking.setRole(referenceData.getRole(RoleConstants.OWNER));
+        //Вписуємо факт того, що власник не бачив цю заявку
+        ownerChecking.setCheckYesNoNull(null);
+
+        //Створюємо запис перевірки адміна
+        ApplicationCheckingEntity adminChecking = new ApplicationCheckingEntity();
+        //Вписуємо тип запису
+        adminChecking.setCheckType(referenceData.getCheckType(CheckTypeConstants.CHECKING_RECORD));
+        //Вписуємо заявку
+        adminChecking.setApplication(application);
+        //Вписуємо роль власника
+        adminChecking.setRole(referenceData.getRole(RoleConstants.ADMIN));
+        //Вписуємо факт того, що aдмін не бачив цю заявку
+        adminChecking.setCheckYesNoNull(null);
+
+        //додаємо записи до заявки
+        application.setCheckings(new ArrayList<>(Arrays.asList(
+                userChecking,ownerChecking,adminChecking)));
+
+        return application;
+    }
+
+    /**
+     * Записує рішення власника по заявці
+     * @param ownerUser Власник, що перевіряє заявку
+     * @param application Заявка
+     * @param accepted true, якщо власник приймає заявку, false - якщо відхиляє
+     * @param note Коментар (опціонально)
+     * @throws ResponseStatusException, якщо заявка не очікує рішення власника
+     */
+    @Transactional
+    public void decideByOwner(UserEntity ownerUser, ApplicationEntity application, boolean accepted, String note)
+            throws ResponseStatusException {
+        ApplicationCheckingEntity ownerCheckRecord = dataService
+                .checkApplicationReadyForOwnerAndGetCheckingOrThrow(application);
+        applyOwnerDecision(ownerUser, application, ownerCheckRecord, accepted, note, new Timestamp(new Date().getTime()));
+        applicationRepository.flush();
+    }
+
+    /**
+     * Записує рішення адміністратора по заявці. Якщо адміністратор приймає заявку, то створюється запис доступу
+     * @param adminUser Адміністратор, що перевіряє заявку
+     * @param application Заявка
+     * @param accepted true, якщо адміністратор приймає заявку, false - якщо відхиляє
+     * @param note Коментар (опціонально)
+     * @throws ResponseStatusException, якщо заявка не очікує рішення адміністратора
+     */
+    @Transactional
+    public void decideByAdmin(UserEntity adminUser, ApplicationEntity application, boolean accepted, String note)
+            throws ResponseStatusException {
+        HashMap<String, ApplicationCheckingEntity> checkings =
+                dataService.checkApplicationReadyForAdminAndGetCheckingsOrThrow(application);
+        applyAdminDecision(adminUser, application, checkings, accepted, note, new Timestamp(new Date().getTime()));
+        applicationRepository.flush();
+    }
+
+    /**
+     * Записує однакове рішення власника по кількох заявках в одній транзакції.
+     * Заявки завантажуються одним запитом, зміни записуються пакетами при завершенні транзакції.
+     * Заявки, що не належать сервісам власника чи не очікують його рішення, пропускаються з причиною в результаті
+     * @param ownerUser Власник, що перевіряє заявки
+     * @param applicationIds Ідентифікатори заявок
+     * @param accepted true, якщо власник приймає заявки, false - якщо відхиляє
+     * @param note Коментар (опціонально)
+     * @return Результат по кожній заявці в порядку запиту
+     * @throws ResponseStatusException, якщо список заявок порожній чи завеликий
+     */
+    @Transactional
+    public List<BulkDecisionResult> decideByOwnerInBulk(UserEntity ownerUser, List<Long> applicationIds,
+                                                        boolean accepted, String note) throws ResponseStatusException {
+        Collection<Long> ids = getBulkIdsOrThrow(applicationIds);
+        LongHashMap<ApplicationEntity> applications = LongHashMap.indexBy(
+                applicationRepository.getAllForDecisionByIdIn(ids), ApplicationEntity::getId);
+        Timestamp now = new Timestamp(new Date().getTime());
+
+        List<BulkDecisionResult> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ApplicationEntity application = applications.get(id);
+            if (application == null) {
+                results.add(BulkDecisionResult.rejected(id, "Немає такої заявки"));
+            } else if (!ownerUser.getId().equals(application.getService().getOwnerUser().getId())) {
+                results.add(BulkDecisionResult.rejected(id, "Це не сервіс власника"));
+            } else {
+                try {
+                    ApplicationCheckingEntity ownerCheckRecord = dataService
+                            .checkApplicationReadyForOwnerAndGetCheckingOrThrow(application);
+                    applyOwnerDecision(ownerUser, application, ownerCheckRecord, accepted, note, now);
+                    results.add(BulkDecisionResult.applied(id));
+                } catch (ResponseStatusException e) {
+                    results.add(BulkDecisionResult.rejected(id, e.getReason()));
+                }
+            }
+        }
+        applicationRepository.flush();
+        return results;
+    }
+
+    /**
+     * Записує однакове рішення адміністратора по кількох заявках в одній транзакції.
+     * Сервіси адміністратора і заявки завантажуються двома запитами, зміни записуються пакетами при завершенні транзакції.
+     * Заявки, що не належать сервісам адміністратора чи не очікують його рішення, пропускаються з причиною в результаті
+     * @param adminUser Адміністратор, що перевіряє заявки
+     * @param applicationIds Ідентифікатори заявок
+     * @param accepted true, якщо адміністратор приймає заявки, false - якщо відхиляє
+     * @param note Коментар (опціонально)
+     * @return Результат по кожній заявці в порядку запиту
+     * @throws ResponseStatusException, якщо список заявок порожній чи завеликий
+     */
+    @Transactional
+    public List<BulkDecisionResult> decideByAdminInBulk(UserEntity adminUser, List<Long> applicationIds,
+                                                        boolean accepted, String note) throws ResponseStatusException {
+        Collection<Long> ids = getBulkIdsOrThrow(applicationIds);
+        Set<Long> adminServiceIds = new HashSet<>(
+                accessRepository.getServiceIdsByUserIdAndRoleId(adminUser.getId(), RoleConstants.ADMIN));
+        LongHashMap<ApplicationEntity> applications = LongHashMap.indexBy(
+                applicationRepository.getAllForDecisionByIdIn(ids), ApplicationEntity::getId);
+        Timestamp now = new Timestamp(new Date().getTime());
+
+        List<BulkDecisionResult> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ApplicationEntity application = applications.get(id);
+            if (application == null) {
+                results.add(BulkDecisionResult.rejected(id, "Немає такої заявки"));
+            } else if (!adminServiceIds.contains(application.getService().getId())) {
+                results.add(BulkDecisionResult.rejected(id, "Це не сервіс адміністратора"));
+            } else {
+                try {
+                    HashMap<String, ApplicationCheckingEntity> checkings =
+                            dataService.checkApplicationReadyForAdminAndGetCheckingsOrThrow(application);
+                    applyAdminDecision(adminUser, application, checkings, accepted, note, now);
+                    results.add(BulkDecisionResult.applied(id));
+                } catch (ResponseStatusException e) {
+                    results.add(BulkDecisionResult.rejected(id, e.getReason()));
+                }
+            }
+        }
+        applicationRepository.flush();
+        return results;
+    }
+
+    private void applyOwnerDecision(UserEntity ownerUser, ApplicationEntity application,
+                                    ApplicationCheckingEntity ownerCheckRecord, boolean accepted, String note,
+                                    Timestamp now) {
+        //Власник, що перевірив заявку
+        ownerCheckRecord.setUser(ownerUser);
+        //Запис факту підтвердження чи відхилення заявки
+        ownerCheckRecord.setCheckYesNoNull(accepted);
+        //Дата перевірки заявки
+        ownerCheckRecord.setCheckingDate(now);
+        //Опціональний коментар
+        if(note != null){
+            ownerCheckRecord.setNote(note);
+        }
+        //Зберігаємо запис перевірки
+        checkingRepository.save(ownerCheckRecord);
+
+        //Переводимо заявку на наступний етап
+        application.setStatus(accepted ? ApplicationStatus.WAITING_FOR_ADMIN : ApplicationStatus.DECLINED);
+        application.setStatusDate(now);
+        applicationRepository.save(application);
+
+        appendEvent(accepted ? WorkflowEventType.OWNER_ACCEPTED : WorkflowEventType.OWNER_DECLINED,
+                application, ownerUser, getUserCheckRecord(application).getRole(), note, now);
+    }
+
+    private void applyAdminDecision(UserEntity adminUser, ApplicationEntity application,
+                                    HashMap<String, ApplicationCheckingEntity> checkings, boolean accepted, String note,
+                                    Timestamp now) {
+        ApplicationCheckingEntity adminCheckRecord = checkings.get("adminCheckRecord");
+        ApplicationCheckingEntity userCheckRecord = checkings.get("userCheckRecord");
+
+        //Адмін, що перевірив заявку
+        adminCheckRecord.setUser(adminUser);
+        //Запис факту підтвердження чи відхилення заявки
+        adminCheckRecord.setCheckYesNoNull(accepted);
+        //Дата перевірки заявки
+        adminCheckRecord.setCheckingDate(now);
+        //Опціональний коментар
+        if(note != null){
+            adminCheckRecord.setNote(note);
+        }
+        //Зберігаємо запис перевірки
+        checkingRepository.save(adminCheckRecord);
+
+        //Переводимо заявку на останній етап
+        application.setStatus(accepted ? ApplicationStatus.ACCEPTED : ApplicationStatus.DECLINED);
+        application.setStatusDate(now);
+        applicationRepository.save(application);
+
+        if(accepted){
+            //Створюємо запис доступу
+            UserHaveAccessToServiceEntity accessRecord = new UserHaveAccessToServiceEntity();
+            //Вписуємо користувача
+            accessRecord.setUser(application.getApplicant());
+            //Вписуємо сервіс
+            accessRecord.setService(application.getService());
+            //Вписуємо роль
+            accessRecord.setRole(userCheckRecord.getRole());
+            //Вписуємо підрозділ (опціонально)
+            if(application.getDepartment() != null){
+                accessRecord.setDepartment(application.getDepartment());
+            }
+            //Зберігаємо запис доступу
+            accessRepository.save(accessRecord);
+        }
+
+        appendEvent(accepted ? WorkflowEventType.ADMIN_ACCEPTED : WorkflowEventType.ADMIN_DECLINED,
+                application, adminUser, userCheckRecord.getRole(), note, now);
+    }
+
+    /**
+     * Записує перехід заявки у вихідну чергу подій і публікує його для слухачів у застосунку
+     */
+    private void appendEvent(WorkflowEventType type, ApplicationEntity application, UserEntity actor,
+                             RoleEntity role, String note, Timestamp now) {
+        WorkflowEventEntity event = new WorkflowEventEntity();
+        event.setType(type);
+        event.setStatus(application.getStatus());
+        event.setEventDate(now);
+        event.setApplicationId(application.getId());
+        event.setServiceId(application.getService().getId());
+        event.setApplicantId(application.getApplicant().getId());
+        event.setRoleId(role == null ? null : role.getId());
+        if(application.getDepartment() != null){
+            event.setDepartmentId(application.getDepartment().getId());
+        }
+        event.setActorUserId(actor.getId());
+        event.setNote(note);
+        eventRepository.save(event);
+        eventPublisher.publishEvent(new ApplicationTransitionEvent(event));
+    }
+
+    /**
+     * @return Запис перевірки користувача, в якому збережені потрібна роль і коментар заявляча
+     */
+    private ApplicationCheckingEntity getUserCheckRecord(ApplicationEntity application) {
+        for (ApplicationCheckingEntity check : application.getCheckings()) {
+            if (check.getCheckType().getId() == CheckTypeConstants.USER_APPLICATION_RECORD) {
+                return check;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Заявка не має запису користувача");
+    }
+
+    /**
+     * Перевіряє список заявок групового запиту і прибирає повтори
+     * @param applicationIds Ідентифікатори заявок з запиту
+     * @return Ідентифікатори без повторів у порядку запиту
+     * @throws ResponseStatusException, якщо список порожній, завеликий чи містить порожні значення
+     */
+    private Collection<Long> getBulkIdsOrThrow(List<Long> applicationIds) throws ResponseStatusException {
+        if(applicationIds == null || applicationIds.isEmpty()){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не вказані заявки");
+        }
+        if(applicationIds.size() > MAX_BULK_SIZE){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Забагато заявок, найбільше " + MAX_BULK_SIZE);
+        }
+        if(applicationIds.contains(null)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неправильний ідентифікатор заявки");
+        }
+        return new LinkedHashSet<>(applicationIds);
+    }
+}
@@ -0,0 +1,192 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
+import ua.factoriald.sunpp.serialization.ResponseFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кеш вже серіалізованих відповідей довідників (сервіси, підрозділи, посади).
+ *
+ * Відповідь зберігається як байти у форматі з Accept ({@link ResponseFormat}) і, якщо вона достатньо велика,
+ * ще й як стиснуті gzip байти, тож при попаданні в кеш не виконується ні запит до бази даних, ні серіалізація.
+ * Кожен формат кешується окремо. Ключ містить ETag з {@link VersionStamps}, тому після зміни сервісів, ролей,
+ * підрозділів чи посад старий запис більше не знаходиться і видаляється при першому ж промаху по цьому ресурсу.
+ * Розмір кешу обмежений сумарною кількістю байтів, а час життя записів (sunpp.catalog-cache.ttl-millis)
+ * узгоджений з регіонами довідників у кеші другого рівня: довідники змінюються в обхід застосунку,
+ * і такі зміни видно після кінця часу життя навіть з тим самим ETag.
+ * Дані при промаху читаються з основної бази ({@link ReadYourWrites#forcePrimary()}), бо ETag уже новий.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private static final String GZIP = "gzip";
+
+    private final Map<ResponseFormat, ObjectMapper> objectMappers = new EnumMap<>(ResponseFormat.class);
+    private final boolean gzipEnabled;
+    private final int gzipMinBytes;
+    private final Cache<CatalogKey, CatalogResponse> responses;
+
+    @Autowired
+    public CatalogResponseCache(ObjectMapper objectMapper,
+                                MappingJackson2CborHttpMessageConverter cborConverter,
+                                MappingJackson2SmileHttpMessageConverter smileConverter,
+                                @Value("${sunpp.catalog-cache.maximum-bytes:16777216}") long maximumBytes,
+                                @Value("${sunpp.catalog-cache.gzip:true}") boolean gzipEnabled,
+                                @Value("${sunpp.catalog-cache.gzip-min-bytes:1024}") int gzipMinBytes,
+                                @Value("${sunpp.catalog-cache.ttl-millis:600000}") long ttlMillis) {
+        this.objectMappers.put(ResponseFormat.JSON, objectMapper);
+        this.objectMappers.put(ResponseFormat.CBOR, cborConverter.getObjectMapper());
+        this.objectMappers.put(ResponseFormat.SMILE, smileConverter.getObjectMapper());
+        this.gzipEnabled = gzipEnabled;
+        this.gzipMinBytes = gzipMinBytes;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((CatalogKey key, CatalogResponse response) -> response.getWeight())
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Повертає відповідь з кешу або завантажує дані, серіалізує їх і кешує
+     * @param resource Назва ресурсу, наприклад "service/all"
+     * @param etag Поточний ETag ресурсу у форматі запиту ({@link ResponseFormat#tag(String)})
+     * @param request Запит, з якого беруться Accept і Accept-Encoding
+     * @param loader Завантаження даних при промаху
+     * @return Відповідь з байтами у форматі з Accept, стиснутими, якщо клієнт приймає gzip
+     */
+    public ResponseEntity<byte[]> getResponse(String resource, String etag, WebRequest request, Supplier<?> loader) {
+        ResponseFormat format = ResponseFormat.of(request);
+        CatalogKey key = new CatalogKey(resource, format, etag);
+        CatalogResponse response = responses.getIfPresent(key);
+        if (response == null) {
+            //записи попередніх версій ресурсу вже не знайдуться, тому вони видаляються одразу
+            responses.asMap().keySet().removeIf(cached -> cached.resource.equals(resource)
+                    && cached.format == format && !cached.etag.equals(etag));
+            response = responses.get(key, k -> serialize(format, ReadYourWrites.onPrimary(loader)));
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (response.getGzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(response.getGzip());
+        }
+        return builder.body(response.getBody());
+    }
+
+    private CatalogResponse serialize(ResponseFormat format, Object value) {
+        byte[] body;
+        try {
+            body = objectMappers.get(format).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Не вдалося сформувати відповідь", e);
+        }
+        byte[] gzip = gzipEnabled && body.length >= gzipMinBytes ? gzip(body) : null;
+        return new CatalogResponse(body, gzip);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Серіалізована відповідь
+     */
+    private static final class CatalogResponse {
+
+        private final byte[] body;
+
+        /**
+         * @null якщо стиснення вимкнене чи відповідь замала
+         */
+        private final byte[] gzip;
+
+        private CatalogResponse(byte[] body, byte[] gzip) {
+            this.body = body;
+            this.gzip = gzip;
+        }
+
+        private byte[] getBody() {
+            return body;
+        }
+
+        private byte[] getGzip() {
+            return gzip;
+        }
+
+        private int getWeight() {
+            return body.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    /**
+     * Ключ відповіді: ресурс, формат і версія
+     */
+    private static final class CatalogKey {
+
+        private final String resource;
+        private final ResponseFormat format;
+        private final String etag;
+
+        private CatalogKey(String resource, ResponseFormat format, String etag) {
+            this.resource = resource;
+            this.format = format;
+            this.etag = etag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CatalogKey)) return false;
+            CatalogKey that = (CatalogKey) o;
+            return resource.equals(that.resource) && format == that.format && etag.equals(that.etag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resource, format, etag);
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package ua.factoriald.sunpp.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
 import ua.factoriald.sunpp.model.constants.CheckTypeConstants;
 import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.dto.ApplicationCursor;
+import ua.factoriald.sunpp.model.dto.CursorPage;
 import ua.factoriald.sunpp.repository.*;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -25,25 +31,54 @@ import java.util.Optional;
 @Component
 public class DataProcessService {
 
+    /**
+     * Розмір сторінки заявок, якщо клієнт його не вказав
+     */
+    public static final int DEFAULT_PAGE_LIMIT = 50;
+
+    /**
+     * Найбільший дозволений розмір сторінки заявок
+     */
+    public static final int MAX_PAGE_LIMIT = 500;
+
     private final UserRepository userRepository;
-    private final UserHaveAccessToServiceRepository accessRepository;
-    private final RoleRepository roleRepository;
     private final ServiceRepository serviceRepository;
     private final ApplicationRepository applicationRepository;
     private final WorkerRepository workerRepository;
     private final DepartmentRepository departmentRepository;
-    private final CheckTypeRepository checkTypeRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final AccessDecisionCache accessDecisions;
 
     @Autowired
-    public DataProcessService(UserRepository userRepository, UserHaveAccessToServiceRepository accessRepository, RoleRepository roleRepository, ServiceRepository serviceRepository, ApplicationRepository applicationRepository, WorkerRepository workerRepository, DepartmentRepository departmentRepository, CheckTypeRepository checkTypeRepository) {
+    public DataProcessService(UserRepository userRepository, ServiceRepository serviceRepository, ApplicationRepository applicationRepository, WorkerRepository workerRepository, DepartmentRepository departmentRepository, ReferenceDataRegistry referenceData, AccessDecisionCache accessDecisions) {
         this.userRepository = userRepository;
-        this.accessRepository = accessRepository;
-        this.roleRepository = roleRepository;
         this.serviceRepository = serviceRepository;
         this.applicationRepository = applicationRepository;
         this.workerRepository = workerRepository;
         this.departmentRepository = departmentRepository;
-        this.checkTypeRepository = checkTypeRepository;
+        this.referenceData = referenceData;
+        this.accessDecisions = accessDecisions;
+    }
+
+    /**
+     * Перевіряє, чи має користувач роль, не завантажуючи користувача.
+     * Для відповіді з помилкою потрібно далі викликати {@link #getUserWithRoleOrThrow(Long, RoleEntity)}
+     * @param userId Ідентифікатор користувача
+     * @param role Потрібна роль користувача
+     * @return true, якщо має
+     */
+    public boolean hasRole(Long userId, RoleEntity role) {
+        return accessDecisions.hasRole(userId, role.getId());
+    }
+
+    /**
+     * Перевіряє, чи є користувач власником сервісу, не завантажуючи користувача і сервіс
+     * @param userId Ідентифікатор користувача
+     * @param serviceId Ідентифікатор сервісу
+     * @return true, якщо є
+     */
+    public boolean isOwnerOfService(Long userId, Long serviceId) {
+        return accessDecisions.isOwnerOfService(userId, serviceId);
     }
 
     /**
@@ -59,7 +94,7 @@ public class DataProcessService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Немає такого користувача");
         }else{
             UserEntity user = userOpt.get();
-            if(accessRepository.getAllByUserAndRole(user, role).size() == 0){
+            if(!accessDecisions.hasRole(user.getId(), role.getId())){
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Цей користувач не має потрібних прав");
             }else{
                 //Все в порядку, цей користувач існує і в нього є потрібні права
@@ -133,7 +168,7 @@ public class DataProcessService {
      * @throws ResponseStatusException, якщо такої ролі немає
      */
     public RoleEntity getRoleOrThrow(Long roleId) throws ResponseStatusException {
-        Optional<RoleEntity> roleOpt = roleRepository.findById(roleId);
+        Optional<RoleEntity> roleOpt = referenceData.findRole(roleId);
         if(!roleOpt.isPresent()){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Немає такої ролі");
         }
@@ -162,8 +197,7 @@ public class DataProcessService {
      */
     public void throwIfServiceNotOfOwner(ServiceEntity service, UserEntity user) throws ResponseStatusException {
 
-        List<ServiceEntity> ownerServices = serviceRepository.getAllByOwnerUser(user);
-        if(!ownerServices.contains(service)){
+        if(!accessDecisions.isOwnerOfService(user.getId(), service.getId())){
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Це не сервіс власника");
         }
     }
@@ -176,38 +210,29 @@ public class DataProcessService {
      */
     public void throwIfServiceNotOfAdmin(ServiceEntity service, UserEntity user) throws ResponseStatusException {
 
-        List<UserHaveAccessToServiceEntity> accesses = accessRepository.getAllByUserAndRole(
-                user,
-                roleRepository.findById(RoleConstants.ADMIN).get());
-        for (UserHaveAccessToServiceEntity access: accesses
-             ) {
-            if(access.getService().equals(service)){
-                return;
-            }
+        if(!accessDecisions.hasRoleInService(user.getId(), RoleConstants.ADMIN, service.getId())){
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Це не сервіс адміністратора");
         }
-        throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Це не сервіс адміністратора");
     }
 
     /**
-     * Повертає список заявок, які не перевірялись власником
-     * @param allApplications Початковий список заявок, з якого будуть вибиратися потрібні
+     * Повертає заявки по всім сервісам власника, які не перевірялись власником.
+     * Відбір робиться в базі даних по етапу розгляду заявки, тому не завантажуються вже перевірені заявки
+     * @param owner Власник сервісів
      * @return Список заявок
      */
-    public List<ApplicationEntity> getRefreshedApplicationsForOwner(List<ApplicationEntity> allApplications){
-
-        List<ApplicationEntity> refreshedApplications = new ArrayList<>();
+    public List<ApplicationEntity> getRefreshedApplicationsForOwner(UserEntity owner){
+        return applicationRepository.getAllByServiceOwnerUserAndStatus(owner, ApplicationStatus.WAITING_FOR_OWNER);
+    }
 
-        for (ApplicationEntity app: allApplications) {//дивимося на заявки
-            for (ApplicationCheckingEntity check: app.getCheckings() ) {//дивимося на записи заявок
-                if (check.getCheckType().equals(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get()) &&
-                        check.getRole().equals(roleRepository.findById(RoleConstants.OWNER).get()) &&
-                        check.getCheckYesNoNull() == null ){//якщо це запис потрібної ролі, і він не перевірений
-                    refreshedApplications.add(app);
-                    break;
-                }
-            }
-        }
-        return refreshedApplications;
+    /**
+     * Повертає заявки одного сервісу, які не перевірялись власником.
+     * Відбір робиться в базі даних по етапу розгляду заявки, тому не завантажуються вже перевірені заявки
+     * @param service Сервіс власника
+     * @return Список заявок
+     */
+    public List<ApplicationEntity> getRefreshedApplicationsForOwner(ServiceEntity service){
+        return applicationRepository.getAllByServiceAndStatus(service, ApplicationStatus.WAITING_FOR_OWNER);
     }
 
     /**
@@ -216,46 +241,18 @@ public class DataProcessService {
      * @return Список заявок
      */
     public List<ApplicationEntity> getAllApplicationsForAdmin(UserEntity admin){
-        List<UserHaveAccessToServiceEntity> accesses = accessRepository.getAllByUserAndRole(admin,
-                roleRepository.findById(RoleConstants.ADMIN).get()
-        );
-        List<ApplicationEntity> applications = new ArrayList<>();
-        for (UserHaveAccessToServiceEntity access: accesses) {
-            applications.addAll(applicationRepository.getAllByService(access.getService()));
-        }
-        return applications;
+        //один запит з підзапитом по записам доступу, а не окремий запит на кожен сервіс
+        return applicationRepository.getAllByAdmin(admin, RoleConstants.ADMIN);
     }
 
     /**
-     * Повертає список заявок, які перевірялись власником, але не перевірялись адміністратором
-     * @param allApplications Список заявок, з яких вибираються потрібні
+     * Повертає заявки по сервісам адміністратора, які прийняв власник, але не перевіряв адміністратор.
+     * Відбір робиться в базі даних по етапу розгляду заявки, тому не завантажуються вже перевірені заявки
+     * @param admin Адміністратор
      * @return Список заявок
      */
-    public List<ApplicationEntity> getRefreshedApplicationsForAdmin(List<ApplicationEntity> allApplications){
-
-        List<ApplicationEntity> refreshedApplications = new ArrayList<>();
-
-        for (ApplicationEntity app: allApplications) {//дивимося на заявки
-            boolean checkedByOwner = false;
-            boolean notCheckedByAdmin = false;
-            for (ApplicationCheckingEntity check: app.getCheckings() ) {//дивимося на записи заявок
-                //спочатку йде перевірка, що включає перевірку на null, бо в іншому випадку може бути NullPointerException
-                if (check.getRole().equals(roleRepository.findById(RoleConstants.ADMIN).get()) &&
-                        check.getCheckYesNoNull() == null) {//якщо адмін не перевіряв заявку
-                    //позначаємо цю заявку
-                    notCheckedByAdmin = true;
-                } else if (check.getCheckType().equals(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get()) &&
-                        check.getRole().equals(roleRepository.findById(RoleConstants.OWNER).get()) &&
-                        check.getCheckYesNoNull() != null && check.getCheckYesNoNull()) {//якщо власник прийняв заявку
-                    //позначаємо цю заявку
-                    checkedByOwner = true;
-                }
-            }
-            if(checkedByOwner && notCheckedByAdmin){//якщо заявка перевірена власником і не перевірена адміном
-                refreshedApplications.add(app);
-            }
-        }
-        return refreshedApplications;
+    public List<ApplicationEntity> getRefreshedApplicationsForAdmin(UserEntity admin){
+        return applicationRepository.getAllByAdminAndStatus(admin, RoleConstants.ADMIN, ApplicationStatus.WAITING_FOR_ADMIN);
     }
 
     /**
@@ -267,11 +264,14 @@ public class DataProcessService {
             throws ResponseStatusException{
         ApplicationCheckingEntity adminCheckRecord = null;
         ApplicationCheckingEntity userCheckRecord = null;
+        CheckTypeEntity checkingRecord = referenceData.getCheckType(CheckTypeConstants.CHECKING_RECORD);
+        RoleEntity ownerRole = referenceData.getRole(RoleConstants.OWNER);
+        RoleEntity adminRole = referenceData.getRole(RoleConstants.ADMIN);
 
         //Дивимося записи перевірок, щоб зрозуміти, чи заявка очікує підтвердження від адміна
         for (ApplicationCheckingEntity check: application.getCheckings() ) {//перевіряємо записи власника і адміністратора
-            if(check.getCheckType().equals(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get()) &&
-                    check.getRole().equals(roleRepository.findById(RoleConstants.OWNER).get()) ){//якщо це запис власника
+            if(check.getCheckType().equals(checkingRecord) &&
+                    check.getRole().equals(ownerRole) ){//якщо це запис власника
                 if(check.getCheckYesNoNull() == null){
                     throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Власник ще не перевірив заявку");
                 }else if(check.getCheckYesNoNull()){//і він підтверджений
@@ -279,8 +279,8 @@ public class DataProcessService {
                 }else{
                     throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Власник відхилив заявку");
                 }
-            } else if (check.getCheckType().equals(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get()) &&
-                    check.getRole().equals(roleRepository.findById(RoleConstants.ADMIN).get()) ){//якщо це запис адміна
+            } else if (check.getCheckType().equals(checkingRecord) &&
+                    check.getRole().equals(adminRole) ){//якщо це запис адміна
                 if(check.getCheckYesNoNull() == null){
                     //адмін ще не перевірив заявку
                     adminCheckRecord = check;
@@ -310,10 +310,12 @@ public class DataProcessService {
     public ApplicationCheckingEntity checkApplicationReadyForOwnerAndGetCheckingOrThrow(ApplicationEntity application)
             throws ResponseStatusException{
         ApplicationCheckingEntity ownerCheckRecord = null;
+        CheckTypeEntity checkingRecord = referenceData.getCheckType(CheckTypeConstants.CHECKING_RECORD);
+        RoleEntity ownerRole = referenceData.getRole(RoleConstants.OWNER);
         //Дивимося записи перевірок, щоб зрозуміти, чи заявка очікує підтвердження від власника
         for (ApplicationCheckingEntity check: application.getCheckings() ) {//перевіряємо запис власника
-            if(check.getCheckType().equals(checkTypeRepository.findById(CheckTypeConstants.CHECKING_RECORD).get()) &&
-                    check.getRole().equals(roleRepository.findById(RoleConstants.OWNER).get()) ){//якщо це запис власника
+            if(check.getCheckType().equals(checkingRecord) &&
+                    check.getRole().equals(ownerRole) ){//якщо це запис власника
                 if(check.getCheckYesNoNull() == null){
                     //все в порядку, ідемо далі
                     ownerCheckRecord = check;
@@ -327,6 +329,71 @@ public class DataProcessService {
         return ownerCheckRecord;
     }
 
+    /**
+     * Запит, що вибирає сторінку заявок після позиції курсора
+     */
+    @FunctionalInterface
+    public interface ApplicationPageQuery {
+        List<ApplicationEntity> fetch(Timestamp afterDate, Long afterId, Pageable pageable);
+    }
+
+    /**
+     * Повертає сторінку заявок після позиції курсора
+     * @param cursorString Курсор, отриманий з попередньої сторінки (null для першої сторінки)
+     * @param limitString Розмір сторінки (опціонально)
+     * @param query Запит, що вибирає заявки
+     * @return Сторінка заявок з курсором на наступну сторінку
+     * @throws ResponseStatusException, якщо курсор чи розмір сторінки неправильні
+     */
+    public CursorPage<ApplicationEntity> getApplicationPageOrThrow(String cursorString, String limitString,
+                                                                   ApplicationPageQuery query) throws ResponseStatusException {
+        ApplicationCursor cursor = getCursorOrThrow(cursorString);
+        int limit = getPageLimitOrThrow(limitString);
+
+        //вибираємо на одну заявку більше, щоб знати, чи є наступна сторінка
+        List<ApplicationEntity> applications = query.fetch(cursor.getCreationDate(), cursor.getId(),
+                PageRequest.of(0, limit + 1));
+        if(applications.size() <= limit){
+            return new CursorPage<>(applications, null);
+        }
+        List<ApplicationEntity> items = new ArrayList<>(applications.subList(0, limit));
+        return new CursorPage<>(items, ApplicationCursor.after(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * Розкодовує курсор сторінки. Якщо курсора немає, то повертає позицію перед першою заявкою
+     * @param cursorString Курсор
+     * @return Позиція в списку заявок
+     * @throws ResponseStatusException, якщо курсор пошкоджений
+     */
+    public ApplicationCursor getCursorOrThrow(String cursorString) throws ResponseStatusException {
+        if(cursorString == null || cursorString.isEmpty()){
+            return ApplicationCursor.START;
+        }
+        try {
+            return ApplicationCursor.decode(cursorString);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неправильний курсор");
+        }
+    }
+
+    /**
+     * Повертає розмір сторінки. Якщо його немає, то повертає розмір за замовчуванням
+     * @param limitString Розмір сторінки
+     * @return Розмір сторінки
+     * @throws ResponseStatusException, якщо це не число чи воно поза межами від 1 до {@link #MAX_PAGE_LIMIT}
+     */
+    public int getPageLimitOrThrow(String limitString) throws ResponseStatusException {
+        if(limitString == null){
+            return DEFAULT_PAGE_LIMIT;
+        }
+        Long limit = getLongOrThrow(limitString);
+        if(limit < 1 || limit > MAX_PAGE_LIMIT){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Розмір сторінки має бути від 1 до " + MAX_PAGE_LIMIT);
+        }
+        return limit.intValue();
+    }
+
     /**
      * Намагається конвертувати строку в число. Якщо це null чи не число, то кидає виключення
      * @param string
@@ -0,0 +1,309 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
+import ua.factoriald.sunpp.model.constants.SearchTarget;
+import ua.factoriald.sunpp.model.dto.SearchResult;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.repository.UserRepository;
+import ua.factoriald.sunpp.repository.WorkerRepository;
+import ua.factoriald.sunpp.util.TextIndex;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Пошук робітників за повним ім'ям, користувачів за логіном і сервісів за назвою.
+ *
+ * Індекси ({@link TextIndex}) будуються в пам'яті при старті застосунку трьома запитами тільки потрібних колонок
+ * і далі змінюються підтвердженими змінами сутностей (див. {@link SearchIndexEntityListener}),
+ * тому пошук не звертається до бази даних.
+ * Підрозділ і посада користувача беруться з його робітника під час пошуку, тож переведення робітника
+ * одразу видно і в його користувачах. Сервіси не мають підрозділу і посади, тому не знаходяться з цими фільтрами.
+ *
+ * Як і в {@link PendingApplicationCounters}, зміни, підтверджені під час заповнення, відкладаються
+ * і застосовуються після нього. Індекси живуть у пам'яті одного екземпляра і одразу бачать тільки зміни, зроблені ним,
+ * тому періодично заповнюються заново: зміни інших екземплярів і в обхід застосунку видно не пізніше ніж за період.
+ */
+@Component
+public class EntitySearchIndex {
+
+    private final WorkerRepository workerRepository;
+    private final UserRepository userRepository;
+    private final ServiceRepository serviceRepository;
+
+    /**
+     * Пошук читає індекси під спільним блокуванням, зміни і заповнення - під винятковим
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Indexes indexes = new Indexes();
+
+    /**
+     * Зміни, підтверджені під час заповнення
+     * @null якщо заповнення не виконується
+     */
+    private List<Consumer<Indexes>> deferred;
+
+    /**
+     * Період повторного заповнення в мілісекундах
+     */
+    private final long reloadMillis;
+
+    private final ScheduledExecutorService reloader;
+
+    @Autowired
+    public EntitySearchIndex(WorkerRepository workerRepository, UserRepository userRepository, ServiceRepository serviceRepository,
+                             @Value("${sunpp.search-index.reload-millis:600000}") long reloadMillis) {
+        this.workerRepository = workerRepository;
+        this.userRepository = userRepository;
+        this.serviceRepository = serviceRepository;
+        this.reloadMillis = reloadMillis;
+        this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Заповнює індекси при старті застосунку і починає періодичне повторне заповнення
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+        reloader.scheduleWithFixedDelay(this::reloadQuietly, reloadMillis, reloadMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdownNow();
+    }
+
+    /**
+     * Невдале повторне заповнення залишає старі індекси і не зупиняє наступні
+     */
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Заповнює індекси даними з бази
+     */
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            deferred = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Indexes loaded = null;
+        try {
+            loaded = ReadYourWrites.onPrimary(this::load);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                //якщо заповнити не вдалося, відкладені зміни застосовуються до старих індексів
+                Indexes target = loaded != null ? loaded : indexes;
+                for (Consumer<Indexes> change : deferred) {
+                    change.accept(target);
+                }
+                indexes = target;
+                deferred = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Indexes load() {
+        Indexes loaded = new Indexes();
+        for (Object[] row : workerRepository.getAllSearchFields()) {
+            loaded.put(new Document(SearchTarget.WORKER, (Long) row[0], (String) row[1], null, (Long) row[2], (Long) row[3]));
+        }
+        for (Object[] row : userRepository.getAllSearchFields()) {
+            loaded.put(new Document(SearchTarget.USER, (Long) row[0], (String) row[1], (Long) row[2], null, null));
+        }
+        for (Object[] row : serviceRepository.getAllSearchFields()) {
+            loaded.put(new Document(SearchTarget.SERVICE, (Long) row[0], (String) row[1], null, null, null));
+        }
+        return loaded;
+    }
+
+    /**
+     * Додає робітника до індексу або оновлює його
+     * @param id Ідентифікатор робітника
+     * @param fullname Повне ім'я
+     * @param departmentId Ідентифікатор підрозділу
+     * @param positionId Ідентифікатор посади
+     */
+    public void putWorker(Long id, String fullname, Long departmentId, Long positionId) {
+        Document document = new Document(SearchTarget.WORKER, id, fullname, null, departmentId, positionId);
+        change(target -> target.put(document));
+    }
+
+    /**
+     * Додає користувача до індексу або оновлює його
+     * @param id Ідентифікатор користувача
+     * @param login Логін
+     * @param workerId Ідентифікатор робітника
+     */
+    public void putUser(Long id, String login, Long workerId) {
+        Document document = new Document(SearchTarget.USER, id, login, workerId, null, null);
+        change(target -> target.put(document));
+    }
+
+    /**
+     * Додає сервіс до індексу або оновлює його
+     * @param id Ідентифікатор сервісу
+     * @param name Назва
+     */
+    public void putService(Long id, String name) {
+        Document document = new Document(SearchTarget.SERVICE, id, name, null, null, null);
+        change(target -> target.put(document));
+    }
+
+    /**
+     * Видаляє робітника, користувача чи сервіс з індексу
+     * @param type Що видаляється
+     * @param id Ідентифікатор
+     */
+    public void remove(SearchTarget type, Long id) {
+        change(target -> target.get(type).remove(id));
+    }
+
+    private void change(Consumer<Indexes> change) {
+        lock.writeLock().lock();
+        try {
+            if (deferred != null) {
+                deferred.add(change);
+            } else {
+                change.accept(indexes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Шукає робітників, користувачів і сервіси, в назві яких кожне слово запиту є початком слова чи схоже на слово
+     * @param query Запит
+     * @param types Що шукати
+     * @param departmentId Тільки робітники цього підрозділу і їх користувачі (опціонально)
+     * @param positionId Тільки робітники на цій посаді і їх користувачі (опціонально)
+     * @param limit Найбільша кількість результатів
+     * @return Найкращі результати, від кращого до гіршого
+     */
+    public List<SearchResult> search(String query, Set<SearchTarget> types, Long departmentId, Long positionId, int limit) {
+        lock.readLock().lock();
+        try {
+            Indexes current = indexes;
+            Predicate<Document> filter = document -> {
+                Document worker = current.getWorker(document);
+                return (departmentId == null || worker != null && departmentId.equals(worker.departmentId))
+                        && (positionId == null || worker != null && positionId.equals(worker.positionId));
+            };
+
+            List<TextIndex.Hit<Document>> hits = new ArrayList<>();
+            for (SearchTarget type : types) {
+                hits.addAll(current.get(type).search(query, limit, filter));
+            }
+            hits.sort(TextIndex.Hit.order());
+
+            List<SearchResult> results = new ArrayList<>(Math.min(limit, hits.size()));
+            for (TextIndex.Hit<Document> hit : hits.subList(0, Math.min(limit, hits.size()))) {
+                Document document = hit.getDocument();
+                Document worker = current.getWorker(document);
+                results.add(new SearchResult(document.type, document.id, document.name,
+                        worker == null ? null : worker.departmentId,
+                        worker == null ? null : worker.positionId,
+                        hit.getScore()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Робітник, користувач чи сервіс в індексі
+     */
+    private static final class Document {
+
+        private final SearchTarget type;
+        private final Long id;
+        private final String name;
+
+        /**
+         * Робітник користувача
+         */
+        private final Long workerId;
+
+        /**
+         * Підрозділ і посада робітника
+         */
+        private final Long departmentId;
+        private final Long positionId;
+
+        private Document(SearchTarget type, Long id, String name, Long workerId, Long departmentId, Long positionId) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.workerId = workerId;
+            this.departmentId = departmentId;
+            this.positionId = positionId;
+        }
+    }
+
+    /**
+     * Індекси по одному на кожен тип
+     */
+    private static final class Indexes {
+
+        private final Map<SearchTarget, TextIndex<Document>> byType = new EnumMap<>(SearchTarget.class);
+
+        private Indexes() {
+            for (SearchTarget type : SearchTarget.values()) {
+                byType.put(type, new TextIndex<>());
+            }
+        }
+
+        private TextIndex<Document> get(SearchTarget type) {
+            return byType.get(type);
+        }
+
+        private void put(Document document) {
+            get(document.type).put(document.id, document.name, document);
+        }
+
+        /**
+         * @return Сам робітник, робітник користувача або @null для сервісу
+         */
+        private Document getWorker(Document document) {
+            switch (document.type) {
+                case WORKER:
+                    return document;
+                case USER:
+                    return document.workerId == null ? null : get(SearchTarget.WORKER).get(document.workerId);
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+import ua.factoriald.sunpp.model.dto.PendingCounts;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+import ua.factoriald.sunpp.util.LongHashMap;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Лічильники заявок, що очікують рішення власника чи адміністратора, по кожному сервісу.
+ *
+ * Лічильники заповнюються одним запитом заявок, що очікують рішення, при старті (після заповнення етапів заявок,
+ * див. {@link ApplicationStatusBackfillJob}) і далі змінюються підтвердженими переходами заявок
+ * ({@link ApplicationTransitionEvent}), тому кількість для позначки читається з пам'яті без запитів до бази.
+ *
+ * Переходи, підтверджені під час заповнення, відкладаються і після заповнення застосовуються тільки ті,
+ * яких знімок ще не бачив: етап заявки після переходу пізніший за етап заявки в знімку.
+ * Ідентифікатори подій для цього не годяться, бо видаються блоками і транзакції підтверджуються в іншому порядку.
+ *
+ * Лічильники живуть у пам'яті одного екземпляра і одразу бачать тільки переходи, зроблені ним,
+ * тому періодично заповнюються заново: переходи інших екземплярів і зміни в обхід застосунку
+ * видно не пізніше ніж за період.
+ */
+@Component
+public class PendingApplicationCounters {
+
+    private static final List<ApplicationStatus> PENDING =
+            Arrays.asList(ApplicationStatus.WAITING_FOR_OWNER, ApplicationStatus.WAITING_FOR_ADMIN);
+
+    /**
+     * Етап заявки, якої не було на момент знімка
+     */
+    private static final int NOT_CREATED = -1;
+
+    /**
+     * Етап завершеної заявки (прийнятої чи відхиленої)
+     */
+    private static final int FINISHED = PENDING.size();
+
+    private final ApplicationRepository applicationRepository;
+    private final AccessDecisionCache accessDecisions;
+
+    /**
+     * Переходи змінюють лічильники під спільним блокуванням, заповнення замінює їх під винятковим
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ідентифікатор сервісу - лічильники по етапах у порядку {@link #PENDING}
+     */
+    private volatile Map<Long, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Переходи, підтверджені під час заповнення
+     * @null якщо заповнення не виконується
+     */
+    private List<WorkflowEventEntity> deferred;
+
+    /**
+     * Період повторного заповнення в мілісекундах
+     */
+    private final long reseedMillis;
+
+    private final ScheduledExecutorService reseeder;
+
+    @Autowired
+    public PendingApplicationCounters(ApplicationRepository applicationRepository,
+                                      AccessDecisionCache accessDecisions,
+                                      @Value("${sunpp.pending-counters.reseed-millis:600000}") long reseedMillis) {
+        this.applicationRepository = applicationRepository;
+        this.accessDecisions = accessDecisions;
+        this.reseedMillis = reseedMillis;
+        this.reseeder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pending-counters-reseed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Заповнює лічильники при старті застосунку, після заповнення етапів заявок,
+     * і починає періодичне повторне заповнення
+     */
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        seed();
+        reseeder.scheduleWithFixedDelay(this::seedQuietly, reseedMillis, reseedMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reseeder.shutdownNow();
+    }
+
+    /**
+     * Невдале повторне заповнення залишає старі лічильники і не зупиняє наступні
+     */
+    private void seedQuietly() {
+        try {
+            seed();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Заповнює лічильники кількостями з бази
+     */
+    public void seed() {
+        lock.writeLock().lock();
+        try {
+            deferred = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, LongAdder[]> seeded = new ConcurrentHashMap<>();
+        //ідентифікатор заявки - етап, на якому її бачив знімок
+        LongHashMap<ApplicationStatus> snapshot = null;
+        try {
+            List<Object[]> rows = ReadYourWrites.onPrimary(() -> applicationRepository.getIdServiceAndStatusByStatusIn(PENDING));
+            LongHashMap<ApplicationStatus> seen = new LongHashMap<>(rows.size());
+            for (Object[] row : rows) {
+                ApplicationStatus status = (ApplicationStatus) row[2];
+                getCounters(seeded, (Long) row[1])[PENDING.indexOf(status)].increment();
+                seen.put((Long) row[0], status);
+            }
+            snapshot = seen;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                //якщо заповнити не вдалося, відкладені переходи застосовуються до старих лічильників
+                Map<Long, LongAdder[]> target = snapshot != null ? seeded : counters;
+                Set<Long> createdDuringSeed = new HashSet<>();
+                for (WorkflowEventEntity event : deferred) {
+                    if (event.getType() == WorkflowEventType.CREATED) {
+                        createdDuringSeed.add(event.getApplicationId());
+                    }
+                }
+                for (WorkflowEventEntity event : deferred) {
+                    if (snapshot == null || getStage(event) > getSnapshotStage(snapshot, createdDuringSeed, event.getApplicationId())) {
+                        apply(target, event);
+                    }
+                }
+                counters = target;
+                deferred = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Визначає етап заявки в знімку. Заявки, якої немає серед заявок знімка, або ще не було,
+     * або вона вже завершена. Якщо її створення відкладене, то всі інші її переходи теж відкладені
+     * і разом дають правильну кількість навіть для заявки, завершеної до знімка
+     */
+    private static int getSnapshotStage(LongHashMap<ApplicationStatus> snapshot, Set<Long> createdDuringSeed, Long applicationId) {
+        ApplicationStatus status = snapshot.get(applicationId);
+        if (status != null) {
+            return PENDING.indexOf(status);
+        }
+        return createdDuringSeed.contains(applicationId) ? NOT_CREATED : FINISHED;
+    }
+
+    /**
+     * @return Етап заявки після переходу
+     */
+    private static int getStage(WorkflowEventEntity event) {
+        int stage = PENDING.indexOf(event.getStatus());
+        return stage < 0 ? FINISHED : stage;
+    }
+
+    /**
+     * Змінює лічильники сервісу після підтвердженого переходу заявки
+     * @param transition Перехід заявки
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransition(ApplicationTransitionEvent transition) {
+        lock.readLock().lock();
+        try {
+            if (deferred != null) {
+                synchronized (deferred) {
+                    deferred.add(transition.getEvent());
+                }
+            } else {
+                apply(counters, transition.getEvent());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param serviceId Ідентифікатор сервісу
+     * @param status Етап розгляду, що очікує рішення
+     * @return Кількість заявок сервісу на цьому етапі, 0 для етапів без очікування
+     */
+    public long getCount(long serviceId, ApplicationStatus status) {
+        int stage = PENDING.indexOf(status);
+        LongAdder[] serviceCounters = counters.get(serviceId);
+        return stage < 0 || serviceCounters == null ? 0 : Math.max(0, serviceCounters[stage].sum());
+    }
+
+    /**
+     * @param ownerId Ідентифікатор власника
+     * @return Кількість заявок, що очікують рішення власника, по його сервісах
+     */
+    public PendingCounts getOwnerCounts(Long ownerId) {
+        return getCounts(accessDecisions.getOwnedServiceIds(ownerId), ApplicationStatus.WAITING_FOR_OWNER);
+    }
+
+    /**
+     * @param adminId Ідентифікатор адміністратора
+     * @return Кількість заявок, що очікують рішення адміністратора, по його сервісах
+     */
+    public PendingCounts getAdminCounts(Long adminId) {
+        return getCounts(accessDecisions.getServiceIds(adminId, RoleConstants.ADMIN), ApplicationStatus.WAITING_FOR_ADMIN);
+    }
+
+    private PendingCounts getCounts(long[] serviceIds, ApplicationStatus status) {
+        long total = 0;
+        Map<Long, Long> services = new LinkedHashMap<>();
+        for (long serviceId : serviceIds) {
+            long count = getCount(serviceId, status);
+            if (count > 0) {
+                services.put(serviceId, count);
+                total += count;
+            }
+        }
+        return new PendingCounts(total, services);
+    }
+
+    private static void apply(Map<Long, LongAdder[]> counters, WorkflowEventEntity event) {
+        LongAdder[] serviceCounters = getCounters(counters, event.getServiceId());
+        switch (event.getType()) {
+            case CREATED:
+                serviceCounters[0].increment();
+                break;
+            case OWNER_ACCEPTED:
+                serviceCounters[0].decrement();
+                serviceCounters[1].increment();
+                break;
+            case OWNER_DECLINED:
+                serviceCounters[0].decrement();
+                break;
+            case ADMIN_ACCEPTED:
+            case ADMIN_DECLINED:
+                serviceCounters[1].decrement();
+                break;
+        }
+    }
+
+    private static LongAdder[] getCounters(Map<Long, LongAdder[]> counters, Long serviceId) {
+        return counters.computeIfAbsent(serviceId, id -> new LongAdder[]{new LongAdder(), new LongAdder()});
+    }
+}
@@ -0,0 +1,54 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Слухач змін ролей, типів перевірок і сервісів.
+ * Після зміни позначає {@link ReferenceDataRegistry} застарілим.
+ *
+ * Якщо зміна відбувається в транзакції, то довідник позначається застарілим тільки після її підтвердження,
+ * інакше він міг би перезавантажитись зі старими даними.
+ */
+public class ReferenceDataEntityListener {
+
+    /**
+     * Довідник отримується ліниво, бо слухач створюється разом з EntityManagerFactory,
+     * а довідник сам залежить від репозиторіїв
+     */
+    private final ObjectProvider<ReferenceDataRegistry> registryProvider;
+
+    @Autowired
+    public ReferenceDataEntityListener(ObjectProvider<ReferenceDataRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        ReferenceDataRegistry registry = registryProvider.getIfAvailable();
+        if (registry != null) {
+            registry.invalidate();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.datasource.ReadYourWrites;
+import ua.factoriald.sunpp.model.CheckTypeEntity;
+import ua.factoriald.sunpp.model.RoleEntity;
+import ua.factoriald.sunpp.repository.CheckTypeRepository;
+import ua.factoriald.sunpp.repository.RoleRepository;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.util.LongHashMap;
+
+import java.util.*;
+
+/**
+ * Довідник даних, що майже не змінюються: ролі, типи перевірок і доступні ролі сервісів.
+ *
+ * Дані завантажуються при старті застосунку і зберігаються як незмінний знімок,
+ * тому перевірки в циклах по заявках не звертаються до бази даних.
+ * Якщо роль, тип перевірки чи сервіс змінюються через застосунок, знімок позначається застарілим
+ * (див. {@link ReferenceDataEntityListener}) і перезавантажується при наступному зверненні.
+ * Довідники змінюються і в обхід застосунку, тому знімок ще й перезавантажується після часу життя
+ * (sunpp.reference-data.ttl-millis), як і регіони сервісів у кеші другого рівня.
+ */
+@Component
+public class ReferenceDataRegistry {
+
+    private final RoleRepository roleRepository;
+    private final CheckTypeRepository checkTypeRepository;
+    private final ServiceRepository serviceRepository;
+
+    /**
+     * Поточний знімок довідника
+     */
+    private volatile ReferenceData data;
+
+    /**
+     * Показує, що знімок потрібно перезавантажити
+     */
+    private volatile boolean stale = true;
+
+    /**
+     * Час життя знімка, мс
+     */
+    private final long ttlMillis;
+
+    /**
+     * До якого моменту (мс від епохи) знімок вважається свіжим
+     */
+    private volatile long freshUntilMillis;
+
+    @Autowired
+    public ReferenceDataRegistry(RoleRepository roleRepository, CheckTypeRepository checkTypeRepository, ServiceRepository serviceRepository,
+                                 @Value("${sunpp.reference-data.ttl-millis:600000}") long ttlMillis) {
+        this.roleRepository = roleRepository;
+        this.checkTypeRepository = checkTypeRepository;
+        this.serviceRepository = serviceRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Завантажує довідник при старті застосунку
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Позначає знімок застарілим. Наступне звернення до довідника перезавантажить його
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Перезавантажує знімок з бази даних
+     */
+    public synchronized void reload() {
+        //скидаємо позначку до завантаження, щоб зміна під час завантаження не загубилась
+        stale = false;
+        freshUntilMillis = System.currentTimeMillis() + ttlMillis;
+        data = ReadYourWrites.onPrimary(this::load);
+    }
+
+    /**
+     * Читає дані довідника з бази даних
+     * @return Новий знімок довідника
+     */
+    protected ReferenceData load() {
+        Map<Long, BitSet> serviceRoles = new HashMap<>();
+        for (Object[] pair : serviceRepository.getAllServiceRoleIdPairs()) {
+            serviceRoles.computeIfAbsent((Long) pair[0], id -> new BitSet()).set(((Long) pair[1]).intValue());
+        }
+        return new ReferenceData(roleRepository.findAll(), checkTypeRepository.findAll(), serviceRoles);
+    }
+
+    private ReferenceData current() {
+        ReferenceData current = data;
+        if (current == null || stale || System.currentTimeMillis() >= freshUntilMillis) {
+            synchronized (this) {
+                if (data == null || stale) {
+                    reload();
+                } else if (System.currentTimeMillis() >= freshUntilMillis) {
+                    try {
+                        reload();
+                    } catch (RuntimeException e) {
+                        //знімок лише відстояв свій час, тож до наступної спроби працюємо зі старим
+                        e.printStackTrace();
+                    }
+                }
+                current = data;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Шукає роль за ідентифікатором
+     * @param roleId Ідентифікатор ролі
+     * @return Роль, якщо вона є
+     */
+    public Optional<RoleEntity> findRole(long roleId) {
+        return Optional.ofNullable(current().roles.get(roleId));
+    }
+
+    /**
+     * Повертає роль за ідентифікатором, зазвичай одну з {@link ua.factoriald.sunpp.model.constants.RoleConstants}
+     * @param roleId Ідентифікатор ролі
+     * @return Роль
+     * @throws ResponseStatusException, якщо такої ролі немає в довіднику
+     */
+    public RoleEntity getRole(long roleId) throws ResponseStatusException {
+        RoleEntity role = current().roles.get(roleId);
+        if (role == null) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Немає такої ролі в довіднику");
+        }
+        return role;
+    }
+
+    /**
+     * Повертає тип перевірки за ідентифікатором, зазвичай один з {@link ua.factoriald.sunpp.model.constants.CheckTypeConstants}
+     * @param checkTypeId Ідентифікатор типу перевірки
+     * @return Тип перевірки
+     * @throws ResponseStatusException, якщо такого типу перевірки немає в довіднику
+     */
+    public CheckTypeEntity getCheckType(long checkTypeId) throws ResponseStatusException {
+        CheckTypeEntity checkType = current().checkTypes.get(checkTypeId);
+        if (checkType == null) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Немає такого типу перевірки в довіднику");
+        }
+        return checkType;
+    }
+
+    /**
+     * Перевіряє, чи доступна роль для сервісу
+     * @param serviceId Ідентифікатор сервісу
+     * @param roleId Ідентифікатор ролі
+     * @return true, якщо роль є серед доступних ролей сервісу
+     */
+    public boolean isRoleAvailableForService(Long serviceId, Long roleId) {
+        if (serviceId == null || roleId == null || roleId < 0 || roleId > Integer.MAX_VALUE) {
+            return false;
+        }
+        BitSet roles = current().serviceRoles.get(serviceId);
+        return roles != null && roles.get(roleId.intValue());
+    }
+
+    /**
+     * Незмінний знімок довідника
+     */
+    public static final class ReferenceData {
+
+        //знімок після створення тільки читається, тому індекси не потребують синхронізації
+        private final LongHashMap<RoleEntity> roles;
+        private final LongHashMap<CheckTypeEntity> checkTypes;
+        private final LongHashMap<BitSet> serviceRoles;
+
+        /**
+         * @param roles Усі ролі
+         * @param checkTypes Усі типи перевірок
+         * @param serviceRoles Доступні ролі сервісів: ідентифікатор сервісу -> набір ідентифікаторів ролей
+         */
+        public ReferenceData(Collection<RoleEntity> roles, Collection<CheckTypeEntity> checkTypes, Map<Long, BitSet> serviceRoles) {
+            this.roles = LongHashMap.indexBy(roles, RoleEntity::getId);
+            this.checkTypes = LongHashMap.indexBy(checkTypes, CheckTypeEntity::getId);
+            this.serviceRoles = new LongHashMap<>(serviceRoles.size());
+            for (Map.Entry<Long, BitSet> entry : serviceRoles.entrySet()) {
+                this.serviceRoles.put(entry.getKey(), (BitSet) entry.getValue().clone());
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+import ua.factoriald.sunpp.repository.UserHaveAccessToServiceRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Потоки Server-Sent Events для вхідних заявок власників і адміністраторів.
+ *
+ * Після підтвердження транзакції переходи заявок з {@link ApplicationWorkflowService} надсилаються рецензентам,
+ * яких вони стосуються: власнику сервісу - нові заявки і рішення власника, адміністраторам сервісу -
+ * рішення власника і рішення адміністратора. Переходи транзакції розсилаються разом у пулі відправки,
+ * і рецензенти сервісу шукаються один раз на транзакцію, тож групове рішення не додає запитів потоку запиту.
+ * SSE-події не мають ідентифікатора: позицію в стрічці /workflow/event/all подія отримує вже після розсилки,
+ * тож продовжити з неї після перепідключення не можна.
+ *
+ * Відкрите з'єднання не тримає потік: запит асинхронний, а відправка йде через спільний невеликий пул.
+ * Кожне з'єднання має обмежений буфер; якщо клієнт не встигає читати і буфер переповнюється,
+ * з'єднання закривається, і клієнт має перепідключитися і перечитати список заявок.
+ * Раз на інтервал у всі з'єднання надсилається коментар, щоб проксі не закривали тихі з'єднання.
+ */
+@Component
+public class ReviewerInboxService {
+
+    private final AccessDecisionCache accessDecisions;
+    private final UserHaveAccessToServiceRepository accessRepository;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    private final Map<Long, Set<Subscriber>> ownerSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> adminSubscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public ReviewerInboxService(AccessDecisionCache accessDecisions,
+                                UserHaveAccessToServiceRepository accessRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${sunpp.inbox.buffer-size:64}") int bufferSize,
+                                @Value("${sunpp.inbox.timeout-millis:1800000}") long timeoutMillis,
+                                @Value("${sunpp.inbox.heartbeat-seconds:25}") long heartbeatSeconds,
+                                @Value("${sunpp.inbox.sender-threads:4}") int senderThreads) {
+        this.accessDecisions = accessDecisions;
+        this.accessRepository = accessRepository;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.sender = Executors.newFixedThreadPool(senderThreads, daemonThreads("inbox-sender"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("inbox-heartbeat"));
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Відкриває потік вхідних заявок власника
+     * @param ownerId Ідентифікатор власника
+     * @return Потік подій
+     */
+    public SseEmitter subscribeOwner(Long ownerId) {
+        return subscribe(ownerSubscribers, ownerId);
+    }
+
+    /**
+     * Відкриває потік вхідних заявок адміністратора
+     * @param adminId Ідентифікатор адміністратора
+     * @return Потік подій
+     */
+    public SseEmitter subscribeAdmin(Long adminId) {
+        return subscribe(adminSubscribers, adminId);
+    }
+
+    /**
+     * @return Кількість відкритих потоків
+     */
+    public int getSubscriberCount() {
+        return count(ownerSubscribers) + count(adminSubscribers);
+    }
+
+    /**
+     * Збирає переходи заявок транзакції і після її підтвердження передає їх на розсилку в пул відправки.
+     * Переходи без відкритих потоків відповідного типу не збираються
+     */
+    @EventListener
+    public void onTransition(ApplicationTransitionEvent transition) {
+        WorkflowEventEntity event = transition.getEvent();
+        if (!(isForOwner(event) && !ownerSubscribers.isEmpty()) && !(isForAdmins(event) && !adminSubscribers.isEmpty())) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            route(Collections.singletonList(event));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<WorkflowEventEntity> events = (List<WorkflowEventEntity>) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            List<WorkflowEventEntity> transactionEvents = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionEvents);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReviewerInboxService.this);
+                    if (status == STATUS_COMMITTED) {
+                        route(transactionEvents);
+                    }
+                }
+            });
+            events = transactionEvents;
+        }
+        events.add(event);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        closeAll(ownerSubscribers);
+        closeAll(adminSubscribers);
+    }
+
+    /**
+     * Передає розсилку переходів у пул відправки, щоб пошук рецензентів не затримував потік запиту
+     */
+    private void route(List<WorkflowEventEntity> events) {
+        try {
+            sender.execute(() -> deliverTransitions(events));
+        } catch (RejectedExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Розсилає переходи в порядку запису. Рецензенти шукаються один раз на сервіс:
+     * власник - через {@link AccessDecisionCache}, адміністратори - одним запитом
+     */
+    private void deliverTransitions(List<WorkflowEventEntity> events) {
+        Map<Long, Long> owners = new HashMap<>();
+        Map<Long, List<Long>> admins = new HashMap<>();
+        for (WorkflowEventEntity event : events) {
+            Message message;
+            try {
+                message = new Message(event.getType().name(), objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                e.printStackTrace();
+                continue;
+            }
+
+            if (isForOwner(event) && !ownerSubscribers.isEmpty()) {
+                Long ownerId = owners.computeIfAbsent(event.getServiceId(), accessDecisions::getOwnerUserId);
+                if (ownerId != null) {
+                    deliver(ownerSubscribers.get(ownerId), message);
+                }
+            }
+            if (isForAdmins(event) && !adminSubscribers.isEmpty()) {
+                List<Long> adminIds = admins.computeIfAbsent(event.getServiceId(),
+                        serviceId -> accessRepository.getUserIdsByServiceIdAndRoleId(serviceId, RoleConstants.ADMIN));
+                for (Long adminId : adminIds) {
+                    deliver(adminSubscribers.get(adminId), message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Власнику надсилаються нові заявки і рішення власника
+     */
+    private static boolean isForOwner(WorkflowEventEntity event) {
+        return event.getType() != WorkflowEventType.ADMIN_ACCEPTED && event.getType() != WorkflowEventType.ADMIN_DECLINED;
+    }
+
+    /**
+     * Адміністраторам надсилаються рішення власника і рішення адміністратора
+     */
+    private static boolean isForAdmins(WorkflowEventEntity event) {
+        return event.getType() != WorkflowEventType.CREATED;
+    }
+
+    private SseEmitter subscribe(Map<Long, Set<Subscriber>> subscribers, Long userId) {
+        SseEmitter emitter = createEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, new LinkedBlockingQueue<>(bufferSize));
+        Set<Subscriber> userSubscribers = subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+        userSubscribers.add(subscriber);
+
+        Runnable remove = () -> subscribers.computeIfPresent(userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Створює потік. Винесено окремо для тестів
+     */
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void sendHeartbeat() {
+        for (Set<Subscriber> subscribers : ownerSubscribers.values()) {
+            deliver(subscribers, Message.HEARTBEAT);
+        }
+        for (Set<Subscriber> subscribers : adminSubscribers.values()) {
+            deliver(subscribers, Message.HEARTBEAT);
+        }
+    }
+
+    private void deliver(Set<Subscriber> subscribers, Message message) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(message)) {
+                //клієнт не встигає читати, тож він має перепідключитися і перечитати список заявок
+                subscriber.emitter.complete();
+                continue;
+            }
+            if (subscriber.scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(() -> drain(subscriber));
+                } catch (RejectedExecutionException e) {
+                    subscriber.scheduled.set(false);
+                }
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            Message message;
+            while ((message = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(message.toEvent());
+                } catch (IOException | IllegalStateException e) {
+                    subscriber.queue.clear();
+                    subscriber.emitter.completeWithError(e);
+                    return;
+                }
+            }
+            subscriber.scheduled.set(false);
+            //повідомлення могло прийти між останнім poll і скиданням прапорця
+        } while (!subscriber.queue.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    private static int count(Map<Long, Set<Subscriber>> subscribers) {
+        int count = 0;
+        for (Set<Subscriber> set : subscribers.values()) {
+            count += set.size();
+        }
+        return count;
+    }
+
+    private static void closeAll(Map<Long, Set<Subscriber>> subscribers) {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.emitter.complete();
+            }
+        }
+        subscribers.clear();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Відкритий потік і його буфер повідомлень
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<Message> queue;
+
+        /**
+         * true, поки буфер розбирається в пулі відправки
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Queue<Message> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+
+    /**
+     * Повідомлення потоку. Одне повідомлення спільне для всіх отримувачів,
+     * а SSE-подія будується під час відправки, бо {@link SseEmitter.SseEventBuilder} змінюється при відправці
+     */
+    private static final class Message {
+
+        private static final Message HEARTBEAT = new Message(null, null);
+
+        private final String name;
+        private final String data;
+
+        private Message(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
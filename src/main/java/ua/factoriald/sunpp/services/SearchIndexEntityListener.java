@@ -0,0 +1,90 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ua.factoriald.sunpp.model.ServiceEntity;
+import ua.factoriald.sunpp.model.UserEntity;
+import ua.factoriald.sunpp.model.WorkerEntity;
+import ua.factoriald.sunpp.model.constants.SearchTarget;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.function.Consumer;
+
+/**
+ * Слухач змін робітників, користувачів і сервісів.
+ * Після зміни оновлює чи видаляє їх в {@link EntitySearchIndex}.
+ *
+ * Поля читаються з сутності одразу, а індекс змінюється тільки після підтвердження транзакції,
+ * щоб пошук не знаходив даних відкоченої транзакції.
+ */
+public class SearchIndexEntityListener {
+
+    private final ObjectProvider<EntitySearchIndex> indexProvider;
+
+    @Autowired
+    public SearchIndexEntityListener(ObjectProvider<EntitySearchIndex> indexProvider) {
+        this.indexProvider = indexProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Object entity) {
+        if (entity instanceof WorkerEntity) {
+            WorkerEntity worker = (WorkerEntity) entity;
+            Long id = worker.getId();
+            String fullname = worker.getFullname();
+            Long departmentId = worker.getDepartment() == null ? null : worker.getDepartment().getId();
+            Long positionId = worker.getPosition() == null ? null : worker.getPosition().getId();
+            afterCommit(index -> index.putWorker(id, fullname, departmentId, positionId));
+        } else if (entity instanceof UserEntity) {
+            UserEntity user = (UserEntity) entity;
+            Long id = user.getId();
+            String login = user.getLogin();
+            Long workerId = user.getWorkerEntity() == null ? null : user.getWorkerEntity().getId();
+            afterCommit(index -> index.putUser(id, login, workerId));
+        } else if (entity instanceof ServiceEntity) {
+            ServiceEntity service = (ServiceEntity) entity;
+            Long id = service.getId();
+            String name = service.getName();
+            afterCommit(index -> index.putService(id, name));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof WorkerEntity) {
+            Long id = ((WorkerEntity) entity).getId();
+            afterCommit(index -> index.remove(SearchTarget.WORKER, id));
+        } else if (entity instanceof UserEntity) {
+            Long id = ((UserEntity) entity).getId();
+            afterCommit(index -> index.remove(SearchTarget.USER, id));
+        } else if (entity instanceof ServiceEntity) {
+            Long id = ((ServiceEntity) entity).getId();
+            afterCommit(index -> index.remove(SearchTarget.SERVICE, id));
+        }
+    }
+
+    private void afterCommit(Consumer<EntitySearchIndex> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    withIndex(action);
+                }
+            });
+        } else {
+            withIndex(action);
+        }
+    }
+
+    private void withIndex(Consumer<EntitySearchIndex> action) {
+        EntitySearchIndex index = indexProvider.getIfAvailable();
+        if (index != null) {
+            action.accept(index);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ua.factoriald.sunpp.model.*;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.function.Consumer;
+
+/**
+ * Слухач змін сутностей, що віддаються в списках.
+ * Після зміни оновлює версії в {@link VersionStamps}: зміна заявки чи її перевірки - версію сервісу заявки,
+ * зміна сервісу, ролі чи підрозділу - версію довідника і загальну версію, решта - загальну версію.
+ *
+ * Версії змінюються тільки після підтвердження транзакції, інакше паралельний запит міг би
+ * прочитати старі дані і віддати їх з новим ETag.
+ */
+public class VersionStampEntityListener {
+
+    private final ObjectProvider<VersionStamps> stampsProvider;
+
+    @Autowired
+    public VersionStampEntityListener(ObjectProvider<VersionStamps> stampsProvider) {
+        this.stampsProvider = stampsProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Consumer<VersionStamps> touch;
+        if (entity instanceof ApplicationEntity) {
+            Long serviceId = ((ApplicationEntity) entity).getService().getId();
+            touch = stamps -> stamps.touchService(serviceId);
+        } else if (entity instanceof ApplicationCheckingEntity) {
+            Long serviceId = ((ApplicationCheckingEntity) entity).getApplication().getService().getId();
+            touch = stamps -> stamps.touchService(serviceId);
+        } else if (entity instanceof ServiceEntity || entity instanceof RoleEntity) {
+            touch = stamps -> {
+                stamps.touchCatalog(VersionStamps.Catalog.SERVICES);
+                stamps.touchAll();
+            };
+        } else if (entity instanceof DepartmentEntity) {
+            touch = stamps -> {
+                stamps.touchCatalog(VersionStamps.Catalog.DEPARTMENTS);
+                stamps.touchAll();
+            };
+        } else if (entity instanceof PositionEntity) {
+            touch = stamps -> stamps.touchCatalog(VersionStamps.Catalog.POSITIONS);
+        } else {
+            touch = VersionStamps::touchAll;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    withStamps(touch);
+                }
+            });
+        } else {
+            withStamps(touch);
+        }
+    }
+
+    private void withStamps(Consumer<VersionStamps> action) {
+        VersionStamps stamps = stampsProvider.getIfAvailable();
+        if (stamps != null) {
+            action.accept(stamps);
+        }
+    }
+}
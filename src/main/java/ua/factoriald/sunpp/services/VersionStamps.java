@@ -0,0 +1,122 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Версії даних для умовних GET-запитів (ETag / If-None-Match).
+ *
+ * Версії - це відмітки одного лічильника, тому нова версія завжди більша за всі попередні,
+ * і версію кількох сервісів можна взяти як найбільшу з їхніх версій.
+ * Зберігаються версії довідників, версії заявок кожного сервісу і загальна версія всього,
+ * що входить у заявки (користувачі, сервіси, ролі, підрозділи, записи доступу).
+ * Версії змінюються після підтвердження змін (див. {@link VersionStampEntityListener}).
+ *
+ * Версії живуть у пам'яті одного екземпляра і бачать тільки зміни, зроблені через цей екземпляр.
+ * Тому в ETag входить мітка запуску (ETag іншого екземпляра чи до перезапуску не збігається)
+ * і номер періоду часу довжиною sunpp.version-stamps.max-age-millis. Зміни в обхід застосунку
+ * (довідники застосунок не змінює взагалі) і рішення, прийняті на іншому екземплярі, не змінюють версій,
+ * тож ETag старіє з кінцем періоду, і 304 на застарілі дані можлива не довше за один період.
+ */
+@Component
+public class VersionStamps {
+
+    /**
+     * Довідники, які віддаються повністю
+     */
+    public enum Catalog {
+        SERVICES, DEPARTMENTS, POSITIONS
+    }
+
+    private final AccessDecisionCache accessDecisions;
+    private final long maxAgeMillis;
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong common = new AtomicLong();
+    private final AtomicLongArray catalogs = new AtomicLongArray(Catalog.values().length);
+    private final Map<Long, Long> services = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VersionStamps(AccessDecisionCache accessDecisions,
+                         @Value("${sunpp.version-stamps.max-age-millis:60000}") long maxAgeMillis) {
+        this.accessDecisions = accessDecisions;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Змінює версію заявок сервісу
+     * @param serviceId Ідентифікатор сервісу
+     */
+    public void touchService(Long serviceId) {
+        services.merge(serviceId, clock.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Змінює версію довідника
+     * @param catalog Довідник
+     */
+    public void touchCatalog(Catalog catalog) {
+        catalogs.accumulateAndGet(catalog.ordinal(), clock.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Змінює загальну версію, а з нею і версії заявок усіх сервісів
+     */
+    public void touchAll() {
+        common.accumulateAndGet(clock.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * @return ETag довідника
+     */
+    public String getCatalogETag(Catalog catalog) {
+        return toETag(catalog.name(), catalogs.get(catalog.ordinal()));
+    }
+
+    /**
+     * @return ETag заявок одного сервісу
+     */
+    public String getServiceETag(Long serviceId) {
+        return toETag("service-" + serviceId, Math.max(common.get(), getServiceVersion(serviceId)));
+    }
+
+    /**
+     * @return ETag заявок усіх сервісів власника
+     */
+    public String getOwnerETag(Long ownerId) {
+        return toETag("owner-" + ownerId, getServicesVersion(accessDecisions.getOwnedServiceIds(ownerId)));
+    }
+
+    /**
+     * @return ETag заявок усіх сервісів адміністратора
+     */
+    public String getAdminETag(Long adminId) {
+        return toETag("admin-" + adminId, getServicesVersion(accessDecisions.getServiceIds(adminId, RoleConstants.ADMIN)));
+    }
+
+    private long getServicesVersion(long[] serviceIds) {
+        long version = common.get();
+        for (long serviceId : serviceIds) {
+            version = Math.max(version, getServiceVersion(serviceId));
+        }
+        return version;
+    }
+
+    private long getServiceVersion(long serviceId) {
+        Long version = services.get(serviceId);
+        return version == null ? 0 : version;
+    }
+
+    private String toETag(String resource, long version) {
+        long period = System.currentTimeMillis() / maxAgeMillis;
+        return "\"" + resource + "-" + instance + "-" + Long.toString(period, 36) + "-" + Long.toString(version, 36) + "\"";
+    }
+}
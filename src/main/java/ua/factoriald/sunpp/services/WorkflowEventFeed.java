@@ -0,0 +1,70 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.dto.WorkflowEventBatch;
+import ua.factoriald.sunpp.repository.WorkflowEventRepository;
+
+import java.util.List;
+
+/**
+ * Читає вихідну чергу переходів заявок ({@link WorkflowEventEntity}) для зовнішніх систем.
+ *
+ * Клієнт зберігає позицію останньої прочитаної події і передає її в наступному запиті,
+ * тому кожна подія читається один раз послідовно за позицією.
+ * Перед читанням нові підтверджені події отримують позиції ({@link WorkflowEventRelay}),
+ * тому подія з меншим ідентифікатором, підтверджена пізніше, не пропускається, а читається наступною частиною.
+ */
+@Component
+public class WorkflowEventFeed {
+
+    /**
+     * Розмір частини, якщо клієнт його не вказав
+     */
+    public static final int DEFAULT_LIMIT = 500;
+
+    /**
+     * Найбільший дозволений розмір частини
+     */
+    public static final int MAX_LIMIT = 5000;
+
+    private final WorkflowEventRepository eventRepository;
+    private final WorkflowEventRelay eventRelay;
+    private final DataProcessService dataService;
+
+    @Autowired
+    public WorkflowEventFeed(WorkflowEventRepository eventRepository, WorkflowEventRelay eventRelay,
+                             DataProcessService dataService) {
+        this.eventRepository = eventRepository;
+        this.eventRelay = eventRelay;
+        this.dataService = dataService;
+    }
+
+    /**
+     * Повертає події після курсора
+     * @param afterString Позиція останньої прочитаної події (опціонально, спочатку читається вся черга)
+     * @param limitString Найбільша кількість подій (опціонально)
+     * @return Події і курсор для наступного читання
+     * @throws ResponseStatusException, якщо курсор чи розмір неправильні
+     */
+    public WorkflowEventBatch getEventsOrThrow(String afterString, String limitString) throws ResponseStatusException {
+        long afterPosition = afterString == null ? 0 : dataService.getLongOrThrow(afterString);
+        int limit = DEFAULT_LIMIT;
+        if (limitString != null) {
+            long requested = dataService.getLongOrThrow(limitString);
+            if (requested < 1 || requested > MAX_LIMIT) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Розмір має бути від 1 до " + MAX_LIMIT);
+            }
+            limit = (int) requested;
+        }
+
+        eventRelay.assignPositions(MAX_LIMIT);
+        List<WorkflowEventEntity> events = eventRepository.getAllAfter(afterPosition, PageRequest.of(0, limit));
+        long lastPosition = events.isEmpty() ? afterPosition : events.get(events.size() - 1).getPosition();
+        return new WorkflowEventBatch(events, lastPosition);
+    }
+}
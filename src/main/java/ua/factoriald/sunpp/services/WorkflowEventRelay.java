@@ -0,0 +1,88 @@
+package ua.factoriald.sunpp.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.WorkflowEventRelayEntity;
+import ua.factoriald.sunpp.repository.WorkflowEventRelayRepository;
+import ua.factoriald.sunpp.repository.WorkflowEventRepository;
+
+import java.util.List;
+
+/**
+ * Видає позиції підтвердженим подіям вихідної черги ({@link WorkflowEventEntity#getPosition()}).
+ *
+ * Ідентифікатори подій видаються при записі, а транзакції підтверджуються в іншому порядку, тому курсор
+ * за ідентифікатором пропустив би подію з меншим ідентифікатором, підтверджену пізніше.
+ * Позиції ж видаються тільки вже підтвердженим подіям і під блокуванням рядка {@link WorkflowEventRelayEntity}:
+ * кожна видача бачить усі попередні і продовжує їх нумерацію. Тож подія, яка стала видимою пізніше,
+ * отримує більшу позицію, ніж усі події, які читач вже міг побачити.
+ */
+@Component
+public class WorkflowEventRelay {
+
+    /**
+     * Найбільша кількість подій, що отримують позиції в одній транзакції
+     */
+    public static final int PASS_SIZE = 1000;
+
+    private final WorkflowEventRepository eventRepository;
+    private final WorkflowEventRelayRepository relayRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public WorkflowEventRelay(WorkflowEventRepository eventRepository, WorkflowEventRelayRepository relayRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.relayRepository = relayRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Видає позиції підтвердженим подіям без позиції, в порядку ідентифікаторів.
+     * Позиції видаються проходами по {@link #PASS_SIZE} подій, кожен у своїй транзакції
+     * @param limit Найбільша кількість подій
+     * @return Кількість подій, що отримали позицію
+     */
+    public synchronized int assignPositions(int limit) {
+        int total = 0;
+        while (total < limit) {
+            int assigned = assignPass(Math.min(PASS_SIZE, limit - total));
+            total += assigned;
+            if (assigned == 0) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int assignPass(int limit) {
+        //перевірка без блокування: черга здебільшого читається, коли нових подій немає
+        List<Long> pending = eventRepository.getIdsWithoutPosition(PageRequest.of(0, limit));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Long maxPendingId = pending.get(pending.size() - 1);
+        Integer assigned = transactionTemplate.execute(status -> {
+            WorkflowEventRelayEntity relay = relayRepository.getForUpdate(WorkflowEventRelayEntity.SINGLETON_ID);
+            if (relay == null) {
+                relay = new WorkflowEventRelayEntity();
+                relay.setId(WorkflowEventRelayEntity.SINGLETON_ID);
+                relay.setLastPosition(0L);
+                relay = relayRepository.saveAndFlush(relay);
+            }
+            //події перечитуються під блокуванням: інший екземпляр міг вже видати їм позиції
+            List<WorkflowEventEntity> events = eventRepository.getAllWithoutPositionUpTo(maxPendingId, PageRequest.of(0, limit));
+            long position = relay.getLastPosition();
+            for (WorkflowEventEntity event : events) {
+                event.setPosition(++position);
+            }
+            relay.setLastPosition(position);
+            return events.size();
+        });
+        return assigned == null ? 0 : assigned;
+    }
+}
@@ -0,0 +1,270 @@
+package ua.factoriald.sunpp.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Відображення з ключами типу long без упаковки ключів у {@link Long}.
+ *
+ * Використовується для індексів сутностей за ідентифікатором в межах одного запиту чи знімка довідника.
+ * Відкрита адресація з лінійним пробуванням: ключі і значення лежать у двох масивах, без об'єкта на кожен запис.
+ * Клас не потокобезпечний.
+ *
+ * @param <V> Тип значень
+ */
+public class LongHashMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Ключ 0 позначає порожню комірку, тому значення для нього зберігається окремо
+     */
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Очікувана кількість записів, щоб не розширювати таблицю при заповненні
+     */
+    public LongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Будує індекс елементів за ключем
+     * @param items Елементи
+     * @param keyFunction Функція, що повертає ключ елемента
+     * @return Нове відображення ключ -> елемент
+     */
+    public static <V> LongHashMap<V> indexBy(Collection<? extends V> items, Function<? super V, Long> keyFunction) {
+        LongHashMap<V> map = new LongHashMap<>(items.size());
+        for (V item : items) {
+            map.put(keyFunction.apply(item), item);
+        }
+        return map;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * @param key Ключ
+     * @return Значення за ключем
+     * @null якщо ключа немає
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        return keys[index] == key ? (V) values[index] : null;
+    }
+
+    /**
+     * Записує значення за ключем
+     * @param key Ключ
+     * @param value Значення
+     * @return Попереднє значення за ключем
+     * @null якщо ключа не було
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int index = indexOf(key);
+        if (keys[index] == key) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > maxFill()) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Видаляє запис за ключем
+     * @param key Ключ
+     * @return Видалене значення
+     * @null якщо ключа не було
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            V previous = zeroValue;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int index = indexOf(key);
+        if (keys[index] != key) {
+            return null;
+        }
+        V previous = (V) values[index];
+        size--;
+        shiftBack(index);
+        return previous;
+    }
+
+    /**
+     * Обходить усі записи в довільному порядку
+     * @param action Дія для кожного запису
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        if (hasZeroKey) {
+            action.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Дія над записом відображення
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * @return Індекс комірки з ключем або першої порожньої комірки, куди його можна записати
+     */
+    private int indexOf(long key) {
+        int index = mix(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY && current != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Після видалення зсуває наступні записи ланцюжка назад, щоб пошук не зупинявся на дірці
+     */
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = mix(key) & mask;
+            //запис можна перенести в дірку, якщо його домашня комірка не лежить між діркою і ним
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = key;
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int index = indexOf(key);
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Таблиця заповнюється не більше ніж на 3/4
+     */
+    private int maxFill() {
+        return keys.length - (keys.length >> 2);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.75));
+        if (needed > (1 << 30)) {
+            throw new IllegalArgumentException("Занадто великий розмір: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * Перемішує біти ключа, бо ідентифікатори з послідовностей ідуть підряд і скупчувались би в сусідніх комірках
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Очищує відображення, залишаючи розмір таблиці
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,372 @@
+package ua.factoriald.sunpp.util;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Індекс для пошуку документів за словами тексту: за префіксом слова і неточно, за спільними триграмами.
+ *
+ * Текст кожного документа розбивається на слова (див. {@link #tokenize(String)}). Для кожного слова зберігається
+ * список документів, а слова лежать у впорядкованому словнику, тож слова з префіксом - це один діапазон словника.
+ * Для неточного пошуку кожне слово також записане під своїми триграмами. Слів значно менше, ніж документів,
+ * тому обидва пошуки перебирають словник, а не документи.
+ *
+ * Кожне слово запиту має збігтися з якимось словом документа. Оцінка слова: 1 за точний збіг,
+ * від 0.5 до 1 за префікс (більше для довшої частини слова), до 0.5 за схожість триграм.
+ * Оцінка документа - середня оцінка слів запиту, за рівної оцінки вище коротший текст.
+ * Клас не потокобезпечний.
+ *
+ * @param <D> Тип документів
+ */
+public class TextIndex<D> {
+
+    /**
+     * Найкоротше слово запиту, для якого шукаються схожі слова, а не тільки слова з таким префіксом
+     */
+    public static final int FUZZY_MIN_LENGTH = 3;
+
+    /**
+     * Найменша схожість триграм (коефіцієнт Дайса), з якою слово вважається схожим на слово запиту
+     */
+    public static final float FUZZY_MIN_SIMILARITY = 0.5f;
+
+    private static final Pattern APOSTROPHES = Pattern.compile("['’ʼ`]");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final LongHashMap<Entry<D>> entries = new LongHashMap<>();
+
+    /**
+     * Зайняті номери документів. Номер - щільний індекс документа для позначок під час пошуку
+     */
+    private final BitSet slots = new BitSet();
+
+    /**
+     * Слово - документи з цим словом
+     */
+    private final NavigableMap<String, Term<D>> terms = new TreeMap<>();
+
+    /**
+     * Триграма - слова з цією триграмою
+     */
+    private final Map<String, List<Term<D>>> trigrams = new HashMap<>();
+
+    /**
+     * Розбиває текст на слова: нижній регістр, без апострофів, роздільники - все, крім літер і цифр
+     * @param text Текст
+     * @return Слова тексту
+     */
+    public static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String normalized = APOSTROPHES.matcher(text.toLowerCase(Locale.ROOT)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param key Ключ документа
+     * @return Документ або @null
+     */
+    public D get(long key) {
+        Entry<D> entry = entries.get(key);
+        return entry == null ? null : entry.document;
+    }
+
+    /**
+     * Додає документ або замінює документ з тим самим ключем
+     * @param key Ключ документа
+     * @param text Текст, за яким шукається документ
+     * @param document Документ
+     */
+    public void put(long key, String text, D document) {
+        remove(key);
+        int slot = slots.nextClearBit(0);
+        slots.set(slot);
+        Entry<D> entry = new Entry<>(key, slot, document, tokenize(text), text == null ? 0 : text.length());
+        entries.put(key, entry);
+        for (String word : entry.words) {
+            Term<D> term = terms.get(word);
+            if (term == null) {
+                term = new Term<>(word);
+                terms.put(word, term);
+                for (String trigram : term.trigrams) {
+                    trigrams.computeIfAbsent(trigram, t -> new ArrayList<>(2)).add(term);
+                }
+            }
+            term.postings.add(entry);
+        }
+    }
+
+    /**
+     * Видаляє документ
+     * @param key Ключ документа
+     * @return Видалений документ або @null
+     */
+    public D remove(long key) {
+        Entry<D> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        slots.clear(entry.slot);
+        for (String word : entry.words) {
+            Term<D> term = terms.get(word);
+            term.postings.remove(entry);
+            if (term.postings.isEmpty()) {
+                terms.remove(word);
+                for (String trigram : term.trigrams) {
+                    List<Term<D>> withTrigram = trigrams.get(trigram);
+                    withTrigram.remove(term);
+                    if (withTrigram.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+        return entry.document;
+    }
+
+    /**
+     * Шукає документи, в яких кожне слово запиту збігається з якимось словом документа
+     * @param query Запит
+     * @param limit Найбільша кількість результатів
+     * @param filter Умова, яку мають виконувати документи
+     * @return Найкращі результати, від кращого до гіршого
+     */
+    public List<Hit<D>> search(String query, int limit, Predicate<? super D> filter) {
+        String[] words = tokenize(query);
+        if (words.length == 0 || limit < 1) {
+            return Collections.emptyList();
+        }
+
+        //кандидати беруться зі слова з найменшою кількістю документів, решта слів перевіряється за словами кандидата
+        List<List<Match<D>>> matches = new ArrayList<>(words.length);
+        int driver = 0;
+        long driverCost = Long.MAX_VALUE;
+        for (int i = 0; i < words.length; i++) {
+            List<Match<D>> wordMatches = match(words[i]);
+            if (wordMatches.isEmpty()) {
+                return Collections.emptyList();
+            }
+            long cost = 0;
+            for (Match<D> match : wordMatches) {
+                cost += match.term.postings.size();
+            }
+            if (cost < driverCost) {
+                driver = i;
+                driverCost = cost;
+            }
+            matches.add(wordMatches);
+        }
+        List<Map<String, Float>> others = new ArrayList<>(words.length - 1);
+        for (int i = 0; i < words.length; i++) {
+            if (i != driver) {
+                Map<String, Float> termScores = new HashMap<>();
+                for (Match<D> match : matches.get(i)) {
+                    termScores.put(match.term.word, match.score);
+                }
+                others.add(termScores);
+            }
+        }
+
+        //слова перебираються від кращої оцінки, тому документ уперше трапляється з найкращою оцінкою,
+        //а перебір зупиняється, коли наступні слова вже не можуть потрапити в результат
+        List<Match<D>> driverMatches = matches.get(driver);
+        driverMatches.sort((a, b) -> Float.compare(b.score, a.score));
+        Comparator<Hit<D>> order = Hit.order();
+        PriorityQueue<Hit<D>> best = new PriorityQueue<>(limit + 1, order.reversed());
+        BitSet seen = new BitSet(slots.length());
+        for (Match<D> match : driverMatches) {
+            if (best.size() == limit && (match.score + others.size()) / words.length < best.peek().score) {
+                break;
+            }
+            for (Entry<D> entry : match.term.postings) {
+                if (seen.get(entry.slot)) {
+                    continue;
+                }
+                seen.set(entry.slot);
+
+                float score = score(entry, match.score, others);
+                if (score < 0) {
+                    continue;
+                }
+                Hit<D> hit = new Hit<>(entry.key, entry.document, score / words.length, entry.length);
+                if (best.size() == limit && order.compare(hit, best.peek()) >= 0) {
+                    continue;
+                }
+                if (!filter.test(entry.document)) {
+                    continue;
+                }
+                best.add(hit);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Hit<D>> hits = new ArrayList<>(best);
+        hits.sort(order);
+        return hits;
+    }
+
+    /**
+     * @return Сума оцінок слів запиту для документа або -1, якщо якесь слово не збіглося
+     */
+    private static <D> float score(Entry<D> entry, float driverScore, List<Map<String, Float>> others) {
+        float score = driverScore;
+        for (Map<String, Float> termScores : others) {
+            float wordScore = 0;
+            for (String word : entry.words) {
+                Float termScore = termScores.get(word);
+                if (termScore != null && termScore > wordScore) {
+                    wordScore = termScore;
+                }
+            }
+            if (wordScore == 0) {
+                return -1;
+            }
+            score += wordScore;
+        }
+        return score;
+    }
+
+    /**
+     * @param word Слово запиту
+     * @return Слова індексу, що збігаються зі словом запиту, з оцінками
+     */
+    private List<Match<D>> match(String word) {
+        List<Match<D>> matches = new ArrayList<>();
+
+        for (Term<D> term : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+            matches.add(new Match<>(term, 0.5f + 0.5f * word.length() / term.word.length()));
+        }
+
+        if (word.length() >= FUZZY_MIN_LENGTH) {
+            String[] wordTrigrams = trigramsOf(word);
+            Map<Term<D>, int[]> common = new HashMap<>();
+            for (String trigram : wordTrigrams) {
+                List<Term<D>> withTrigram = trigrams.get(trigram);
+                if (withTrigram != null) {
+                    for (Term<D> term : withTrigram) {
+                        common.computeIfAbsent(term, t -> new int[1])[0]++;
+                    }
+                }
+            }
+            for (Map.Entry<Term<D>, int[]> candidate : common.entrySet()) {
+                Term<D> term = candidate.getKey();
+                float similarity = 2f * candidate.getValue()[0] / (wordTrigrams.length + term.trigrams.length);
+                if (similarity >= FUZZY_MIN_SIMILARITY && !term.word.startsWith(word)) {
+                    matches.add(new Match<>(term, 0.5f * similarity));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Триграми слова з пробілами на межах, тож початок і кінець слова мають власні триграми
+     */
+    private static String[] trigramsOf(String word) {
+        String padded = ' ' + word + ' ';
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Результат пошуку
+     * @param <D> Тип документа
+     */
+    public static final class Hit<D> {
+
+        private final long key;
+        private final D document;
+        private final float score;
+        private final int length;
+
+        private Hit(long key, D document, float score, int length) {
+            this.key = key;
+            this.document = document;
+            this.score = score;
+            this.length = length;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public D getDocument() {
+            return document;
+        }
+
+        /**
+         * @return Оцінка від 0 до 1
+         */
+        public float getScore() {
+            return score;
+        }
+
+        /**
+         * Порядок результатів: більша оцінка, потім коротший текст, потім менший ключ
+         */
+        public static <D> Comparator<Hit<D>> order() {
+            return (a, b) -> {
+                int byScore = Float.compare(b.score, a.score);
+                if (byScore != 0) {
+                    return byScore;
+                }
+                int byLength = Integer.compare(a.length, b.length);
+                return byLength != 0 ? byLength : Long.compare(a.key, b.key);
+            };
+        }
+    }
+
+    private static final class Entry<D> {
+
+        private final long key;
+        private final int slot;
+        private final D document;
+        private final String[] words;
+        private final int length;
+
+        private Entry(long key, int slot, D document, String[] words, int length) {
+            this.key = key;
+            this.slot = slot;
+            this.document = document;
+            this.words = words;
+            this.length = length;
+        }
+    }
+
+    private static final class Match<D> {
+
+        private final Term<D> term;
+        private final float score;
+
+        private Match(Term<D> term, float score) {
+            this.term = term;
+            this.score = score;
+        }
+    }
+
+    private static final class Term<D> {
+
+        private final String word;
+        private final String[] trigrams;
+        private final Set<Entry<D>> postings = new HashSet<>(2);
+
+        private Term(String word) {
+            this.word = word;
+            this.trigrams = trigramsOf(word);
+        }
+    }
+}
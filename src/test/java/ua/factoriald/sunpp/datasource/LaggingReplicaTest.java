@@ -0,0 +1,114 @@
+package ua.factoriald.sunpp.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.repository.UserHaveAccessToServiceRepository;
+import ua.factoriald.sunpp.services.AccessDecisionCache;
+import ua.factoriald.sunpp.services.CatalogResponseCache;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Перевіряє на двох вбудованих базах, що дані для кешів читаються з основної бази, коли репліка відстає:
+ * власник сервісу вже змінений на основній базі, а на репліці ще старий.
+ * Репозиторії читають, як Spring Data, у транзакції тільки для читання
+ */
+class LaggingReplicaTest {
+
+    private static final long SERVICE_ID = 10L;
+    private static final long OLD_OWNER_ID = 1L;
+    private static final long NEW_OWNER_ID = 2L;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(
+                database("primary", NEW_OWNER_ID), Collections.singletonList(database("replica", OLD_OWNER_ID)), 1000);
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.end();
+    }
+
+    @Test
+    void readsOutsideScopeGoToLaggingReplica() {
+        assertEquals(OLD_OWNER_ID, readOwner());
+
+        try (ReadYourWrites.PrimaryScope outer = ReadYourWrites.forcePrimary()) {
+            try (ReadYourWrites.PrimaryScope inner = ReadYourWrites.forcePrimary()) {
+                assertEquals(NEW_OWNER_ID, readOwner());
+            }
+            //вкладена область не закриває зовнішню
+            assertEquals(NEW_OWNER_ID, readOwner());
+            outer.close();
+            outer.close();
+            assertEquals(OLD_OWNER_ID, readOwner());
+        }
+        assertFalse(ReadYourWrites.isPrimaryRequired());
+    }
+
+    @Test
+    void accessDecisionsLoadFromPrimary() {
+        ServiceRepository serviceRepository = mock(ServiceRepository.class);
+        when(serviceRepository.getOwnerUserId(anyLong())).thenAnswer(invocation -> readOwner());
+        AccessDecisionCache accessDecisions = new AccessDecisionCache(
+                mock(UserHaveAccessToServiceRepository.class), serviceRepository, 100, 60);
+
+        assertTrue(accessDecisions.isOwnerOfService(NEW_OWNER_ID, SERVICE_ID));
+        assertFalse(accessDecisions.isOwnerOfService(OLD_OWNER_ID, SERVICE_ID));
+    }
+
+    @Test
+    void catalogResponsesLoadFromPrimary() {
+        CatalogResponseCache catalogCache = new CatalogResponseCache(new ObjectMapper(),
+                new MappingJackson2CborHttpMessageConverter(), new MappingJackson2SmileHttpMessageConverter(), 1 << 20, false, 0, 60000);
+
+        byte[] body = catalogCache.getResponse("service/all", "\"v2\"", new ServletWebRequest(new MockHttpServletRequest()),
+                (Supplier<Long>) this::readOwner).getBody();
+
+        assertEquals(Long.toString(NEW_OWNER_ID), new String(body, StandardCharsets.UTF_8));
+    }
+
+    private Long readOwner() {
+        return readOnly.execute(status ->
+                jdbc.queryForObject("select OWNER_ID from SERVICES where SERVICE_ID = ?", Long.class, SERVICE_ID));
+    }
+
+    private static DataSource database(String name, long ownerId) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:lagging-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists SERVICES (SERVICE_ID bigint primary key, OWNER_ID bigint)");
+        jdbc.update("delete from SERVICES");
+        jdbc.update("insert into SERVICES values (?, ?)", SERVICE_ID, ownerId);
+        return dataSource;
+    }
+}
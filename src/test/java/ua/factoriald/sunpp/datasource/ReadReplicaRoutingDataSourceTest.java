@@ -0,0 +1,95 @@
+package ua.factoriald.sunpp.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Перевіряє маршрутизацію на двох вбудованих базах: основній і репліці.
+ * Кожна база має таблицю з власною назвою, тож запит показує, куди він пішов.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.end();
+    }
+
+    @Test
+    void sendsReadOnlyTransactionsToReplica() {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, Collections.singletonList(replica), 1000);
+
+        assertEquals("replica", query(routing, true));
+        assertEquals("primary", query(routing, false));
+        assertEquals("primary", new JdbcTemplate(routing).queryForObject("select NAME from DATABASE_NAME", String.class));
+    }
+
+    @Test
+    void readsOwnWritesFromPrimary() {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, Collections.singletonList(replica), 1000);
+        int[] firstWrites = new int[1];
+
+        ReadYourWrites.begin(0, () -> firstWrites[0]++);
+        assertEquals("replica", query(routing, true));
+        query(routing, false);
+        query(routing, false);
+        assertEquals("primary", query(routing, true));
+        assertEquals(1, firstWrites[0]);
+
+        ReadYourWrites.begin(System.currentTimeMillis() + 60000, () -> { });
+        assertEquals("primary", query(routing, true));
+        ReadYourWrites.begin(System.currentTimeMillis() - 1, () -> { });
+        assertEquals("replica", query(routing, true));
+    }
+
+    @Test
+    void skipsUnavailableReplica() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("Репліка вимкнена"));
+        List<DataSource> replicas = Arrays.asList(broken, replica);
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, replicas, 60000);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", query(routing, true));
+        }
+        verify(broken, times(1)).getConnection();
+        assertEquals(1, routing.getAvailableReplicas());
+
+        ReadReplicaRoutingDataSource onlyBroken = new ReadReplicaRoutingDataSource(primary, Collections.singletonList(broken), 60000);
+        assertEquals("primary", query(onlyBroken, true));
+    }
+
+    private static String query(ReadReplicaRoutingDataSource routing, boolean readOnly) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select NAME from DATABASE_NAME", String.class));
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists DATABASE_NAME (NAME varchar(20))");
+        jdbc.update("delete from DATABASE_NAME");
+        jdbc.update("insert into DATABASE_NAME values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,48 @@
+package ua.factoriald.sunpp.execution;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Перевіряє видачу і повернення дозволів при відкритті і закритті з'єднань
+ */
+class ConcurrencyLimitedDataSourceTest {
+
+    @Test
+    void releasesPermitOnceWhenConnectionIsClosed() throws SQLException {
+        Connection connection = mock(Connection.class);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 2, 10);
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertEquals(2, dataSource.getActiveConnections());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.getActiveConnections());
+        verify(connection, times(2)).close();
+
+        second.close();
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+
+    @Test
+    void releasesPermitWhenPoolFails() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("Пул вичерпано"));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 10);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+}
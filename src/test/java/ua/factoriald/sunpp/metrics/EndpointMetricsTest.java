@@ -0,0 +1,44 @@
+package ua.factoriald.sunpp.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Перевіряє, що таймери контролерів, репозиторіїв, лічильники Hibernate по запитах
+ * і статистика регіонів кешу другого рівня видно в Prometheus
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("h2")
+class EndpointMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void exposesEndpointAndHibernateMetrics() throws Exception {
+        mockMvc.perform(get("/admin/position/all")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "sunpp_controller_method_seconds_count{application=\"sunpp\",controller=\"ServiceAdminController\",exception=\"none\",method=\"getAllPositions\",}")))
+                .andExpect(content().string(containsString(
+                        "sunpp_hibernate_statements_sum{application=\"sunpp\",endpoint=\"ServiceAdminController.getAllPositions\",} 1.0")))
+                .andExpect(content().string(containsString(
+                        "spring_data_repository_invocations_seconds_count{application=\"sunpp\",exception=\"None\",method=\"findAll\",repository=\"PositionRepository\"")))
+                .andExpect(content().string(containsString(
+                        "hibernate_second_level_cache_requests_total{application=\"sunpp\",entityManagerFactory=\"entityManagerFactory\",region=\"positions\",result=\"miss\",}")));
+    }
+}
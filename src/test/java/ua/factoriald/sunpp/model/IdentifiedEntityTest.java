@@ -0,0 +1,84 @@
+package ua.factoriald.sunpp.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє, що збережена сутність рівна своїй копії з іншого контексту персистентності
+ * і має той самий хеш-код, а нова сутність у множині губиться після збереження
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IdentifiedEntityTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void persistedEntityEqualsReloadedCopy() {
+        DepartmentEntity department = new DepartmentEntity();
+        department.setName("Цех");
+        DepartmentEntity other = new DepartmentEntity();
+        other.setName("Цех");
+        //хеш-код нової сутності береться до збереження, як при додаванні в колекцію
+        assertEquals(department.hashCode(), other.hashCode());
+        assertNotEquals(department, other);
+
+        entityManager.persist(department);
+        entityManager.flush();
+        entityManager.clear();
+        DepartmentEntity reloaded = entityManager.find(DepartmentEntity.class, department.getId());
+
+        assertNotSame(department, reloaded);
+        assertEquals(department, reloaded);
+        assertEquals(reloaded, department);
+        assertEquals(department.hashCode(), reloaded.hashCode());
+
+        Set<DepartmentEntity> departments = new HashSet<>(Collections.singleton(reloaded));
+        assertTrue(departments.contains(department));
+        assertFalse(departments.contains(other));
+    }
+
+    @Test
+    void newEntityAddedToSetIsNotFoundAfterPersist() {
+        DepartmentEntity department = new DepartmentEntity();
+        department.setName("Цех");
+        entityManager.persist(department);
+        PositionEntity position = new PositionEntity();
+        position.setPosition("Інженер");
+        entityManager.persist(position);
+        WorkerEntity worker = new WorkerEntity();
+        worker.setFullname("Робітник");
+        worker.setDepartment(department);
+        worker.setPosition(position);
+        entityManager.persist(worker);
+
+        UserEntity user = new UserEntity();
+        user.setLogin("user");
+        user.setWorkerEntity(worker);
+        worker.getUsers().add(user);
+        entityManager.persist(user);
+
+        //хеш-код змінився при збереженні, тож множина шукає користувача не в тому кошику
+        assertEquals(1, worker.getUsers().size());
+        assertFalse(worker.getUsers().contains(user));
+        assertFalse(worker.getUsers().remove(user));
+
+        //множина, завантажена після збереження, знаходить користувача
+        entityManager.flush();
+        entityManager.clear();
+        WorkerEntity reloaded = entityManager.find(WorkerEntity.class, worker.getId());
+        assertTrue(reloaded.getUsers().contains(user));
+    }
+}
@@ -0,0 +1,41 @@
+package ua.factoriald.sunpp.model.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє, що курсор зберігає позицію з точністю до наносекунд і відхиляє пошкоджені рядки
+ */
+class ApplicationCursorTest {
+
+    @Test
+    void decodesWhatWasEncoded() {
+        Timestamp creationDate = Timestamp.valueOf("2022-05-17 10:15:30.123456789");
+        ApplicationCursor cursor = ApplicationCursor.decode(new ApplicationCursor(creationDate, 42L).encode());
+
+        assertEquals(creationDate, cursor.getCreationDate());
+        assertEquals(123456789, cursor.getCreationDate().getNanos());
+        assertEquals(42L, cursor.getId());
+
+        ApplicationCursor start = ApplicationCursor.decode(ApplicationCursor.START.encode());
+        assertEquals(ApplicationCursor.START.getCreationDate(), start.getCreationDate());
+        assertEquals(ApplicationCursor.START.getId(), start.getId());
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String token : new String[]{"не base64!", encode("1:2"), encode("1:2:3:4"), encode("x:0:1"),
+                encode("0:1000000000:1"), encode("0:0:")}) {
+            assertThrows(IllegalArgumentException.class, () -> ApplicationCursor.decode(token), token);
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+package ua.factoriald.sunpp.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.factoriald.sunpp.model.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Перевіряє, що повторне читання сервісу, користувача за логіном і сервісів власника
+ * обслуговується кешем другого рівня і кешем запитів без звернень до бази
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkerRepository workerRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private PositionRepository positionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ServiceEntity service;
+    private UserEntity owner;
+
+    @BeforeEach
+    void setUp() {
+        DepartmentEntity department = new DepartmentEntity();
+        department.setName("Цех");
+        department = departmentRepository.save(department);
+
+        PositionEntity position = new PositionEntity();
+        position.setPosition("Інженер");
+        position = positionRepository.save(position);
+
+        WorkerEntity worker = new WorkerEntity();
+        worker.setFullname("Власник");
+        worker.setDepartment(department);
+        worker.setPosition(position);
+        worker = workerRepository.save(worker);
+
+        owner = new UserEntity();
+        owner.setLogin("owner");
+        owner.setWorkerEntity(worker);
+        owner = userRepository.save(owner);
+
+        service = new ServiceEntity();
+        service.setName("Сервіс");
+        service.setOwnerUser(owner);
+        service.setAvaliableRoles(new ArrayList<>());
+        service = serviceRepository.save(service);
+
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        workerRepository.deleteAll();
+        departmentRepository.deleteAll();
+        positionRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReadsDoNotHitDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        readServiceAndOwner();
+        long firstReadStatements = statistics.getPrepareStatementCount();
+        assertTrue(firstReadStatements > 0);
+
+        readServiceAndOwner();
+        assertEquals(firstReadStatements, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+        assertTrue(statistics.getDomainDataRegionStatistics("services").getHitCount() > 0);
+        assertTrue(statistics.getDomainDataRegionStatistics("service-roles").getHitCount() > 0);
+    }
+
+    private void readServiceAndOwner() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ServiceEntity found = serviceRepository.findById(service.getId()).get();
+            assertEquals(0, found.getAvaliableRoles().size());
+
+            UserEntity user = userRepository.findByLogin("owner");
+            assertEquals("Інженер", user.getWorkerEntity().getPosition().getPosition());
+            assertEquals(1, serviceRepository.getAllByOwnerUser(user).size());
+        });
+    }
+}
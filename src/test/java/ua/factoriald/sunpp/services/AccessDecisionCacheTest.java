@@ -0,0 +1,158 @@
+package ua.factoriald.sunpp.services;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє, що рішення про права змінюються після підтвердження транзакцій, які змінили записи доступу
+ * чи власника сервісу, і що зміна сервісу не видаляє рішення про ролі
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ApplicationWorkflowService.class, DataProcessService.class, ReferenceDataRegistry.class, AccessDecisionCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccessDecisionCacheTest {
+
+    @Autowired
+    private AccessDecisionCache accessDecisions;
+
+    @Autowired
+    private ApplicationWorkflowService workflowService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private long ownerId;
+    private long adminId;
+    private long applicantId;
+    private long serviceId;
+
+    @BeforeEach
+    void setUp() {
+        inTransaction(() -> {
+            ApplicationTestData testData = ApplicationTestData.create(entityManager);
+            UserEntity owner = testData.createUser("owner");
+            UserEntity admin = testData.createUser("admin");
+            UserEntity applicant = testData.createUser("applicant");
+
+            ServiceEntity service = new ServiceEntity();
+            service.setName("Сервіс");
+            service.setOwnerUser(owner);
+            entityManager.persist(service);
+
+            UserHaveAccessToServiceEntity adminAccess = new UserHaveAccessToServiceEntity();
+            adminAccess.setUser(admin);
+            adminAccess.setService(service);
+            adminAccess.setRole(entityManager.find(RoleEntity.class, RoleConstants.ADMIN));
+            entityManager.persist(adminAccess);
+
+            ownerId = owner.getId();
+            adminId = admin.getId();
+            applicantId = applicant.getId();
+            serviceId = service.getId();
+            return null;
+        });
+        referenceData.reload();
+        accessDecisions.invalidateAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[]{"WORKFLOW_EVENTS", "USERS_HAVING_ACCESS_TO_SERVICES", "APPLICATION_CHECKING",
+                "APPLICATIONS", "SERVICES", "USERS", "WORKERS", "DEPARTMENTS", "POSITIONS", "ROLES", "CHECK_TYPES"}) {
+            jdbcTemplate.update("delete from SERVICEADMIN2." + table);
+        }
+        accessDecisions.invalidateAll();
+    }
+
+    @Test
+    void decisionFlipsAfterAdminAcceptCommits() {
+        long applicationId = inTransaction(() -> {
+            ApplicationEntity application = workflowService.createApplication(
+                    entityManager.find(UserEntity.class, applicantId), entityManager.find(ServiceEntity.class, serviceId),
+                    referenceData.getRole(RoleConstants.USER), null, null);
+            workflowService.decideByOwner(entityManager.find(UserEntity.class, ownerId), application, true, null);
+            return application.getId();
+        });
+
+        assertFalse(accessDecisions.hasRole(applicantId, RoleConstants.USER));
+        assertFalse(accessDecisions.hasRoleInService(applicantId, RoleConstants.USER, serviceId));
+        assertArrayEquals(new long[0], accessDecisions.getServiceIds(applicantId, RoleConstants.USER));
+
+        inTransaction(() -> {
+            workflowService.decideByAdmin(entityManager.find(UserEntity.class, adminId),
+                    entityManager.find(ApplicationEntity.class, applicationId), true, null);
+            //до підтвердження транзакції рішення ще старе
+            assertFalse(accessDecisions.hasRole(applicantId, RoleConstants.USER));
+            return null;
+        });
+
+        assertTrue(accessDecisions.hasRole(applicantId, RoleConstants.USER));
+        assertTrue(accessDecisions.hasRoleInService(applicantId, RoleConstants.USER, serviceId));
+        assertArrayEquals(new long[]{serviceId}, accessDecisions.getServiceIds(applicantId, RoleConstants.USER));
+    }
+
+    @Test
+    void serviceChangeMovesOwnershipAndKeepsRoleDecisions() {
+        assertTrue(accessDecisions.isOwnerOfService(ownerId, serviceId));
+        assertArrayEquals(new long[]{serviceId}, accessDecisions.getOwnedServiceIds(ownerId));
+        assertArrayEquals(new long[0], accessDecisions.getOwnedServiceIds(adminId));
+        assertTrue(accessDecisions.hasRole(adminId, RoleConstants.ADMIN));
+
+        inTransaction(() -> {
+            ServiceEntity service = entityManager.find(ServiceEntity.class, serviceId);
+            service.setOwnerUser(entityManager.find(UserEntity.class, adminId));
+            return null;
+        });
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        assertTrue(accessDecisions.hasRole(adminId, RoleConstants.ADMIN));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        assertFalse(accessDecisions.isOwnerOfService(ownerId, serviceId));
+        assertTrue(accessDecisions.isOwnerOfService(adminId, serviceId));
+        assertArrayEquals(new long[0], accessDecisions.getOwnedServiceIds(ownerId));
+        assertArrayEquals(new long[]{serviceId}, accessDecisions.getOwnedServiceIds(adminId));
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+}
@@ -0,0 +1,117 @@
+package ua.factoriald.sunpp.services;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.CheckTypeConstants;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Перевіряє, що кількість запитів до бази даних при вивантаженні заявок сервісу разом з їх перевірками
+ * не залежить від кількості заявок
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ApplicationExportService.class)
+class ApplicationExportServiceTest {
+
+    @Autowired
+    private ApplicationExportService exportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ApplicationTestData testData;
+    private RoleEntity role;
+    private CheckTypeEntity checkType;
+    private UserEntity applicant;
+    private ServiceEntity service;
+    private int created;
+
+    @BeforeEach
+    void setUp() {
+        testData = ApplicationTestData.create(entityManager.getEntityManager());
+        role = entityManager.find(RoleEntity.class, RoleConstants.USER);
+        checkType = entityManager.find(CheckTypeEntity.class, CheckTypeConstants.CHECKING_RECORD);
+
+        applicant = testData.createUser("applicant");
+        service = new ServiceEntity();
+        service.setName("Сервіс");
+        service.setOwnerUser(testData.createUser("owner"));
+        entityManager.persist(service);
+    }
+
+    @Test
+    void exportsCheckingsWithConstantNumberOfStatements() throws IOException {
+        addApplications(2);
+        long statementsForFewApplications = countStatementsOfExport(2);
+
+        addApplications(38);
+        long statementsForManyApplications = countStatementsOfExport(40);
+
+        assertEquals(statementsForFewApplications, statementsForManyApplications);
+    }
+
+    private long countStatementsOfExport(int expectedApplications) throws IOException {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportByService(service).writeTo(output);
+        long statements = statistics.getPrepareStatementCount();
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(expectedApplications, lines.length);
+        for (String line : lines) {
+            assertTrue(line.contains("\"checkings\":[{"), line);
+        }
+        return statements;
+    }
+
+    /**
+     * Додає заявки, кожну з перевіркою іншого користувача
+     */
+    private void addApplications(int count) {
+        for (int i = 0; i < count; i++) {
+            ApplicationEntity application = new ApplicationEntity();
+            application.setApplicant(applicant);
+            application.setService(service);
+            application.setCreationDate(new Timestamp(System.currentTimeMillis()));
+
+            ApplicationCheckingEntity checking = new ApplicationCheckingEntity();
+            checking.setApplication(application);
+            checking.setCheckType(checkType);
+            checking.setRole(role);
+            checking.setUser(testData.createUser("checker" + created++));
+            application.getCheckings().add(checking);
+            entityManager.persist(application);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.dto.ApplicationImportReport;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Перевіряє імпорт заявок з CSV і JSON: створення заявок з записами перевірок і помилки по рядках
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ApplicationImportService.class, ApplicationWorkflowService.class, DataProcessService.class,
+        ReferenceDataRegistry.class, AccessDecisionCache.class, JacksonAutoConfiguration.class})
+class ApplicationImportServiceTest {
+
+    @Autowired
+    private ApplicationImportService importService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ApplicationTestData testData;
+    private UserEntity admin;
+    private UserEntity applicant;
+    private ServiceEntity adminService;
+    private ServiceEntity otherService;
+
+    @BeforeEach
+    void setUp() {
+        testData = ApplicationTestData.create(entityManager.getEntityManager());
+        RoleEntity userRole = entityManager.find(RoleEntity.class, RoleConstants.USER);
+
+        admin = testData.createUser("admin");
+        applicant = testData.createUser("applicant");
+        adminService = createService("Сервіс адміністратора", userRole);
+        otherService = createService("Інший сервіс", userRole);
+
+        UserHaveAccessToServiceEntity access = new UserHaveAccessToServiceEntity();
+        access.setUser(admin);
+        access.setRole(entityManager.find(RoleEntity.class, RoleConstants.ADMIN));
+        access.setService(adminService);
+        entityManager.persist(access);
+
+        entityManager.flush();
+        referenceData.reload();
+    }
+
+    @Test
+    void importsValidCsvRowsAndReportsInvalidOnes() {
+        String csv = "user_id,service_id,role_id,department_id,note\n" +
+                applicant.getId() + "," + adminService.getId() + ",3," + testData.getDepartment().getId() + ",\"Доступ, будь ласка\"\n" +
+                applicant.getId() + "," + adminService.getId() + ",3,,\n" +
+                "abc," + adminService.getId() + ",3\n" +
+                "-1," + adminService.getId() + ",3\n" +
+                applicant.getId() + "," + otherService.getId() + ",3\n" +
+                applicant.getId() + "," + adminService.getId() + ",2\n";
+
+        ApplicationImportReport report = importService.importApplications(admin,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ApplicationImportService.TEXT_CSV);
+
+        assertEquals(6, report.getTotalRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(4, report.getErrors().size());
+        assertEquals("Неправильні дані", report.getErrors().get(0).getError());
+        assertEquals(3, report.getErrors().get(0).getRowNumber());
+        assertEquals("Немає такого користувача", report.getErrors().get(1).getError());
+        assertEquals("Це не сервіс адміністратора", report.getErrors().get(2).getError());
+        assertEquals("Сервіс не має такої ролі", report.getErrors().get(3).getError());
+
+        List<ApplicationEntity> applications = entityManager.getEntityManager()
+                .createQuery("select a from ApplicationEntity a order by a.id", ApplicationEntity.class)
+                .getResultList();
+        assertEquals(2, applications.size());
+        assertEquals(ApplicationStatus.WAITING_FOR_OWNER, applications.get(0).getStatus());
+        assertEquals(testData.getDepartment().getId(), applications.get(0).getDepartment().getId());
+        assertEquals(3, applications.get(0).getCheckings().size());
+        assertEquals("Доступ, будь ласка", applications.get(0).getCheckings().get(0).getNote());
+    }
+
+    @Test
+    void importsJsonArray() {
+        String json = "[{\"userId\":" + applicant.getId() + ",\"serviceId\":" + adminService.getId() + ",\"roleId\":3}," +
+                "{\"userId\":" + applicant.getId() + ",\"serviceId\":" + adminService.getId() + ",\"roleId\":3," +
+                "\"departmentId\":-1}]";
+
+        ApplicationImportReport report = importService.importApplications(admin,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_JSON);
+
+        assertEquals(2, report.getTotalRows());
+        assertEquals(1, report.getImportedRows());
+        assertEquals(2, report.getErrors().get(0).getRowNumber());
+        assertEquals("Немає такого підрозділу", report.getErrors().get(0).getError());
+    }
+
+    private ServiceEntity createService(String name, RoleEntity availableRole) {
+        ServiceEntity service = new ServiceEntity();
+        service.setName(name);
+        service.setOwnerUser(admin);
+        service.setAvaliableRoles(Collections.singletonList(availableRole));
+        return entityManager.persist(service);
+    }
+}
@@ -0,0 +1,116 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє заповнення етапу розгляду заявкам без етапу: етап з записів перевірок для кожного результату
+ * розгляду, незмінність уже заповнених заявок і обробку кількома діапазонами ідентифікаторів
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ApplicationWorkflowService.class, DataProcessService.class, ReferenceDataRegistry.class, AccessDecisionCache.class})
+class ApplicationStatusBackfillJobTest {
+
+    @Autowired
+    private ApplicationWorkflowService workflowService;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ApplicationTestData testData;
+    private UserEntity owner;
+    private UserEntity admin;
+    private UserEntity applicant;
+    private ServiceEntity service;
+
+    @BeforeEach
+    void setUp() {
+        testData = ApplicationTestData.create(entityManager.getEntityManager());
+
+        owner = testData.createUser("owner");
+        admin = testData.createUser("admin");
+        applicant = testData.createUser("applicant");
+        service = new ServiceEntity();
+        service.setName("Сервіс");
+        service.setOwnerUser(owner);
+        entityManager.persist(service);
+        referenceData.reload();
+    }
+
+    @Test
+    void derivesStatusFromCheckingsAcrossBatches() {
+        ApplicationEntity untouched = createApplication();
+        ApplicationEntity declinedByOwner = createApplication();
+        workflowService.decideByOwner(owner, declinedByOwner, false, null);
+        ApplicationEntity acceptedByOwner = createApplication();
+        workflowService.decideByOwner(owner, acceptedByOwner, true, null);
+        ApplicationEntity declinedByAdmin = createApplication();
+        workflowService.decideByOwner(owner, declinedByAdmin, true, null);
+        workflowService.decideByAdmin(admin, declinedByAdmin, false, null);
+        ApplicationEntity acceptedByAdmin = createApplication();
+        workflowService.decideByOwner(owner, acceptedByAdmin, true, null);
+        workflowService.decideByAdmin(admin, acceptedByAdmin, true, null);
+        ApplicationEntity alreadyFilled = createApplication();
+
+        //заявки, створені до появи етапу; етап заявки з уже заповненим етапом навмисно не збігається з перевірками
+        entityManager.flush();
+        executeNative("update SERVICEADMIN2.APPLICATIONS set STATUS = null, STATUS_DATE = null where APPLICATION_ID <> "
+                + alreadyFilled.getId());
+        executeNative("update SERVICEADMIN2.APPLICATIONS set STATUS = 'ACCEPTED' where APPLICATION_ID = "
+                + alreadyFilled.getId());
+        entityManager.clear();
+
+        //по дві заявки в діапазоні, тож заявки з різним результатом потрапляють у різні транзакції
+        ApplicationStatusBackfillJob job = new ApplicationStatusBackfillJob(applicationRepository, transactionManager, 2);
+        assertEquals(5, job.backfill());
+
+        assertEquals(ApplicationStatus.WAITING_FOR_OWNER, getStatus(untouched));
+        assertEquals(ApplicationStatus.DECLINED, getStatus(declinedByOwner));
+        assertEquals(ApplicationStatus.WAITING_FOR_ADMIN, getStatus(acceptedByOwner));
+        assertEquals(ApplicationStatus.DECLINED, getStatus(declinedByAdmin));
+        assertEquals(ApplicationStatus.ACCEPTED, getStatus(acceptedByAdmin));
+        assertEquals(ApplicationStatus.ACCEPTED, getStatus(alreadyFilled));
+
+        ApplicationEntity waiting = entityManager.find(ApplicationEntity.class, untouched.getId());
+        assertEquals(waiting.getCreationDate(), waiting.getStatusDate());
+        assertNotNull(entityManager.find(ApplicationEntity.class, acceptedByAdmin.getId()).getStatusDate());
+        assertEquals(0, job.backfill());
+    }
+
+    private ApplicationStatus getStatus(ApplicationEntity application) {
+        return entityManager.find(ApplicationEntity.class, application.getId()).getStatus();
+    }
+
+    private void executeNative(String sql) {
+        entityManager.getEntityManager().createNativeQuery(sql).executeUpdate();
+    }
+
+    private ApplicationEntity createApplication() {
+        return workflowService.createApplication(applicant, service,
+                referenceData.getRole(RoleConstants.USER), null, null);
+    }
+}
@@ -0,0 +1,70 @@
+package ua.factoriald.sunpp.services;
+
+import ua.factoriald.sunpp.model.*;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Спільні дані тестів заявок на вбудованій базі: довідники, підрозділ і посада робітників, користувачі
+ */
+final class ApplicationTestData {
+
+    private final EntityManager entityManager;
+    private final DepartmentEntity department;
+    private final PositionEntity position;
+
+    private ApplicationTestData(EntityManager entityManager, DepartmentEntity department, PositionEntity position) {
+        this.entityManager = entityManager;
+        this.department = department;
+        this.position = position;
+    }
+
+    /**
+     * Вставляє ролі і типи записів, створює підрозділ і посаду. Виконується в транзакції
+     * @param entityManager Менеджер сутностей тесту
+     * @return Дані для створення користувачів
+     */
+    static ApplicationTestData create(EntityManager entityManager) {
+        //ідентифікатори довідників мають збігатися з константами, тому вони вставляються напряму
+        entityManager.createNativeQuery("insert into SERVICEADMIN2.ROLES (ROLE_ID, NAME) values (1, 'ADMIN'), (2, 'OWNER'), (3, 'USER')")
+                .executeUpdate();
+        entityManager.createNativeQuery("insert into SERVICEADMIN2.CHECK_TYPES (CHECK_TYPE_ID, CHECK_TYPE) values (0, 'USER'), (1, 'CHECK')")
+                .executeUpdate();
+
+        DepartmentEntity department = new DepartmentEntity();
+        department.setName("Цех");
+        entityManager.persist(department);
+
+        PositionEntity position = new PositionEntity();
+        position.setPosition("Інженер");
+        entityManager.persist(position);
+        return new ApplicationTestData(entityManager, department, position);
+    }
+
+    /**
+     * Створює користувача з робітником у спільних підрозділі і посаді
+     * @param login Логін, він же повне ім'я робітника
+     * @return Збережений користувач
+     */
+    UserEntity createUser(String login) {
+        WorkerEntity worker = new WorkerEntity();
+        worker.setFullname(login);
+        worker.setDepartment(department);
+        worker.setPosition(position);
+        entityManager.persist(worker);
+
+        UserEntity user = new UserEntity();
+        user.setLogin(login);
+        user.setWorkerEntity(worker);
+        entityManager.persist(user);
+        return user;
+    }
+
+    DepartmentEntity getDepartment() {
+        return department;
+    }
+
+    PositionEntity getPosition() {
+        return position;
+    }
+}
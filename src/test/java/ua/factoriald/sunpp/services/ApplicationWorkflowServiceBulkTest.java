@@ -0,0 +1,193 @@
+package ua.factoriald.sunpp.services;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+import ua.factoriald.sunpp.model.dto.BulkDecisionResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє групові рішення власника і адміністратора: результат по кожній заявці, записи доступу,
+ * події у вихідній черзі і пакетне оновлення заявок
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ApplicationWorkflowService.class, DataProcessService.class, ReferenceDataRegistry.class, AccessDecisionCache.class})
+class ApplicationWorkflowServiceBulkTest {
+
+    @Autowired
+    private ApplicationWorkflowService workflowService;
+
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ApplicationTestData testData;
+    private UserEntity owner;
+    private UserEntity applicant;
+    private ServiceEntity ownerService;
+    private ServiceEntity otherService;
+
+    @BeforeEach
+    void setUp() {
+        testData = ApplicationTestData.create(entityManager.getEntityManager());
+
+        owner = testData.createUser("owner");
+        applicant = testData.createUser("applicant");
+        ownerService = createService("Сервіс власника", owner);
+        otherService = createService("Інший сервіс", testData.createUser("other"));
+        referenceData.reload();
+    }
+
+    @Test
+    void reportsResultForEachApplication() {
+        ApplicationEntity waiting = createApplication(ownerService);
+        ApplicationEntity decided = createApplication(ownerService);
+        workflowService.decideByOwner(owner, decided, false, null);
+        ApplicationEntity foreign = createApplication(otherService);
+
+        List<BulkDecisionResult> results = workflowService.decideByOwnerInBulk(owner,
+                Arrays.asList(waiting.getId(), decided.getId(), foreign.getId(), -1L, waiting.getId()), true, "Добре");
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isApplied());
+        assertEquals("Власник вже відхилив заявку", results.get(1).getError());
+        assertEquals("Це не сервіс власника", results.get(2).getError());
+        assertEquals("Немає такої заявки", results.get(3).getError());
+
+        entityManager.clear();
+        assertEquals(ApplicationStatus.WAITING_FOR_ADMIN, entityManager.find(ApplicationEntity.class, waiting.getId()).getStatus());
+        assertEquals(ApplicationStatus.DECLINED, entityManager.find(ApplicationEntity.class, decided.getId()).getStatus());
+        assertEquals(ApplicationStatus.WAITING_FOR_OWNER, entityManager.find(ApplicationEntity.class, foreign.getId()).getStatus());
+
+        List<WorkflowEventEntity> events = entityManager.getEntityManager()
+                .createQuery("select e from WorkflowEventEntity e where e.applicationId = :id order by e.id", WorkflowEventEntity.class)
+                .setParameter("id", waiting.getId())
+                .getResultList();
+        assertEquals(2, events.size());
+        assertEquals(WorkflowEventType.CREATED, events.get(0).getType());
+        assertEquals(WorkflowEventType.OWNER_ACCEPTED, events.get(1).getType());
+        assertEquals(ApplicationStatus.WAITING_FOR_ADMIN, events.get(1).getStatus());
+        assertEquals(owner.getId(), events.get(1).getActorUserId());
+        assertEquals("Добре", events.get(1).getNote());
+    }
+
+    @Test
+    void reportsResultForEachApplicationOfAdminAndGrantsAccess() {
+        UserEntity admin = testData.createUser("admin");
+        UserHaveAccessToServiceEntity adminAccess = new UserHaveAccessToServiceEntity();
+        adminAccess.setUser(admin);
+        adminAccess.setService(ownerService);
+        adminAccess.setRole(referenceData.getRole(RoleConstants.ADMIN));
+        entityManager.persist(adminAccess);
+
+        ApplicationEntity first = createApplicationAcceptedByOwner(ownerService);
+        ApplicationEntity second = createApplicationAcceptedByOwner(ownerService);
+        ApplicationEntity waitingForOwner = createApplication(ownerService);
+        ApplicationEntity declinedByOwner = createApplication(ownerService);
+        workflowService.decideByOwner(owner, declinedByOwner, false, null);
+        ApplicationEntity foreign = createApplication(otherService);
+
+        List<BulkDecisionResult> results = workflowService.decideByAdminInBulk(admin, Arrays.asList(
+                first.getId(), waitingForOwner.getId(), declinedByOwner.getId(), foreign.getId(), -1L, second.getId()),
+                true, "Доступ надано");
+
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).isApplied());
+        assertEquals("Власник ще не перевірив заявку", results.get(1).getError());
+        assertEquals("Власник відхилив заявку", results.get(2).getError());
+        assertEquals("Це не сервіс адміністратора", results.get(3).getError());
+        assertEquals("Немає такої заявки", results.get(4).getError());
+        assertTrue(results.get(5).isApplied());
+
+        entityManager.clear();
+        assertEquals(ApplicationStatus.ACCEPTED, entityManager.find(ApplicationEntity.class, first.getId()).getStatus());
+        assertEquals(ApplicationStatus.ACCEPTED, entityManager.find(ApplicationEntity.class, second.getId()).getStatus());
+        assertEquals(ApplicationStatus.WAITING_FOR_OWNER, entityManager.find(ApplicationEntity.class, waitingForOwner.getId()).getStatus());
+        assertEquals(ApplicationStatus.DECLINED, entityManager.find(ApplicationEntity.class, declinedByOwner.getId()).getStatus());
+        assertEquals(ApplicationStatus.WAITING_FOR_OWNER, entityManager.find(ApplicationEntity.class, foreign.getId()).getStatus());
+
+        //запис доступу на кожну прийняту заявку, з роллю із заявки
+        List<UserHaveAccessToServiceEntity> granted = entityManager.getEntityManager()
+                .createQuery("select acc from UserHaveAccessToServiceEntity acc where acc.user.id = :userId", UserHaveAccessToServiceEntity.class)
+                .setParameter("userId", applicant.getId())
+                .getResultList();
+        assertEquals(2, granted.size());
+        for (UserHaveAccessToServiceEntity access : granted) {
+            assertEquals(ownerService.getId(), access.getService().getId());
+            assertEquals(RoleConstants.USER, access.getRole().getId());
+        }
+
+        List<WorkflowEventEntity> events = entityManager.getEntityManager()
+                .createQuery("select e from WorkflowEventEntity e where e.type = :type", WorkflowEventEntity.class)
+                .setParameter("type", WorkflowEventType.ADMIN_ACCEPTED)
+                .getResultList();
+        assertEquals(2, events.size());
+        assertTrue(events.stream().allMatch(event -> "Доступ надано".equals(event.getNote())
+                && admin.getId().equals(event.getActorUserId())));
+    }
+
+    @Test
+    void batchesUpdatesForAnyNumberOfApplications() {
+        assertEquals(countStatementsOfBulkAccept(2), countStatementsOfBulkAccept(40));
+    }
+
+    private long countStatementsOfBulkAccept(int applications) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < applications; i++) {
+            ids.add(createApplication(ownerService).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<BulkDecisionResult> results = workflowService.decideByOwnerInBulk(
+                entityManager.find(UserEntity.class, owner.getId()), ids, true, null);
+        assertTrue(results.stream().allMatch(BulkDecisionResult::isApplied));
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private ServiceEntity createService(String name, UserEntity ownerUser) {
+        ServiceEntity service = new ServiceEntity();
+        service.setName(name);
+        service.setOwnerUser(ownerUser);
+        return entityManager.persist(service);
+    }
+
+    private ApplicationEntity createApplicationAcceptedByOwner(ServiceEntity service) {
+        ApplicationEntity application = createApplication(service);
+        workflowService.decideByOwner(service.getOwnerUser(), application, true, null);
+        return application;
+    }
+
+    private ApplicationEntity createApplication(ServiceEntity service) {
+        return workflowService.createApplication(applicant, service,
+                referenceData.getRole(RoleConstants.USER), null, null);
+    }
+}
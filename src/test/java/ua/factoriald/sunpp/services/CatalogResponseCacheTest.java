@@ -0,0 +1,127 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import ua.factoriald.sunpp.serialization.ResponseFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє, що дані завантажуються один раз на версію і формат і що стиснута відповідь збігається з JSON
+ */
+class CatalogResponseCacheTest {
+
+    private final CatalogResponseCache cache = new CatalogResponseCache(new ObjectMapper(),
+            new MappingJackson2CborHttpMessageConverter(), new MappingJackson2SmileHttpMessageConverter(), 1 << 20, true, 16, 60000);
+
+    @Test
+    void loadsOncePerVersion() {
+        AtomicInteger loads = new AtomicInteger();
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+        ResponseEntity<byte[]> first = cache.getResponse("position/all", "\"v1\"", request, () -> names(loads));
+        ResponseEntity<byte[]> second = cache.getResponse("position/all", "\"v1\"", request, () -> names(loads));
+        assertEquals(1, loads.get());
+        assertArrayEquals(first.getBody(), second.getBody());
+        assertNull(first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        cache.getResponse("position/all", "\"v2\"", request, () -> names(loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void returnsPrecompressedBodyWhenClientAcceptsGzip() throws IOException {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+        AtomicInteger loads = new AtomicInteger();
+
+        byte[] json = cache.getResponse("department/all", "\"v1\"",
+                new ServletWebRequest(new MockHttpServletRequest()), () -> names(loads)).getBody();
+        ResponseEntity<byte[]> gzip = cache.getResponse("department/all", "\"v1\"",
+                new ServletWebRequest(servletRequest), () -> names(loads));
+
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(json, StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void cachesEachFormatSeparately() throws IOException {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.addHeader(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor");
+        ServletWebRequest cborRequest = new ServletWebRequest(servletRequest);
+        ServletWebRequest jsonRequest = new ServletWebRequest(new MockHttpServletRequest());
+        AtomicInteger loads = new AtomicInteger();
+
+        String etag = ResponseFormat.of(cborRequest).tag("\"v1\"");
+        assertEquals("\"v1-cbor\"", etag);
+        ResponseEntity<byte[]> cbor = cache.getResponse("position/all", etag, cborRequest, () -> names(loads));
+        ResponseEntity<byte[]> json = cache.getResponse("position/all", "\"v1\"", jsonRequest, () -> names(loads));
+        cache.getResponse("position/all", etag, cborRequest, () -> names(loads));
+        cache.getResponse("position/all", "\"v1\"", jsonRequest, () -> names(loads));
+
+        assertEquals(2, loads.get());
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertEquals(MediaType.APPLICATION_JSON, json.getHeaders().getContentType());
+        assertTrue(cbor.getBody().length < json.getBody().length);
+        assertEquals(names(loads), new CBORMapper().readValue(cbor.getBody(), new TypeReference<List<String>>() { }));
+    }
+
+    @Test
+    void servesCatalogChangedOutsideApplicationAfterTtl() throws InterruptedException {
+        CatalogResponseCache shortLived = new CatalogResponseCache(new ObjectMapper(),
+                new MappingJackson2CborHttpMessageConverter(), new MappingJackson2SmileHttpMessageConverter(), 1 << 20, true, 16, 100);
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+        //довідник змінено прямо в базі, тому ETag той самий
+        AtomicReference<String> name = new AtomicReference<>("Інженер");
+
+        assertEquals("[\"Інженер\"]", body(shortLived.getResponse("position/all", "\"v1\"", request,
+                () -> Collections.singletonList(name.get()))));
+        name.set("Технолог");
+        assertEquals("[\"Інженер\"]", body(shortLived.getResponse("position/all", "\"v1\"", request,
+                () -> Collections.singletonList(name.get()))));
+
+        Thread.sleep(150);
+        assertEquals("[\"Технолог\"]", body(shortLived.getResponse("position/all", "\"v1\"", request,
+                () -> Collections.singletonList(name.get()))));
+    }
+
+    @Test
+    void choosesFormatFromAccept() {
+        assertEquals(ResponseFormat.JSON, ResponseFormat.of((String) null));
+        assertEquals(ResponseFormat.JSON, ResponseFormat.of("*/*"));
+        assertEquals(ResponseFormat.JSON, ResponseFormat.of("application/cbor;q=0, application/*"));
+        assertEquals(ResponseFormat.SMILE, ResponseFormat.of("application/x-jackson-smile, */*;q=0.1"));
+        assertEquals(ResponseFormat.JSON, ResponseFormat.of("не тип"));
+        assertEquals("W/\"3-smile\"", ResponseFormat.SMILE.tag("W/\"3\""));
+        assertEquals("\"3\"", ResponseFormat.JSON.tag("\"3\""));
+    }
+
+    private static String body(ResponseEntity<byte[]> response) {
+        return new String(response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> names(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return Collections.nCopies(10, "Інженер-конструктор");
+    }
+}
@@ -0,0 +1,126 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import ua.factoriald.sunpp.model.ApplicationEntity;
+import ua.factoriald.sunpp.model.ServiceEntity;
+import ua.factoriald.sunpp.model.UserEntity;
+import ua.factoriald.sunpp.model.dto.ApplicationCursor;
+import ua.factoriald.sunpp.model.dto.CursorPage;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перевіряє сторінки заявок за курсором: проходження всіх заявок без пропусків і повторів,
+ * зокрема заявок з однаковою датою створення, і відповідь 400 на пошкоджений курсор чи розмір сторінки
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DataProcessService.class, ReferenceDataRegistry.class, AccessDecisionCache.class})
+class DataProcessServicePagingTest {
+
+    @Autowired
+    private DataProcessService dataService;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UserEntity applicant;
+    private ServiceEntity service;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationTestData testData = ApplicationTestData.create(entityManager.getEntityManager());
+        applicant = testData.createUser("applicant");
+        service = new ServiceEntity();
+        service.setName("Сервіс");
+        service.setOwnerUser(testData.createUser("owner"));
+        entityManager.persist(service);
+    }
+
+    @Test
+    void pagesThroughApplicationsWithSameCreationDateByIdOnce() {
+        //п'ять заявок з однаковою датою між ранішою і пізнішою, тож межі сторінок проходять всередині групи
+        Timestamp sameDate = Timestamp.valueOf("2022-05-17 10:15:30.5");
+        List<Long> expected = new ArrayList<>();
+        expected.add(addApplication(Timestamp.valueOf("2022-05-17 09:00:00")));
+        for (int i = 0; i < 5; i++) {
+            expected.add(addApplication(sameDate));
+        }
+        expected.add(addApplication(Timestamp.valueOf("2022-05-17 11:00:00")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<ApplicationEntity> page = dataService.getApplicationPageOrThrow(cursor, "2",
+                    (afterDate, afterId, pageable) -> applicationRepository.getPageByService(service, afterDate, afterId, pageable));
+            assertTrue(page.getItems().size() <= 2);
+            for (ApplicationEntity application : page.getItems()) {
+                paged.add(application.getId());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void rejectsMalformedCursorWithBadRequest() {
+        assertSame(ApplicationCursor.START, dataService.getCursorOrThrow(null));
+        assertSame(ApplicationCursor.START, dataService.getCursorOrThrow(""));
+        for (String cursor : new String[]{"не курсор", "MTox", "eDowOjE"}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                    dataService.getApplicationPageOrThrow(cursor, null, (afterDate, afterId, pageable) -> {
+                        throw new AssertionError("Запит з пошкодженим курсором");
+                    }), cursor);
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        }
+    }
+
+    @Test
+    void boundsPageLimit() {
+        assertEquals(DataProcessService.DEFAULT_PAGE_LIMIT, dataService.getPageLimitOrThrow(null));
+        assertEquals(1, dataService.getPageLimitOrThrow("1"));
+        assertEquals(DataProcessService.MAX_PAGE_LIMIT,
+                dataService.getPageLimitOrThrow(String.valueOf(DataProcessService.MAX_PAGE_LIMIT)));
+        for (String limit : new String[]{"0", "-1", String.valueOf(DataProcessService.MAX_PAGE_LIMIT + 1)}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> dataService.getPageLimitOrThrow(limit), limit);
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        }
+        //не число відхиляється, як і всі числові параметри, через getLongOrThrow
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> dataService.getPageLimitOrThrow("багато")).getStatus());
+    }
+
+    private Long addApplication(Timestamp creationDate) {
+        ApplicationEntity application = new ApplicationEntity();
+        application.setApplicant(applicant);
+        application.setService(service);
+        application.setCreationDate(creationDate);
+        entityManager.persist(application);
+        return application.getId();
+    }
+}
@@ -0,0 +1,105 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ua.factoriald.sunpp.model.*;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Перевіряє, що кількість запитів до бази даних при виборі і серіалізації заявок адміністратора
+ * не залежить від кількості його сервісів
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DataProcessService.class, ReferenceDataRegistry.class, AccessDecisionCache.class})
+class DataProcessServiceStatementCountTest {
+
+    @Autowired
+    private DataProcessService dataService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ApplicationTestData testData;
+    private RoleEntity adminRole;
+    private UserEntity admin;
+    private UserEntity applicant;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        testData = ApplicationTestData.create(entityManager.getEntityManager());
+        adminRole = entityManager.find(RoleEntity.class, RoleConstants.ADMIN);
+
+        admin = testData.createUser("admin");
+        applicant = testData.createUser("applicant");
+    }
+
+    @Test
+    void getAllApplicationsForAdminUsesConstantNumberOfStatements() throws JsonProcessingException {
+        addServiceOfAdmin(0);
+        long statementsForOneService = countStatementsOfAdminListing(1);
+
+        for (int i = 1; i < 25; i++) {
+            addServiceOfAdmin(i);
+        }
+        long statementsForManyServices = countStatementsOfAdminListing(25);
+
+        assertEquals(statementsForOneService, statementsForManyServices);
+    }
+
+    private long countStatementsOfAdminListing(int expectedApplications) throws JsonProcessingException {
+        //очищуємо контекст, щоб рахувались і запити на зв'язки заявок, які потрібні для відповіді
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<ApplicationEntity> applications = dataService.getAllApplicationsForAdmin(admin);
+        assertEquals(expectedApplications, applications.size());
+        objectMapper.writeValueAsString(applications);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addServiceOfAdmin(int number) {
+        ServiceEntity service = new ServiceEntity();
+        service.setName("Сервіс " + number);
+        service.setOwnerUser(admin);
+        entityManager.persist(service);
+
+        UserHaveAccessToServiceEntity access = new UserHaveAccessToServiceEntity();
+        access.setUser(admin);
+        access.setRole(adminRole);
+        access.setService(service);
+        entityManager.persist(access);
+
+        ApplicationEntity application = new ApplicationEntity();
+        application.setApplicant(applicant);
+        application.setService(service);
+        application.setCreationDate(new Timestamp(System.currentTimeMillis()));
+        entityManager.persist(application);
+    }
+}
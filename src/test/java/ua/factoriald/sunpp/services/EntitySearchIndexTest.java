@@ -0,0 +1,82 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.factoriald.sunpp.model.constants.SearchTarget;
+import ua.factoriald.sunpp.model.dto.SearchResult;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+import ua.factoriald.sunpp.repository.UserRepository;
+import ua.factoriald.sunpp.repository.WorkerRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Перевіряє, що робітники, додані в обхід цього екземпляра, знаходяться після періодичного повторного заповнення,
+ * а невдале заповнення не зупиняє наступні
+ */
+class EntitySearchIndexTest {
+
+    private static final long RELOAD_MILLIS = 200;
+
+    private WorkerRepository workerRepository;
+    private EntitySearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        workerRepository = mock(WorkerRepository.class);
+        when(workerRepository.getAllSearchFields())
+                .thenReturn(Collections.singletonList(new Object[]{1L, "Шевченко Тарас", 1L, 1L}));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getAllSearchFields()).thenReturn(Collections.emptyList());
+        ServiceRepository serviceRepository = mock(ServiceRepository.class);
+        when(serviceRepository.getAllSearchFields()).thenReturn(Collections.emptyList());
+        searchIndex = new EntitySearchIndex(workerRepository, userRepository, serviceRepository, RELOAD_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchIndex.shutdown();
+    }
+
+    @Test
+    void findsWorkersAddedElsewhereAfterReload() throws InterruptedException {
+        searchIndex.loadOnStartup();
+        assertTrue(searchWorkers("Франко").isEmpty());
+
+        //робітник доданий іншим екземпляром
+        when(workerRepository.getAllSearchFields()).thenReturn(Arrays.asList(
+                new Object[]{1L, "Шевченко Тарас", 1L, 1L},
+                new Object[]{2L, "Франко Іван", 1L, 1L}));
+        assertTrue(searchWorkers("Франко").isEmpty());
+
+        Thread.sleep(RELOAD_MILLIS * 3);
+        List<SearchResult> results = searchWorkers("Франко");
+        assertEquals(1, results.size());
+        assertEquals(2L, results.get(0).getId());
+    }
+
+    @Test
+    void keepsReloadingAfterFailure() throws InterruptedException {
+        searchIndex.loadOnStartup();
+
+        when(workerRepository.getAllSearchFields())
+                .thenThrow(new IllegalStateException("База недоступна"))
+                .thenReturn(Collections.singletonList(new Object[]{2L, "Франко Іван", 1L, 1L}));
+        Thread.sleep(RELOAD_MILLIS * 4);
+
+        assertEquals(1, searchWorkers("Франко").size());
+        assertTrue(searchWorkers("Шевченко").isEmpty());
+    }
+
+    private List<SearchResult> searchWorkers(String query) {
+        return searchIndex.search(query, EnumSet.of(SearchTarget.WORKER), null, null, 10);
+    }
+}
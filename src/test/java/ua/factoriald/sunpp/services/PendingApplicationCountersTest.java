@@ -0,0 +1,164 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.constants.ApplicationStatus;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+import ua.factoriald.sunpp.model.dto.PendingCounts;
+import ua.factoriald.sunpp.repository.ApplicationRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Перевіряє заповнення лічильників знімком бази і їх зміну переходами заявок,
+ * зокрема переходами, підтвердженими під час заповнення, і періодичне повторне заповнення
+ */
+class PendingApplicationCountersTest {
+
+    private static final long RESEED_MILLIS = 200;
+
+    private ApplicationRepository applicationRepository;
+    private PendingApplicationCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        applicationRepository = mock(ApplicationRepository.class);
+        AccessDecisionCache accessDecisions = mock(AccessDecisionCache.class);
+        when(accessDecisions.getOwnedServiceIds(1L)).thenReturn(new long[]{10L, 11L});
+        when(accessDecisions.getServiceIds(2L, RoleConstants.ADMIN)).thenReturn(new long[]{10L, 11L});
+        counters = new PendingApplicationCounters(applicationRepository, accessDecisions, RESEED_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        counters.shutdown();
+    }
+
+    @Test
+    void seedsFromSnapshotAndFollowsTransitions() {
+        List<Object[]> rows = Arrays.asList(
+                new Object[]{1L, 10L, ApplicationStatus.WAITING_FOR_OWNER},
+                new Object[]{2L, 10L, ApplicationStatus.WAITING_FOR_OWNER},
+                new Object[]{3L, 10L, ApplicationStatus.WAITING_FOR_OWNER},
+                new Object[]{4L, 11L, ApplicationStatus.WAITING_FOR_ADMIN},
+                new Object[]{5L, 11L, ApplicationStatus.WAITING_FOR_ADMIN});
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any())).thenReturn(rows);
+        counters.seed();
+
+        PendingCounts owner = counters.getOwnerCounts(1L);
+        assertEquals(3, owner.getTotal());
+        assertEquals(Collections.singletonMap(10L, 3L), owner.getServices());
+        assertEquals(2, counters.getAdminCounts(2L).getTotal());
+
+        transition(1L, 10L, WorkflowEventType.OWNER_ACCEPTED);
+        transition(4L, 11L, WorkflowEventType.ADMIN_DECLINED);
+        transition(6L, 11L, WorkflowEventType.CREATED);
+
+        assertEquals(2, counters.getCount(10L, ApplicationStatus.WAITING_FOR_OWNER));
+        assertEquals(1, counters.getCount(10L, ApplicationStatus.WAITING_FOR_ADMIN));
+        assertEquals(1, counters.getCount(11L, ApplicationStatus.WAITING_FOR_OWNER));
+        assertEquals(1, counters.getCount(11L, ApplicationStatus.WAITING_FOR_ADMIN));
+        assertEquals(0, counters.getCount(10L, ApplicationStatus.ACCEPTED));
+        assertEquals(3, counters.getOwnerCounts(1L).getTotal());
+    }
+
+    @Test
+    void appliesOnlyTransitionsNotSeenBySnapshot() {
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any())).thenAnswer(invocation -> {
+            //переходи підтверджуються, поки виконується запит: створення заявки 1 уже є в знімку, заявки 2 ще ні
+            transition(1L, 10L, WorkflowEventType.CREATED);
+            transition(2L, 10L, WorkflowEventType.CREATED);
+            return Collections.singletonList(new Object[]{1L, 10L, ApplicationStatus.WAITING_FOR_OWNER});
+        });
+        counters.seed();
+
+        assertEquals(2, counters.getCount(10L, ApplicationStatus.WAITING_FOR_OWNER));
+    }
+
+    @Test
+    void appliesTransitionCommittedAfterSnapshotRegardlessOfEventOrder() {
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any())).thenAnswer(invocation -> {
+            //рішення по заявці 1 підтвердилось після знімка, хоча ідентифікатор його події може бути меншим
+            transition(1L, 10L, WorkflowEventType.OWNER_ACCEPTED);
+            //заявка 2 створена і відхилена до знімка, тож знімок її не бачить
+            transition(2L, 10L, WorkflowEventType.CREATED);
+            transition(2L, 10L, WorkflowEventType.OWNER_DECLINED);
+            //заявка 3 створена до початку заповнення і завершена до знімка
+            transition(3L, 11L, WorkflowEventType.ADMIN_ACCEPTED);
+            return Arrays.asList(
+                    new Object[]{1L, 10L, ApplicationStatus.WAITING_FOR_OWNER},
+                    new Object[]{4L, 11L, ApplicationStatus.WAITING_FOR_ADMIN});
+        });
+        counters.seed();
+
+        assertEquals(0, counters.getCount(10L, ApplicationStatus.WAITING_FOR_OWNER));
+        assertEquals(1, counters.getCount(10L, ApplicationStatus.WAITING_FOR_ADMIN));
+        assertEquals(1, counters.getCount(11L, ApplicationStatus.WAITING_FOR_ADMIN));
+    }
+
+    @Test
+    void keepsCountersWhenSnapshotFails() {
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any())).thenReturn(Collections.emptyList());
+        counters.seed();
+        transition(1L, 10L, WorkflowEventType.CREATED);
+
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any())).thenAnswer(invocation -> {
+            transition(2L, 10L, WorkflowEventType.CREATED);
+            throw new IllegalStateException("База недоступна");
+        });
+        try {
+            counters.seed();
+        } catch (IllegalStateException ignored) {
+        }
+
+        assertEquals(2, counters.getCount(10L, ApplicationStatus.WAITING_FOR_OWNER));
+    }
+
+    @Test
+    void reconcilesTransitionsOfOtherInstancesOnReseed() throws InterruptedException {
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any()))
+                .thenReturn(Collections.singletonList(new Object[]{1L, 10L, ApplicationStatus.WAITING_FOR_OWNER}));
+        counters.seedOnStartup();
+        assertEquals(1, counters.getCount(10L, ApplicationStatus.WAITING_FOR_OWNER));
+
+        //інший екземпляр прийняв заявку 1 і створив заявку 2
+        when(applicationRepository.getIdServiceAndStatusByStatusIn(any())).thenReturn(Arrays.asList(
+                new Object[]{1L, 10L, ApplicationStatus.WAITING_FOR_ADMIN},
+                new Object[]{2L, 10L, ApplicationStatus.WAITING_FOR_OWNER}));
+        Thread.sleep(RESEED_MILLIS * 3);
+
+        assertEquals(1, counters.getCount(10L, ApplicationStatus.WAITING_FOR_OWNER));
+        assertEquals(1, counters.getCount(10L, ApplicationStatus.WAITING_FOR_ADMIN));
+    }
+
+    private void transition(Long applicationId, Long serviceId, WorkflowEventType type) {
+        WorkflowEventEntity event = new WorkflowEventEntity();
+        event.setApplicationId(applicationId);
+        event.setServiceId(serviceId);
+        event.setType(type);
+        event.setStatus(getStatusAfter(type));
+        counters.onTransition(new ApplicationTransitionEvent(event));
+    }
+
+    private static ApplicationStatus getStatusAfter(WorkflowEventType type) {
+        switch (type) {
+            case CREATED:
+                return ApplicationStatus.WAITING_FOR_OWNER;
+            case OWNER_ACCEPTED:
+                return ApplicationStatus.WAITING_FOR_ADMIN;
+            case ADMIN_ACCEPTED:
+                return ApplicationStatus.ACCEPTED;
+            default:
+                return ApplicationStatus.DECLINED;
+        }
+    }
+}
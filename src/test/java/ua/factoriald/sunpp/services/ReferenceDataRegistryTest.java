@@ -0,0 +1,76 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.factoriald.sunpp.model.RoleEntity;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.repository.CheckTypeRepository;
+import ua.factoriald.sunpp.repository.RoleRepository;
+import ua.factoriald.sunpp.repository.ServiceRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Перевіряє, що зміни довідників в обхід застосунку видно після часу життя знімка,
+ * а невдале перезавантаження застарілого знімка не ламає перевірки
+ */
+class ReferenceDataRegistryTest {
+
+    private static final long TTL_MILLIS = 200;
+
+    private RoleRepository roleRepository;
+    private ServiceRepository serviceRepository;
+    private ReferenceDataRegistry referenceData;
+
+    @BeforeEach
+    void setUp() {
+        roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(Collections.singletonList(role(RoleConstants.USER)));
+        CheckTypeRepository checkTypeRepository = mock(CheckTypeRepository.class);
+        when(checkTypeRepository.findAll()).thenReturn(Collections.emptyList());
+        serviceRepository = mock(ServiceRepository.class);
+        when(serviceRepository.getAllServiceRoleIdPairs()).thenReturn(Collections.emptyList());
+        referenceData = new ReferenceDataRegistry(roleRepository, checkTypeRepository, serviceRepository, TTL_MILLIS);
+    }
+
+    @Test
+    void reloadsChangesMadeOutsideApplicationAfterTtl() throws InterruptedException {
+        referenceData.reload();
+        assertFalse(referenceData.isRoleAvailableForService(10L, RoleConstants.USER));
+        assertFalse(referenceData.findRole(RoleConstants.ADMIN).isPresent());
+
+        //сервіс і роль додані прямо в базі
+        when(serviceRepository.getAllServiceRoleIdPairs())
+                .thenReturn(Collections.singletonList(new Object[]{10L, RoleConstants.USER}));
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(role(RoleConstants.USER), role(RoleConstants.ADMIN)));
+        assertFalse(referenceData.isRoleAvailableForService(10L, RoleConstants.USER));
+
+        Thread.sleep(TTL_MILLIS + 50);
+        assertTrue(referenceData.isRoleAvailableForService(10L, RoleConstants.USER));
+        assertTrue(referenceData.findRole(RoleConstants.ADMIN).isPresent());
+        verify(serviceRepository, times(2)).getAllServiceRoleIdPairs();
+    }
+
+    @Test
+    void keepsExpiredSnapshotWhenReloadFails() throws InterruptedException {
+        when(serviceRepository.getAllServiceRoleIdPairs())
+                .thenReturn(Collections.singletonList(new Object[]{10L, RoleConstants.USER}));
+        referenceData.reload();
+
+        when(serviceRepository.getAllServiceRoleIdPairs()).thenThrow(new IllegalStateException("База недоступна"));
+        Thread.sleep(TTL_MILLIS + 50);
+
+        assertTrue(referenceData.isRoleAvailableForService(10L, RoleConstants.USER));
+    }
+
+    private static RoleEntity role(long id) {
+        RoleEntity role = new RoleEntity();
+        role.setId(id);
+        role.setName("ROLE" + id);
+        return role;
+    }
+}
@@ -0,0 +1,210 @@
+package ua.factoriald.sunpp.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+import ua.factoriald.sunpp.model.constants.WorkflowEventType;
+import ua.factoriald.sunpp.repository.UserHaveAccessToServiceRepository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Перевіряє відкриття потоків, розсилку переходів рецензентам з пошуком рецензентів один раз на сервіс
+ * і закриття потоку, клієнт якого не встигає читати
+ */
+class ReviewerInboxServiceTest {
+
+    private static final long OWNER_ID = 1L;
+    private static final long ADMIN_ID = 2L;
+    private static final long SERVICE_ID = 10L;
+
+    private AccessDecisionCache accessDecisions;
+    private UserHaveAccessToServiceRepository accessRepository;
+    private ReviewerInboxService inbox;
+    private final BlockingQueue<RecordingEmitter> created = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        accessDecisions = mock(AccessDecisionCache.class);
+        when(accessDecisions.getOwnerUserId(SERVICE_ID)).thenReturn(OWNER_ID);
+        accessRepository = mock(UserHaveAccessToServiceRepository.class);
+        when(accessRepository.getUserIdsByServiceIdAndRoleId(SERVICE_ID, RoleConstants.ADMIN))
+                .thenReturn(Collections.singletonList(ADMIN_ID));
+        inbox = createInbox(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inbox.shutdown();
+    }
+
+    @Test
+    void routesCommittedTransitionsResolvingReviewersOncePerService() throws InterruptedException {
+        RecordingEmitter owner = subscribe(true, OWNER_ID);
+        RecordingEmitter admin = subscribe(false, ADMIN_ID);
+        RecordingEmitter otherOwner = subscribe(true, 3L);
+        assertEquals(3, inbox.getSubscriberCount());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inbox.onTransition(transition(5L, WorkflowEventType.CREATED));
+            inbox.onTransition(transition(6L, WorkflowEventType.OWNER_ACCEPTED));
+            inbox.onTransition(transition(7L, WorkflowEventType.ADMIN_ACCEPTED));
+            //до підтвердження транзакції нічого не надсилається
+            verifyNoInteractions(accessDecisions, accessRepository);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(Arrays.asList("5", "6"), owner.take(2));
+        assertEquals(Arrays.asList("6", "7"), admin.take(2));
+        assertTrue(otherOwner.sent.isEmpty());
+        verify(accessDecisions, times(1)).getOwnerUserId(SERVICE_ID);
+        verify(accessRepository, times(1)).getUserIdsByServiceIdAndRoleId(SERVICE_ID, RoleConstants.ADMIN);
+        assertFalse(TransactionSynchronizationManager.hasResource(inbox));
+    }
+
+    @Test
+    void dropsTransitionsOfRolledBackTransaction() throws InterruptedException {
+        RecordingEmitter owner = subscribe(true, OWNER_ID);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inbox.onTransition(transition(5L, WorkflowEventType.CREATED));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        inbox.onTransition(transition(6L, WorkflowEventType.CREATED));
+
+        assertEquals(Collections.singletonList("6"), owner.take(1));
+        assertFalse(TransactionSynchronizationManager.hasResource(inbox));
+    }
+
+    @Test
+    void closesStreamWhenBufferOverflows() throws InterruptedException {
+        inbox.shutdown();
+        inbox = createInbox(1);
+        RecordingEmitter owner = subscribe(true, OWNER_ID);
+        owner.blockSending();
+
+        inbox.onTransition(transition(5L, WorkflowEventType.CREATED));
+        //перше повідомлення вже взяте з буфера і відправляється
+        assertTrue(owner.sending.await(5, TimeUnit.SECONDS));
+        inbox.onTransition(transition(6L, WorkflowEventType.CREATED));
+        inbox.onTransition(transition(7L, WorkflowEventType.CREATED));
+
+        assertTrue(owner.completed.await(5, TimeUnit.SECONDS));
+        owner.release.countDown();
+    }
+
+    /**
+     * Два потоки відправки: поки один чекає на повільного клієнта, другий розсилає переходи
+     */
+    private ReviewerInboxService createInbox(int bufferSize) {
+        return new ReviewerInboxService(accessDecisions, accessRepository, new ObjectMapper(), bufferSize, 60000, 3600, 2) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                created.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(boolean asOwner, long userId) throws InterruptedException {
+        if (asOwner) {
+            inbox.subscribeOwner(userId);
+        } else {
+            inbox.subscribeAdmin(userId);
+        }
+        return created.poll(5, TimeUnit.SECONDS);
+    }
+
+    private static ApplicationTransitionEvent transition(long id, WorkflowEventType type) {
+        WorkflowEventEntity event = new WorkflowEventEntity();
+        event.setId(id);
+        event.setServiceId(SERVICE_ID);
+        event.setType(type);
+        return new ApplicationTransitionEvent(event);
+    }
+
+    /**
+     * Потік, що запам'ятовує ідентифікатори надісланих переходів і може затримати відправку
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private static final ObjectMapper JSON = new ObjectMapper();
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+
+        private void blockSending() {
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                String text = part.getData().toString();
+                if (MediaType.APPLICATION_JSON.equals(part.getMediaType())) {
+                    sent.add(JSON.readTree(text).get("id").asText());
+                } else if (text.startsWith("id:") || text.contains("\nid:")) {
+                    //позиції в стрічці ще немає, тож ідентифікатор SSE-події не надсилається
+                    throw new IOException("SSE-подія з ідентифікатором");
+                }
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+            super.complete();
+        }
+
+        private List<String> take(int count) throws InterruptedException {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String id = sent.poll(5, TimeUnit.SECONDS);
+                assertNotNull(id);
+                ids.add(id);
+            }
+            return ids;
+        }
+    }
+}
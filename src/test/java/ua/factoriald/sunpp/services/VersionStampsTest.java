@@ -0,0 +1,70 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.factoriald.sunpp.model.constants.RoleConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Перевіряє, що ETag змінюється після змін даних, які входять у відповідь, і після кінця періоду
+ */
+class VersionStampsTest {
+
+    private VersionStamps stamps;
+
+    @BeforeEach
+    void setUp() {
+        AccessDecisionCache accessDecisions = mock(AccessDecisionCache.class);
+        when(accessDecisions.getOwnedServiceIds(1L)).thenReturn(new long[]{10L, 11L});
+        when(accessDecisions.getServiceIds(2L, RoleConstants.ADMIN)).thenReturn(new long[]{11L});
+        stamps = new VersionStamps(accessDecisions, Long.MAX_VALUE);
+    }
+
+    @Test
+    void changesOnlyETagsOfTouchedServices() {
+        String owner = stamps.getOwnerETag(1L);
+        String admin = stamps.getAdminETag(2L);
+        String service = stamps.getServiceETag(10L);
+        assertEquals(owner, stamps.getOwnerETag(1L));
+
+        stamps.touchService(10L);
+        assertNotEquals(owner, stamps.getOwnerETag(1L));
+        assertNotEquals(service, stamps.getServiceETag(10L));
+        assertEquals(admin, stamps.getAdminETag(2L));
+
+        owner = stamps.getOwnerETag(1L);
+        stamps.touchService(12L);
+        assertEquals(owner, stamps.getOwnerETag(1L));
+    }
+
+    @Test
+    void commonChangeTouchesAllServicesButNotCatalogs() {
+        String admin = stamps.getAdminETag(2L);
+        String positions = stamps.getCatalogETag(VersionStamps.Catalog.POSITIONS);
+
+        stamps.touchAll();
+        assertNotEquals(admin, stamps.getAdminETag(2L));
+        assertEquals(positions, stamps.getCatalogETag(VersionStamps.Catalog.POSITIONS));
+
+        stamps.touchCatalog(VersionStamps.Catalog.POSITIONS);
+        assertNotEquals(positions, stamps.getCatalogETag(VersionStamps.Catalog.POSITIONS));
+    }
+
+    @Test
+    void etagsExpireWithoutLocalChanges() throws InterruptedException {
+        AccessDecisionCache accessDecisions = mock(AccessDecisionCache.class);
+        when(accessDecisions.getServiceIds(2L, RoleConstants.ADMIN)).thenReturn(new long[]{11L});
+        VersionStamps shortLived = new VersionStamps(accessDecisions, 100);
+
+        //зміни на іншому екземплярі чи в обхід застосунку версій не змінюють
+        String admin = shortLived.getAdminETag(2L);
+        String services = shortLived.getCatalogETag(VersionStamps.Catalog.SERVICES);
+        Thread.sleep(150);
+
+        assertNotEquals(admin, shortLived.getAdminETag(2L));
+        assertNotEquals(services, shortLived.getCatalogETag(VersionStamps.Catalog.SERVICES));
+    }
+}
@@ -0,0 +1,118 @@
+package ua.factoriald.sunpp.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.factoriald.sunpp.model.WorkflowEventEntity;
+import ua.factoriald.sunpp.model.dto.WorkflowEventBatch;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Перевіряє, що читач вихідної черги не пропускає подію з меншим ідентифікатором,
+ * транзакція якої підтвердилась після події з більшим
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({WorkflowEventFeed.class, WorkflowEventRelay.class, DataProcessService.class, ReferenceDataRegistry.class, AccessDecisionCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WorkflowEventFeedTest {
+
+    @Autowired
+    private WorkflowEventFeed eventFeed;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from SERVICEADMIN2.WORKFLOW_EVENTS");
+        jdbcTemplate.update("delete from SERVICEADMIN2.WORKFLOW_EVENT_RELAY");
+    }
+
+    @Test
+    void deliversLowerIdCommittedAfterHigherId() throws SQLException {
+        try (Connection slowTransaction = dataSource.getConnection()) {
+            slowTransaction.setAutoCommit(false);
+            insertEvent(slowTransaction, 10L);
+
+            try (Connection fastTransaction = dataSource.getConnection()) {
+                insertEvent(fastTransaction, 20L);
+            }
+
+            WorkflowEventBatch first = eventFeed.getEventsOrThrow(null, null);
+            assertEquals(Collections.singletonList(20L), ids(first));
+
+            slowTransaction.commit();
+
+            WorkflowEventBatch second = eventFeed.getEventsOrThrow(Long.toString(first.getLastPosition()), null);
+            assertEquals(Collections.singletonList(10L), ids(second));
+            assertTrue(second.getLastPosition() > first.getLastPosition());
+
+            WorkflowEventBatch third = eventFeed.getEventsOrThrow(Long.toString(second.getLastPosition()), null);
+            assertTrue(third.getEvents().isEmpty());
+            assertEquals(second.getLastPosition(), third.getLastPosition());
+        }
+
+        //весь журнал з початку - в порядку підтвердження
+        assertEquals(Arrays.asList(20L, 10L), ids(eventFeed.getEventsOrThrow(null, null)));
+    }
+
+    @Test
+    void assignsPositionsToBacklogLargerThanOnePass() {
+        int backlog = WorkflowEventRelay.PASS_SIZE * 2 + 500;
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (long id = 1; id <= backlog; id++) {
+            rows.add(new Object[]{id, now, id});
+        }
+        jdbcTemplate.batchUpdate("insert into SERVICEADMIN2.WORKFLOW_EVENTS (EVENT_ID, EVENT_TYPE, STATUS, EVENT_DATE, " +
+                "APPLICATION_ID, SERVICE_ID, APPLICANT_ID, ACTOR_USER_ID) values (?, 'CREATED', 'WAITING_FOR_OWNER', ?, ?, 1, 1, 1)", rows);
+
+        WorkflowEventBatch first = eventFeed.getEventsOrThrow(null, Integer.toString(WorkflowEventFeed.MAX_LIMIT));
+        assertEquals(backlog, first.getEvents().size());
+        assertEquals(1L, first.getEvents().get(0).getId());
+        assertEquals((long) backlog, first.getEvents().get(backlog - 1).getId());
+        assertEquals(backlog, first.getLastPosition());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from SERVICEADMIN2.WORKFLOW_EVENTS where FEED_POSITION is null", Integer.class));
+    }
+
+    private static void insertEvent(Connection connection, long id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into SERVICEADMIN2.WORKFLOW_EVENTS (EVENT_ID, EVENT_TYPE, STATUS, EVENT_DATE, APPLICATION_ID, " +
+                        "SERVICE_ID, APPLICANT_ID, ACTOR_USER_ID) values (?, 'CREATED', 'WAITING_FOR_OWNER', ?, ?, 1, 1, 1)")) {
+            statement.setLong(1, id);
+            statement.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            statement.setLong(3, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private static List<Long> ids(WorkflowEventBatch batch) {
+        return batch.getEvents().stream().map(WorkflowEventEntity::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,58 @@
+package ua.factoriald.sunpp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+
+    @Test
+    void putGetAndRemoveIncludingZeroKey() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(0L, "нуль"));
+        assertNull(map.put(-5L, "мінус"));
+        assertNull(map.put(42L, "a"));
+        assertEquals("a", map.put(42L, "b"));
+
+        assertEquals(3, map.size());
+        assertEquals("нуль", map.get(0L));
+        assertEquals("мінус", map.get(-5L));
+        assertEquals("b", map.get(42L));
+        assertNull(map.get(7L));
+
+        assertEquals("нуль", map.remove(0L));
+        assertFalse(map.containsKey(0L));
+        assertNull(map.remove(7L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        Random random = new Random(20221018L);
+        LongHashMap<Long> map = new LongHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            //невеликий діапазон ключів, щоб часто траплялись колізії і видалення з середини ланцюжків
+            long key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,78 @@
+package ua.factoriald.sunpp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+
+    @Test
+    void findsByPrefixesOfAllWordsAndRanksExactFirst() {
+        TextIndex<String> index = new TextIndex<>();
+        index.put(1L, "Петренко Олександр Іванович", "1");
+        index.put(2L, "Петрук Олена", "2");
+        index.put(3L, "Петров Іван", "3");
+        index.put(4L, "Мар'яненко Петро", "4");
+
+        //коротше слово з префіксом вище, за рівної оцінки вище коротший текст
+        assertEquals(asList("4", "3", "2", "1"), keys(index.search("пет", 10, d -> true)));
+        assertEquals(asList("3", "1"), keys(index.search("ПЕТ ів", 10, d -> true)));
+        assertEquals(asList("4"), keys(index.search("марʼяненко", 10, d -> true)));
+        assertEquals(asList("2"), keys(index.search("петрук олена", 10, d -> true)));
+        assertEquals(1.0f, index.search("петрук олена", 10, d -> true).get(0).getScore());
+        assertEquals(asList("4", "3"), keys(index.search("пет", 2, d -> true)));
+        assertEquals(asList("4", "2"), keys(index.search("пет", 2, d -> !d.equals("3"))));
+        assertTrue(index.search(" - ", 10, d -> true).isEmpty());
+    }
+
+    @Test
+    void findsSimilarWordsBelowPrefixMatches() {
+        TextIndex<String> index = new TextIndex<>();
+        index.put(1L, "Коваленко Андрій", "1");
+        index.put(2L, "Коваль Андрій", "2");
+        index.put(3L, "Шевченко Тарас", "3");
+
+        List<TextIndex.Hit<String>> hits = index.search("коваленка", 10, d -> true);
+        assertEquals(asList("1", "2"), keys(hits));
+        assertTrue(hits.get(0).getScore() < 0.5f);
+        assertTrue(hits.get(1).getScore() < hits.get(0).getScore());
+
+        assertEquals(asList("2", "1"), keys(index.search("коваль андрій", 10, d -> true)));
+        assertEquals(2, index.search("ко", 10, d -> true).size());
+        assertTrue(index.search("кавеленко", 10, d -> true).isEmpty());
+    }
+
+    @Test
+    void replacesAndRemovesDocuments() {
+        TextIndex<String> index = new TextIndex<>();
+        index.put(1L, "Сервіс звітів", "старий");
+        index.put(1L, "Сервіс пошти", "новий");
+        index.put(2L, "Пошта", "2");
+
+        assertEquals(2, index.size());
+        assertTrue(index.search("звіт", 10, d -> true).isEmpty());
+        assertEquals(asList("2", "новий"), keys(index.search("пошт", 10, d -> true)));
+
+        assertEquals("новий", index.remove(1L));
+        assertNull(index.remove(1L));
+        assertNull(index.get(1L));
+        assertEquals(asList("2"), keys(index.search("пошт", 10, d -> true)));
+        assertTrue(index.search("сервіс", 10, d -> true).isEmpty());
+
+        index.remove(2L);
+        assertEquals(0, index.size());
+        assertTrue(index.search("пошта", 10, d -> true).isEmpty());
+    }
+
+    private static List<String> keys(List<TextIndex.Hit<String>> hits) {
+        return hits.stream().map(TextIndex.Hit::getDocument).collect(Collectors.toList());
+    }
+
+    private static List<String> asList(String... documents) {
+        return Arrays.asList(documents);
+    }
+}